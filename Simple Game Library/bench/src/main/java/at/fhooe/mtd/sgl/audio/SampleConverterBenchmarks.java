@@ -0,0 +1,106 @@
+/*******************************************************************************
+ * Copyright (c) 2016 - 2018 Roman Divotkey,
+ * Univ. of Applied Sciences Upper Austria. 
+ * All rights reserved.
+ *   
+ * This file is subject to the terms and conditions defined in file
+ * 'LICENSE', which is part of this source code package.
+ *    
+ * THIS CODE IS PROVIDED AS EDUCATIONAL MATERIAL AND NOT INTENDED TO ADDRESS
+ * ALL REAL WORLD PROBLEMS AND ISSUES IN DETAIL.
+ *******************************************************************************/
+package at.fhooe.mtd.sgl.audio;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the conversion of mixed samples to the output format and the
+ * operations on loaded samples, comparing the scalar loops with the Vector
+ * API. The forked virtual machines are
+ * started with {@code --add-modules jdk.incubator.vector}. This class resides
+ * in the audio package because {@link SampleConverter} is not part of the
+ * public API. The score is the number of invocations per second.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class SampleConverterBenchmarks {
+
+    /** The converter implementation. */
+    @Param({"scalar", "vector"})
+    private String backend;
+    
+    /** The number of samples processed per invocation. */
+    @Param({"256", "2048", "16384", "441000"})
+    private int samples;
+    
+    private SampleConverter converter;
+    private float[] src;
+    private float[] buf;
+    private short[] dst;
+    
+    @Setup
+    public void setUp() {
+        if (backend.equals("vector")) {
+            converter = SampleConverter.createVectorized();
+            if (converter == null) {
+                throw new IllegalStateException("vector api not available");
+            }
+        } else {
+            converter = new SampleConverter();
+        }
+        
+        // partly exceeding the range [-1, 1]
+        src = new float[samples];
+        for (int i = 0; i < samples; ++i) {
+            src[i] = 1.25f * (float) Math.sin(i * 0.01);
+        }
+        
+        // the peak near the end, the worst case of the peak search
+        src[samples - 2] = 1.5f;
+        buf = new float[samples];
+        dst = new short[samples];
+    }
+    
+    @Benchmark
+    public short[] toPcm16() {
+        converter.convertPcm16(src, dst, samples);
+        return dst;
+    }
+    
+    @Benchmark
+    public float[] clamp() {
+        // clamping works in place, restore the unclamped samples first
+        System.arraycopy(src, 0, buf, 0, samples);
+        converter.clampSamples(buf, samples);
+        return buf;
+    }
+    
+    @Benchmark
+    public int findPeak() {
+        return converter.peakIndex(src, samples);
+    }
+    
+    @Benchmark
+    public float[] scale() {
+        // alternate the factor to keep the samples in range
+        converter.scaleSamples(buf, samples, 0.5f);
+        converter.scaleSamples(buf, samples, 2.0f);
+        return buf;
+    }
+}
@@ -0,0 +1,111 @@
+/*******************************************************************************
+ * Copyright (c) 2016 - 2018 Roman Divotkey,
+ * Univ. of Applied Sciences Upper Austria. 
+ * All rights reserved.
+ *   
+ * This file is subject to the terms and conditions defined in file
+ * 'LICENSE', which is part of this source code package.
+ *    
+ * THIS CODE IS PROVIDED AS EDUCATIONAL MATERIAL AND NOT INTENDED TO ADDRESS
+ * ALL REAL WORLD PROBLEMS AND ISSUES IN DETAIL.
+ *******************************************************************************/
+package at.fhooe.mtd.sgl.bench;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import at.fhooe.mtd.sgl.audio.FloatAudio;
+import at.fhooe.mtd.sgl.audio.FloatAudioLoader;
+
+/**
+ * Benchmarks of decoding audio files with the {@link FloatAudioLoader}. The
+ * files are kept in memory, hence the score is the number of decoded frames
+ * per second, independent of any disk access.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoaderBenchmarks {
+
+    /** The sample rate of the encoded audio data. */
+    private static final float SAMPLE_RATE = 44100;
+    
+    /** The number of frames of the encoded audio data. */
+    private static final int FRAMES = 44100;
+    
+    /** The sample encoding of the audio data. */
+    @Param({"pcm8", "pcm16", "pcm24", "float32"})
+    private String format;
+    
+    private byte[] file;
+    
+    @Setup
+    public void setUp() throws IOException {
+        AudioFormat af;
+        switch (format) {
+        case "pcm8":
+            af = new AudioFormat(SAMPLE_RATE, 8, 2, false, false);
+            break;
+        case "pcm16":
+            af = new AudioFormat(SAMPLE_RATE, 16, 2, true, false);
+            break;
+        case "pcm24":
+            af = new AudioFormat(SAMPLE_RATE, 24, 2, true, false);
+            break;
+        default:
+            af = new AudioFormat(AudioFormat.Encoding.PCM_FLOAT, SAMPLE_RATE, 32, 2, 8, SAMPLE_RATE, false);
+            break;
+        }
+        
+        // random bytes are valid samples for all integer encodings
+        byte[] data = new byte[FRAMES * af.getFrameSize()];
+        new Random(42).nextBytes(data);
+        if (af.getEncoding() == AudioFormat.Encoding.PCM_FLOAT) {
+            for (int i = 0; i < data.length; i += 4) {
+                int bits = Float.floatToIntBits((data[i] & 0xff) / 127.5f - 1.0f);
+                data[i] = (byte) bits;
+                data[i + 1] = (byte) (bits >> 8);
+                data[i + 2] = (byte) (bits >> 16);
+                data[i + 3] = (byte) (bits >> 24);
+            }
+        }
+        
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        AudioSystem.write(new AudioInputStream(new ByteArrayInputStream(data), af, FRAMES),
+                AudioFileFormat.Type.WAVE, out);
+        file = out.toByteArray();
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(FRAMES)
+    public FloatAudio load() throws IOException, UnsupportedAudioFileException {
+        FloatAudioLoader loader = new FloatAudioLoader();
+        loader.load(new ByteArrayInputStream(file));
+        return loader.getChannel(loader.numChannels() - 1);
+    }
+}
@@ -0,0 +1,69 @@
+/*******************************************************************************
+ * Copyright (c) 2016 - 2018 Roman Divotkey,
+ * Univ. of Applied Sciences Upper Austria. 
+ * All rights reserved.
+ *   
+ * This file is subject to the terms and conditions defined in file
+ * 'LICENSE', which is part of this source code package.
+ *    
+ * THIS CODE IS PROVIDED AS EDUCATIONAL MATERIAL AND NOT INTENDED TO ADDRESS
+ * ALL REAL WORLD PROBLEMS AND ISSUES IN DETAIL.
+ *******************************************************************************/
+package at.fhooe.mtd.sgl.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import at.fhooe.mtd.sgl.app.Application.LoopMode;
+import at.fhooe.mtd.sgl.app.loop.GameLoop;
+
+/**
+ * Benchmarks the overhead of the game loop. The loop runs without waiting
+ * and with an empty update, hence the score is the number of loop iterations
+ * per second, including the bookkeeping of the frame statistics.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoopBenchmarks {
+
+    /** The number of loop iterations executed by one invocation. */
+    private static final int ITERATIONS = 10000;
+    
+    private final GameLoop loop = new GameLoop(60);
+    private int count;
+    private double sum;
+    
+    @Setup
+    public void setUp() {
+        loop.setMode(LoopMode.NO_WAIT);
+        loop.setUpdatable(dt -> {
+            sum += dt;
+            if (++count >= ITERATIONS) {
+                loop.stop();
+            }
+        });
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(ITERATIONS)
+    public double iteration() {
+        count = 0;
+        loop.run();
+        return sum;
+    }
+}
@@ -0,0 +1,87 @@
+/*******************************************************************************
+ * Copyright (c) 2016 - 2018 Roman Divotkey,
+ * Univ. of Applied Sciences Upper Austria. 
+ * All rights reserved.
+ *   
+ * This file is subject to the terms and conditions defined in file
+ * 'LICENSE', which is part of this source code package.
+ *    
+ * THIS CODE IS PROVIDED AS EDUCATIONAL MATERIAL AND NOT INTENDED TO ADDRESS
+ * ALL REAL WORLD PROBLEMS AND ISSUES IN DETAIL.
+ *******************************************************************************/
+package at.fhooe.mtd.sgl.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import at.fhooe.mtd.sgl.math.Matrix4d;
+import at.fhooe.mtd.sgl.math.Quaternion;
+import at.fhooe.mtd.sgl.math.Vector3d;
+
+/**
+ * Benchmarks of the linear algebra classes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MathBenchmarks {
+    private final Matrix4d a = new Matrix4d().setToRotateX(0.3).translate(1, 2, 3).rotateY(0.7).scale(2.0);
+    private final Matrix4d b = new Matrix4d().setToRotateZ(1.1).translate(-4, 5, 0.5);
+    private final Matrix4d m = new Matrix4d();
+    private final Quaternion q = new Quaternion().setToRotation(0.4, 0.2, -0.9);
+    private final Vector3d u = new Vector3d(1.5, -2.0, 0.25);
+    private final Vector3d v = new Vector3d(-0.5, 3.0, 4.0);
+    private final Vector3d w = new Vector3d();
+    
+    @Benchmark
+    public double matrixMul() {
+        return m.mul(a, b).m00;
+    }
+    
+    @Benchmark
+    public double matrixMulInPlace() {
+        return m.set(a).mul(b).m00;
+    }
+    
+    @Benchmark
+    public double matrixInverse() {
+        return m.set(a).inverse().m00;
+    }
+    
+    @Benchmark
+    public double quaternionTransform() {
+        return q.transform(u, w).getX();
+    }
+    
+    @Benchmark
+    public double vectorAdd() {
+        return w.set(u).add(v).getX();
+    }
+    
+    @Benchmark
+    public double vectorDot() {
+        return u.dot(v);
+    }
+    
+    @Benchmark
+    public double vectorCross() {
+        return w.set(u).cross(v).getX();
+    }
+    
+    @Benchmark
+    public double vectorNormalize() {
+        return w.set(u).normalize().getX();
+    }
+}
@@ -0,0 +1,95 @@
+/*******************************************************************************
+ * Copyright (c) 2016 - 2018 Roman Divotkey,
+ * Univ. of Applied Sciences Upper Austria. 
+ * All rights reserved.
+ *   
+ * This file is subject to the terms and conditions defined in file
+ * 'LICENSE', which is part of this source code package.
+ *    
+ * THIS CODE IS PROVIDED AS EDUCATIONAL MATERIAL AND NOT INTENDED TO ADDRESS
+ * ALL REAL WORLD PROBLEMS AND ISSUES IN DETAIL.
+ *******************************************************************************/
+package at.fhooe.mtd.sgl.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import at.fhooe.mtd.sgl.audio.MixProcessor2f;
+import at.fhooe.mtd.sgl.audio.MonoMix2f;
+import at.fhooe.mtd.sgl.audio.NullOutput;
+import at.fhooe.mtd.sgl.audio.SampleFormat;
+
+/**
+ * Benchmarks of the software mixer. The score is the number of mixed frames
+ * per second, rendered into a {@link NullOutput} without waiting for a real
+ * time audio device.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MixBenchmarks {
+
+    /** The sample rate of the output. */
+    private static final float SAMPLE_RATE = 44100;
+    
+    /** The number of frames rendered by one invocation. */
+    private static final int FRAMES = 1024;
+    
+    /** The number of simultaneously playing voices. */
+    @Param({"1", "10", "100", "1000"})
+    private int voices;
+    
+    private MixProcessor2f mixer;
+    
+    @Setup
+    public void setUp() {
+        mixer = new MixProcessor2f(new NullOutput(SampleFormat.PCM16.toAudioFormat(SAMPLE_RATE, 2), FRAMES));
+        mixer.setMaxVoices(voices);
+        
+        // one second of a sine tone, looped by all voices
+        float[] data = new float[(int) SAMPLE_RATE];
+        for (int i = 0; i < data.length; ++i) {
+            data[i] = (float) Math.sin(2 * Math.PI * 440 * i / SAMPLE_RATE);
+        }
+        
+        for (int i = 0; i < voices; ++i) {
+            MonoMix2f m = MonoMix2f.obtain(i + 1, data);
+            m.setVolume(1.0f / voices);
+            m.setPitch(0.5f + (float) i / voices);
+            m.setPanning(2.0f * i / voices - 1.0f);
+            m.setLooping(true);
+            mixer.addMix(m);
+        }
+        
+        // let the mixer pick up the voices
+        mixer.render(1);
+    }
+    
+    @TearDown
+    public void tearDown() {
+        mixer.close();
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(FRAMES)
+    public long render() {
+        mixer.render(FRAMES);
+        return mixer.getNumVoiceFrames();
+    }
+}
@@ -0,0 +1,87 @@
+/*******************************************************************************
+ * Copyright (c) 2016 - 2018 Roman Divotkey,
+ * Univ. of Applied Sciences Upper Austria. 
+ * All rights reserved.
+ *   
+ * This file is subject to the terms and conditions defined in file
+ * 'LICENSE', which is part of this source code package.
+ *    
+ * THIS CODE IS PROVIDED AS EDUCATIONAL MATERIAL AND NOT INTENDED TO ADDRESS
+ * ALL REAL WORLD PROBLEMS AND ISSUES IN DETAIL.
+ *******************************************************************************/
+package at.fhooe.mtd.sgl.input;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the dispatching of input events to the registered listeners.
+ * None of the listeners consumes the events, hence every event is delivered
+ * to all listeners. This class resides in the input package because
+ * {@link InputDevice} is not part of the public API.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InputDispatchBenchmarks {
+
+    /** The number of registered listeners. */
+    @Param({"1", "8", "64"})
+    private int listeners;
+    
+    private final InputDevice device = new InputDevice(InputDevice.KEYBOARD, 16);
+    private CountingListener last;
+    private int value;
+    
+    private static final class CountingListener extends InputAdapter {
+        long count;
+        
+        @Override
+        public boolean keyDown(int keycode, char ch) {
+            count += keycode;
+            return false;
+        }
+        
+        @Override
+        public boolean mouseMove(int x, int y) {
+            count += x;
+            return false;
+        }
+    }
+    
+    @Setup
+    public void setUp() {
+        for (int i = 0; i < listeners; ++i) {
+            last = new CountingListener();
+            device.addInputListener(last, i % 4);
+        }
+    }
+    
+    @Benchmark
+    public long fireKeyDown() {
+        value = (value + 1) & 0xff;
+        device.fireKeyDown(0L, value, 'a');
+        return last.count;
+    }
+    
+    @Benchmark
+    public long fireMouseMove() {
+        value = (value + 1) & 0xff;
+        device.fireMouseMove(0L, value, value);
+        return last.count;
+    }
+}
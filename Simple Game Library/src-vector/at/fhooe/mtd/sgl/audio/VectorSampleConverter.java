@@ -0,0 +1,93 @@
+/*******************************************************************************
+ * Copyright (c) 2016 - 2018 Roman Divotkey,
+ * Univ. of Applied Sciences Upper Austria. 
+ * All rights reserved.
+ *   
+ * This file is subject to the terms and conditions defined in file
+ * 'LICENSE', which is part of this source code package.
+ *    
+ * THIS CODE IS PROVIDED AS EDUCATIONAL MATERIAL AND NOT INTENDED TO ADDRESS
+ * ALL REAL WORLD PROBLEMS AND ISSUES IN DETAIL.
+ *******************************************************************************/
+package at.fhooe.mtd.sgl.audio;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Converts floating point samples using the incubating Vector API.
+ * <p>
+ * This class requires the module {@code jdk.incubator.vector} at compile time
+ * and at run time, hence it resides in a source folder of its own. It is only
+ * loaded reflectively by {@link SampleConverter} if the module is available.
+ * </p>
+ * <p>
+ * Clamping samples and searching the peak are vectorized explicitly. The
+ * just-in-time compiler does not vectorize the peak search on its own, since
+ * it is a reduction which also tracks an index. Scaling samples is already
+ * vectorized by the just-in-time compiler. Narrowing floats to 16 bit samples
+ * changes the vector shape, which is considerably slower than the vectorized
+ * scalar loop, and 24 bit samples interleave bytes, which does not map to
+ * vector lanes. These operations are therefore inherited from
+ * {@link SampleConverter}.
+ * </p>
+ */
+final class VectorSampleConverter extends SampleConverter {
+
+	/** The preferred species of float vectors of this platform. */
+	private static final VectorSpecies<Float> FLOATS = FloatVector.SPECIES_PREFERRED;
+
+	@Override
+	void clampSamples(float[] buf, int n) {
+		int i = 0;
+		for (int bound = FLOATS.loopBound(n); i < bound; i += FLOATS.length()) {
+			FloatVector.fromArray(FLOATS, buf, i)
+				.max(-1.0f)
+				.min(1.0f)
+				.intoArray(buf, i);
+		}
+		
+		// remaining samples
+		for (; i < n; ++i) {
+			float v = buf[i];
+			v = v < -1.0f ? -1.0f : v;
+			buf[i] = v > 1.0f ? 1.0f : v;
+		}
+	}
+	
+	@Override
+	int peakIndex(float[] buf, int n) {
+		int bound = FLOATS.loopBound(n);
+		if (bound == 0) {
+			return super.peakIndex(buf, n);
+		}
+		
+		// find the largest absolute value
+		FloatVector max = FloatVector.fromArray(FLOATS, buf, 0).abs();
+		int i = FLOATS.length();
+		for (; i < bound; i += FLOATS.length()) {
+			max = max.max(FloatVector.fromArray(FLOATS, buf, i).abs());
+		}
+		float peak = max.reduceLanes(VectorOperators.MAX);
+		for (; i < n; ++i) {
+			peak = Math.max(peak, Math.abs(buf[i]));
+		}
+		
+		// find the first sample reaching it
+		for (i = 0; i < bound; i += FLOATS.length()) {
+			VectorMask<Float> m = FloatVector.fromArray(FLOATS, buf, i).abs().eq(peak);
+			if (m.anyTrue()) {
+				return i + m.firstTrue();
+			}
+		}
+		for (; i < n; ++i) {
+			if (Math.abs(buf[i]) == peak) {
+				return i;
+			}
+		}
+		return 0;
+	}
+
+}
@@ -11,6 +11,8 @@
  *******************************************************************************/
 package at.fhooe.mtd.sgl.app;
 
+import at.fhooe.mtd.sgl.app.loop.FrameStats;
+
 public interface Application {
 
     /**
@@ -20,6 +22,8 @@ public interface Application {
      * <li>{@link #NO_WAIT}</li>
      * <li>{@link #BUSY_WAIT}</li>
      * <li>{@link #IDLE_WAIT}</li>
+     * <li>{@link #FIXED_STEP}</li>
+     * <li>{@link #HYBRID_WAIT}</li>
      * </ul>
      */
     public enum LoopMode {
@@ -41,7 +45,50 @@ public interface Application {
          * idle waiting. This mode will suspend the executing thread to save CPU
          * time. This mode is less accurate then {@code BUSY_WAIT}.
          */
-        IDLE_WAIT
+        IDLE_WAIT,
+        
+        /**
+         * The simulation will be updated with a constant delta time matching
+         * the configured update rate, while frames are rendered as fast as
+         * possible (or as v-sync allows). Updates and rendering are decoupled:
+         * a frame might require several or no update at all. The application
+         * should render within {@link ApplicationListener#render(double)} and
+         * use the provided interpolation factor to blend between the last two
+         * simulation states.
+         */
+        FIXED_STEP,
+        
+        /**
+         * The main loop will be executed with the configured update rate by
+         * suspending the executing thread until shortly before the next frame
+         * is due and busy waiting for the remaining time. The safety margin is
+         * adjusted at runtime to the observed wake-up latency of the
+         * scheduler. This mode is almost as accurate as {@code BUSY_WAIT} while
+         * consuming little more CPU time than {@code IDLE_WAIT}.
+         */
+        HYBRID_WAIT
+    }
+    
+    /**
+     * Describes how the main loop reacts if it falls behind its schedule by
+     * one or more frames, e.g., after a stall caused by garbage collection or
+     * loading resources. Only loop modes with a target update rate are
+     * affected.
+     */
+    public enum StallPolicy {
+        
+        /**
+         * Missed frames are skipped. The next frame is executed at the next
+         * future slot of the original schedule.
+         */
+        DROP,
+        
+        /**
+         * Missed frames are executed without waiting in between until the loop
+         * has caught up with its schedule. At most the configured maximum
+         * number of steps is caught up, any further frames are skipped.
+         */
+        COMPRESS
     }
     
     /**
@@ -57,4 +104,19 @@ public interface Application {
      */
     public double getDeltaTime();
     
+    /**
+     * Returns the update rate actually achieved by the main loop. The rate is
+     * measured over intervals of one second.
+     * 
+     * @return the achieved updates per second
+     */
+    public double getAchievedUps();
+    
+    /**
+     * Returns the timing statistics of the main loop.
+     * 
+     * @return the frame statistics
+     */
+    public FrameStats getFrameStats();
+    
 }
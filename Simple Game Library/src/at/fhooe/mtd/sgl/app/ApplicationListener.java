@@ -36,6 +36,23 @@ public interface ApplicationListener {
      */
     public void update(double dt);
     
+    /**
+     * Called once for each frame to be rendered, after all updates of this
+     * frame have been carried out.
+     * <p>
+     * In loop mode {@link Application.LoopMode#FIXED_STEP} the simulation
+     * advances in steps of constant length, which do not necessarily line up
+     * with rendered frames. The interpolation factor tells how far the current
+     * frame lies between the previous and the next simulation step. In all
+     * other loop modes this method is called after each update with an
+     * interpolation factor of 1.
+     * </p>
+     * 
+     * @param alpha
+     *            the interpolation factor within the range [0, 1]
+     */
+    public default void render(double alpha) { }
+    
     /**
      * Invoked when the application windows is resized. This method is also
      * called when the application is created after the {@link #create} method
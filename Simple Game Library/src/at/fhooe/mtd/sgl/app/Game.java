@@ -141,6 +141,13 @@ public class Game<T extends Game<?>> implements ApplicationListener {
         }
     }
 
+    @Override
+    public void render(double alpha) {
+        if (state != null) {
+            state.render(alpha);
+        }
+    }
+
     @Override
     public void resize(int width, int height) {
         if (state != null)
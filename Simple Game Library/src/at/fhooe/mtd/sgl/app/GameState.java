@@ -73,6 +73,15 @@ public abstract class GameState<T extends Game<?>> {
      */
     public void update(double dt) {}
     
+    /**
+     * Called once for each rendered frame.
+     * 
+     * @param alpha
+     *            the interpolation factor between the last two updates
+     * @see ApplicationListener#render(double)
+     */
+    public void render(double alpha) {}
+    
     /**
      * Return the context of this state.
      * 
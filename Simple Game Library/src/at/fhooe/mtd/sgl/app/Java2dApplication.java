@@ -12,12 +12,16 @@
 package at.fhooe.mtd.sgl.app;
 
 import at.fhooe.mtd.sgl.Sgl;
+import at.fhooe.mtd.sgl.app.loop.FrameStats;
 import at.fhooe.mtd.sgl.app.loop.GameLoop;
 import at.fhooe.mtd.sgl.audio.JavaAudio2f;
 import at.fhooe.mtd.sgl.graphics.GraphicsAdapter;
 import at.fhooe.mtd.sgl.graphics.screen.Screen;
 import at.fhooe.mtd.sgl.input.Input;
 import at.fhooe.mtd.sgl.input.InputListener;
+import at.fhooe.mtd.sgl.input.InputRecorder;
+import at.fhooe.mtd.sgl.input.InputReplayer;
+import at.fhooe.mtd.sgl.input.InputSnapshot;
 import at.fhooe.mtd.sgl.input.Keyboard;
 import at.fhooe.mtd.sgl.input.Mouse;
 
@@ -30,6 +34,10 @@ public class Java2dApplication implements Application, Input {
     private Mouse mouse;
     private JavaAudio2f audio;
     
+    // double buffered, the previous snapshot stays valid for one more frame
+    private InputSnapshot[] snapshots = {new InputSnapshot(), new InputSnapshot()};
+    private InputSnapshot snapshot = snapshots[0];
+    
     public Java2dApplication(final Java2dApplicationConfig c, ApplicationListener l) {
         appListener = l;
         
@@ -39,6 +47,7 @@ public class Java2dApplication implements Application, Input {
         screen.setScreenDevice(c.screenDevice);
         screen.setFullScreen(c.fullScreen);
         screen.setVsyncEnabled(c.vsync);
+        screen.setPipelined(c.pipelinedRendering);
         screen.showCursor(c.showCursor);
         screen.setGraphicsQuality(c.graphicsQuality);
         screen.setApplicationIcons(c.iconImages);
@@ -60,6 +69,7 @@ public class Java2dApplication implements Application, Input {
 
         // initialize input
         mouse = new Mouse(screen);
+        mouse.setCoalescing(c.coalesceMouseMoves);
         keyboard = new Keyboard();
         screen.addKeyListener(keyboard);
         screen.addMouseListener(mouse);
@@ -69,11 +79,19 @@ public class Java2dApplication implements Application, Input {
         // initialize audio
         if (c.enableAudio) {
         	audio = new JavaAudio2f();
-        	audio.open(c.audioBufferSize);
+        	audio.setSampleRate(c.audioSampleRate);
+        	audio.setSampleFormat(c.audioSampleFormat);
+        	audio.setLowLatency(c.audioLowLatency);
+        	audio.setMaxVoices(c.audioMaxVoices);
+        	audio.setVoiceStealing(c.audioVoiceStealing);
+        	audio.setResampleQuality(c.audioResampleQuality);
+        	audio.open(c.audioBufferSize, c.audioMixThreads);
         }
         
         // initialize game loop
         loop = new GameLoop(c.ups);
+        loop.setMaxSteps(c.maxStepsPerFrame);
+        loop.setStallPolicy(c.stallPolicy);
         loop.setMode(c.loopMode);
         
         loop.setUpdatable(new GameLoop.Updatable() {
@@ -81,6 +99,11 @@ public class Java2dApplication implements Application, Input {
 			public void update(double dt) {
 				Java2dApplication.this.update(dt);
 			}
+
+			@Override
+			public void render(double alpha) {
+				appListener.render(alpha);
+			}
 		});
 
         // initialize SGL global data structure
@@ -94,6 +117,9 @@ public class Java2dApplication implements Application, Input {
         appListener.create();
         appListener.resize(screen.getWidth(), screen.getHeight());
         loop.run();
+        if (c.printFrameStats) {
+            loop.getFrameStats().print(System.out);
+        }
         
         // clean up
         appListener.dispose();
@@ -111,6 +137,10 @@ public class Java2dApplication implements Application, Input {
     private void update(double dt) {
         mouse.update();
         keyboard.update();
+        InputSnapshot s = snapshot == snapshots[0] ? snapshots[1] : snapshots[0];
+        keyboard.publish(s);
+        mouse.publish(s);
+        snapshot = s;
         appListener.update(dt);
     }
 
@@ -161,6 +191,16 @@ public class Java2dApplication implements Application, Input {
         return loop.getDeltaTime();
     }
     
+    @Override
+    public double getAchievedUps() {
+        return loop.getAchievedUps();
+    }
+    
+    @Override
+    public FrameStats getFrameStats() {
+        return loop.getFrameStats();
+    }
+    
 	@Override
 	public boolean isMouseButtonPressed(int button) {
 		return mouse.isPressed(button);
@@ -200,5 +240,27 @@ public class Java2dApplication implements Application, Input {
 	public boolean isMouseTrapped() {
 		return mouse.isTrapped();
 	}
+
+	@Override
+	public long getNumDroppedEvents() {
+		return keyboard.getNumDroppedEvents() + mouse.getNumDroppedEvents();
+	}
+
+	@Override
+	public InputSnapshot getInputSnapshot() {
+		return snapshot;
+	}
+
+	@Override
+	public void setInputRecorder(InputRecorder r) {
+		keyboard.setRecorder(r);
+		mouse.setRecorder(r);
+	}
+
+	@Override
+	public void setInputReplayer(InputReplayer r) {
+		keyboard.setReplayer(r);
+		mouse.setReplayer(r);
+	}
         
 }
\ No newline at end of file
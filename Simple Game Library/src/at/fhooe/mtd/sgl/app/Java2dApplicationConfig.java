@@ -17,7 +17,13 @@ import java.util.ArrayList;
 import java.util.List;
 
 import at.fhooe.mtd.sgl.app.Application.LoopMode;
+import at.fhooe.mtd.sgl.app.Application.StallPolicy;
+import at.fhooe.mtd.sgl.app.loop.GameLoop;
 import at.fhooe.mtd.sgl.audio.JavaAudio2f;
+import at.fhooe.mtd.sgl.audio.MixProcessor2f;
+import at.fhooe.mtd.sgl.audio.Resampler;
+import at.fhooe.mtd.sgl.audio.SampleFormat;
+import at.fhooe.mtd.sgl.audio.VoiceStealing;
 import at.fhooe.mtd.sgl.graphics.GfxConfigurator;
 import at.fhooe.mtd.sgl.graphics.Graphics.Quality;
 import at.fhooe.mtd.sgl.graphics.screen.Screen;
@@ -35,6 +41,9 @@ public class Java2dApplicationConfig {
     /** Defines if v-sync should be enabled or not. */
     public boolean vsync = true;
     
+    /** Defines if frames should be presented by a dedicated render thread. */
+    public boolean pipelinedRendering = false;
+    
     /** Defines if the application should attempt to start in full-screen. */
     public boolean fullScreen = false;
     
@@ -47,8 +56,20 @@ public class Java2dApplicationConfig {
     /** The strategy used to achieve the target update rate. */
     public LoopMode loopMode = LoopMode.NO_WAIT;
     
+    /** The maximum number of updates per frame in fixed step mode. */
+    public int maxStepsPerFrame = GameLoop.DEFAULT_MAX_STEPS;
+    
+    /** Defines how the main loop reacts if it falls behind its schedule. */
+    public StallPolicy stallPolicy = StallPolicy.DROP;
+    
+    /** Whether frame statistics should be printed when the application exits. */
+    public boolean printFrameStats = false;
+    
     /** Defines if the mouse cursor should be visible. */
     public boolean showCursor = true;
+    
+    /** Whether consecutive mouse move events within one frame should be merged. */
+    public boolean coalesceMouseMoves = false;
 
     /** Defines the render quality. */
     public Quality graphicsQuality = Quality.Good;
@@ -68,6 +89,27 @@ public class Java2dApplicationConfig {
     /** The size of the audio buffer (affects latency). */
     public int audioBufferSize = JavaAudio2f.DEFAULT_BUFFER_SIZE;
     
+    /** Whether to write audio data in small adaptive periods to reduce latency. */
+    public boolean audioLowLatency = false;
+    
+    /** The sample rate of the audio output, preferably the device's native rate. */
+    public float audioSampleRate = JavaAudio2f.DEFAULT_SAMPLE_RATE;
+    
+    /** The sample format of the audio output. */
+    public SampleFormat audioSampleFormat = SampleFormat.PCM16;
+    
+    /** The number of threads used to mix sounds (pays off for many sounds). */
+    public int audioMixThreads = 1;
+    
+    /** The maximum number of simultaneously playing sounds. */
+    public int audioMaxVoices = MixProcessor2f.DEFAULT_MAX_VOICES;
+    
+    /** Defines which sound to stop if too many sounds are playing. */
+    public VoiceStealing audioVoiceStealing = VoiceStealing.OLDEST;
+    
+    /** The method used to convert sounds to the output sample rate. */
+    public Resampler.Quality audioResampleQuality = Resampler.Quality.SINC;
+    
     
     /**
      * Create a new instance using the selected configuration of the specified
@@ -18,12 +18,7 @@ class BusyWait extends LoopState {
     /** Nanoseconds multiplied by this constant will be seconds. */
     private static final double NANO_TO_SECOND = 1.0 / 1000000000;
 
-    /** Seconds multiplied by this constant will be nanoseconds. */
-    private static final long SECOND_TO_NANO = 1000000000;
-    
     private long last;
-
-    private long targetNs;
     
     public BusyWait(GameLoop context) {
         super(context);
@@ -32,7 +27,7 @@ class BusyWait extends LoopState {
     @Override
     public void enter() {
         last = System.nanoTime();
-        targetNs = (long) (1.0 / getContext().getUps() * SECOND_TO_NANO);
+        startSchedule(last);
         running = true;
     }
     
@@ -40,12 +35,21 @@ class BusyWait extends LoopState {
     public void run() {
         while (running) {
             long t1 = System.nanoTime();
-            deltaTime = (-last + (last = t1)) * NANO_TO_SECOND;
+            long frameNs = -last + (last = t1);
+            deltaTime = frameNs * NANO_TO_SECOND;
+            countUpdate(t1);
             getContext().getUpdatable().update(deltaTime);
             
             long t2 = System.nanoTime();
-            long toWait = targetNs - (t2 - t1);
-            while (System.nanoTime() - t2 < toWait) {};
+            getContext().getUpdatable().render(alpha);
+            
+            long t3 = System.nanoTime();
+            long deadline = nextDeadline(t3);
+            long t4;
+            while ((t4 = System.nanoTime()) - deadline < 0) {};
+            
+            getContext().getFrameStats().recordFrame(frameNs, t2 - t1, t3 - t2);
+            getContext().getFrameStats().recordWait(t4 - t3, t4 - deadline);
         }
     }
 
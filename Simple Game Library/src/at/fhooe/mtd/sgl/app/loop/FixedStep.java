@@ -0,0 +1,75 @@
+/*******************************************************************************
+ * Copyright (c) 2016 - 2018 Roman Divotkey,
+ * Univ. of Applied Sciences Upper Austria. 
+ * All rights reserved.
+ *   
+ * This file is subject to the terms and conditions defined in file
+ * 'LICENSE', which is part of this source code package.
+ *    
+ * THIS CODE IS PROVIDED AS EDUCATIONAL MATERIAL AND NOT INTENDED TO ADDRESS
+ * ALL REAL WORLD PROBLEMS AND ISSUES IN DETAIL.
+ *******************************************************************************/
+package at.fhooe.mtd.sgl.app.loop;
+
+import at.fhooe.mtd.sgl.app.Application.LoopMode;
+
+class FixedStep extends LoopState {
+    
+    /** Nanoseconds multiplied by this constant will be seconds. */
+    private static final double NANO_TO_SECOND = 1.0 / 1000000000;
+
+    /** Seconds multiplied by this constant will be nanoseconds. */
+    private static final long SECOND_TO_NANO = 1000000000;
+    
+    private long last;
+
+    private long stepNs;
+    
+    private long accumulator;
+    
+    public FixedStep(GameLoop context) {
+        super(context);
+    }
+    
+    @Override
+    public void enter() {
+        last = System.nanoTime();
+        stepNs = (long) (1.0 / getContext().getUps() * SECOND_TO_NANO);
+        deltaTime = stepNs * NANO_TO_SECOND;
+        accumulator = 0;
+        running = true;
+    }
+    
+    @Override
+    public void run() {
+        while (running) {
+            long t1 = System.nanoTime();
+            long frameNs = t1 - last;
+            accumulator += frameNs;
+            last = t1;
+            
+            int steps = 0;
+            while (accumulator >= stepNs && steps < getContext().getMaxSteps()) {
+                countUpdate(t1);
+                getContext().getUpdatable().update(deltaTime);
+                accumulator -= stepNs;
+                ++steps;
+            }
+            
+            // fell too far behind, drop remaining steps to avoid spiraling
+            if (accumulator >= stepNs) {
+                accumulator %= stepNs;
+            }
+            
+            long t2 = System.nanoTime();
+            alpha = (double) accumulator / stepNs;
+            getContext().getUpdatable().render(alpha);
+            getContext().getFrameStats().recordFrame(frameNs, t2 - t1, System.nanoTime() - t2);
+        }
+    }
+
+    @Override
+    public LoopMode getMode() {
+        return LoopMode.FIXED_STEP;
+    }
+}
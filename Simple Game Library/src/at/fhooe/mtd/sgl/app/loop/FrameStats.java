@@ -0,0 +1,172 @@
+/*******************************************************************************
+ * Copyright (c) 2016 - 2018 Roman Divotkey,
+ * Univ. of Applied Sciences Upper Austria. 
+ * All rights reserved.
+ *   
+ * This file is subject to the terms and conditions defined in file
+ * 'LICENSE', which is part of this source code package.
+ *    
+ * THIS CODE IS PROVIDED AS EDUCATIONAL MATERIAL AND NOT INTENDED TO ADDRESS
+ * ALL REAL WORLD PROBLEMS AND ISSUES IN DETAIL.
+ *******************************************************************************/
+package at.fhooe.mtd.sgl.app.loop;
+
+import java.io.PrintStream;
+
+import at.fhooe.mtd.sgl.math.Histogram;
+import at.fhooe.mtd.sgl.math.MathUtils;
+
+/**
+ * Collects timing statistics of the main loop.
+ * <p>
+ * All times are recorded in nanoseconds into histograms, which can be queried
+ * at runtime, e.g., to display the 99th percentile of the frame time. Recording
+ * does not allocate memory, hence the statistics can be active all the time.
+ * </p>
+ * <p>
+ * The following times are recorded for each frame:
+ * </p>
+ * <ul>
+ * <li>frame time, the time elapsed between the start of two frames</li>
+ * <li>update time, the time spent updating the application</li>
+ * <li>render time, the time spent rendering the application</li>
+ * <li>wait time, the time spent waiting for the next frame</li>
+ * <li>overshoot, the time by which the loop missed the deadline of the next
+ * frame when it stopped waiting</li>
+ * </ul>
+ */
+public class FrameStats {
+
+    private final Histogram frameTime = new Histogram();
+    private final Histogram updateTime = new Histogram();
+    private final Histogram renderTime = new Histogram();
+    private final Histogram waitTime = new Histogram();
+    private final Histogram overshoot = new Histogram();
+    private volatile double achievedUps;
+    
+    /**
+     * Records the times of a single frame.
+     * 
+     * @param frameNs
+     *            the time elapsed since the start of the previous frame
+     * @param updateNs
+     *            the time spent updating
+     * @param renderNs
+     *            the time spent rendering
+     */
+    public void recordFrame(long frameNs, long updateNs, long renderNs) {
+        frameTime.record(frameNs);
+        updateTime.record(updateNs);
+        renderTime.record(renderNs);
+    }
+    
+    /**
+     * Records the times of waiting for the next frame.
+     * 
+     * @param waitNs
+     *            the time spent waiting
+     * @param overshootNs
+     *            the time by which the deadline has been missed
+     */
+    public void recordWait(long waitNs, long overshootNs) {
+        waitTime.record(waitNs);
+        overshoot.record(overshootNs);
+    }
+    
+    void setAchievedUps(double ups) {
+        achievedUps = ups;
+    }
+    
+    /**
+     * Returns the update rate achieved most recently.
+     * 
+     * @return the achieved updates per second
+     */
+    public double getAchievedUps() {
+        return achievedUps;
+    }
+    
+    /**
+     * Returns the histogram of frame times.
+     * 
+     * @return the frame time histogram
+     */
+    public Histogram getFrameTime() {
+        return frameTime;
+    }
+
+    /**
+     * Returns the histogram of update times.
+     * 
+     * @return the update time histogram
+     */
+    public Histogram getUpdateTime() {
+        return updateTime;
+    }
+
+    /**
+     * Returns the histogram of render times.
+     * 
+     * @return the render time histogram
+     */
+    public Histogram getRenderTime() {
+        return renderTime;
+    }
+
+    /**
+     * Returns the histogram of wait times.
+     * 
+     * @return the wait time histogram
+     */
+    public Histogram getWaitTime() {
+        return waitTime;
+    }
+
+    /**
+     * Returns the histogram of deadline overshoots.
+     * 
+     * @return the overshoot histogram
+     */
+    public Histogram getOvershoot() {
+        return overshoot;
+    }
+    
+    /**
+     * Removes all recorded values.
+     */
+    public void reset() {
+        frameTime.reset();
+        updateTime.reset();
+        renderTime.reset();
+        waitTime.reset();
+        overshoot.reset();
+    }
+    
+    /**
+     * Prints a summary of the recorded statistics. All times are printed in
+     * milliseconds.
+     * 
+     * @param out
+     *            the print stream to print to
+     */
+    public void print(PrintStream out) {
+        out.printf("%-8s %8s %8s %8s %8s %8s %8s%n", 
+                "[ms]", "count", "mean", "p50", "p95", "p99", "max");
+        print(out, "frame", frameTime);
+        print(out, "update", updateTime);
+        print(out, "render", renderTime);
+        print(out, "wait", waitTime);
+        print(out, "over", overshoot);
+        out.printf("achieved ups: %.2f%n", achievedUps);
+    }
+
+    private void print(PrintStream out, String name, Histogram h) {
+        out.printf("%-8s %8d %8.3f %8.3f %8.3f %8.3f %8.3f%n", name, 
+                h.getCount(),
+                h.getMean() * MathUtils.NANO_TO_MILLIS,
+                h.getValueAtPercentile(50) * MathUtils.NANO_TO_MILLIS,
+                h.getValueAtPercentile(95) * MathUtils.NANO_TO_MILLIS,
+                h.getValueAtPercentile(99) * MathUtils.NANO_TO_MILLIS,
+                h.getMax() * MathUtils.NANO_TO_MILLIS);
+    }
+}
@@ -12,18 +12,27 @@
 package at.fhooe.mtd.sgl.app.loop;
 
 import at.fhooe.mtd.sgl.app.Application.LoopMode;
+import at.fhooe.mtd.sgl.app.Application.StallPolicy;
 
 public class GameLoop {
 
+    /** The default maximum number of fixed steps carried out per frame. */
+    public static final int DEFAULT_MAX_STEPS = 5;
+    
     private Updatable updatable;
     
     public interface Updatable {
         public void update(double dt);
+        
+        public default void render(double alpha) { }
     }
     
     private LoopState state;
     private boolean running;
     private double ups;
+    private int maxSteps = DEFAULT_MAX_STEPS;
+    private StallPolicy stallPolicy = StallPolicy.DROP;
+    private final FrameStats stats = new FrameStats();
             
     public GameLoop(double ups) {
         setUps(ups);
@@ -38,6 +47,10 @@ public class GameLoop {
             return new BusyWait(this);
         case IDLE_WAIT:
             return new IdleWait(this);
+        case FIXED_STEP:
+            return new FixedStep(this);
+        case HYBRID_WAIT:
+            return new HybridWait(this);
         default:
             return null;
         }
@@ -105,4 +118,85 @@ public class GameLoop {
     public double getDeltaTime() {
         return state.getDeltaTime();
     }
+
+    /**
+     * Returns the interpolation factor of the most recently rendered frame.
+     * 
+     * @return the interpolation factor within the range [0, 1]
+     * @see at.fhooe.mtd.sgl.app.ApplicationListener#render(double)
+     */
+    public double getAlpha() {
+        return state.getAlpha();
+    }
+
+    /**
+     * Sets the maximum number of fixed steps carried out within a single frame.
+     * If the simulation falls further behind, e.g., after a stall, the
+     * remaining time is dropped instead of being caught up. This prevents the
+     * loop from spiraling when updates take longer than the step size. The
+     * same limit applies to the number of frames caught up with stall policy
+     * {@link StallPolicy#COMPRESS}.
+     * 
+     * @param n
+     *            the maximum number of steps per frame
+     * @throws IllegalArgumentException
+     *             if the specified number is less than one
+     */
+    public void setMaxSteps(int n) {
+        if (n < 1) {
+            throw new IllegalArgumentException("max steps must be >= 1, got " + n);
+        }
+        maxSteps = n;
+    }
+
+    /**
+     * Returns the maximum number of fixed steps carried out within a single
+     * frame.
+     * 
+     * @return the maximum number of steps per frame
+     */
+    public int getMaxSteps() {
+        return maxSteps;
+    }
+    
+    /**
+     * Sets the policy applied if the loop falls behind its schedule.
+     * 
+     * @param p
+     *            the stall policy
+     */
+    public void setStallPolicy(StallPolicy p) {
+        if (p == null) {
+            throw new IllegalArgumentException("stall policy must not be null");
+        }
+        stallPolicy = p;
+    }
+    
+    /**
+     * Returns the policy applied if the loop falls behind its schedule.
+     * 
+     * @return the stall policy
+     */
+    public StallPolicy getStallPolicy() {
+        return stallPolicy;
+    }
+    
+    /**
+     * Returns the update rate actually achieved, measured over intervals of
+     * one second. Returns zero if no measurement is available yet.
+     * 
+     * @return the achieved updates per second
+     */
+    public double getAchievedUps() {
+        return state.getAchievedUps();
+    }
+    
+    /**
+     * Returns the timing statistics recorded by this game loop.
+     * 
+     * @return the frame statistics
+     */
+    public FrameStats getFrameStats() {
+        return stats;
+    }
 }
\ No newline at end of file
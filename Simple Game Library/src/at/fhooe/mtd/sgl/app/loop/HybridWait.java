@@ -0,0 +1,103 @@
+/*******************************************************************************
+ * Copyright (c) 2016 - 2018 Roman Divotkey,
+ * Univ. of Applied Sciences Upper Austria. 
+ * All rights reserved.
+ *   
+ * This file is subject to the terms and conditions defined in file
+ * 'LICENSE', which is part of this source code package.
+ *    
+ * THIS CODE IS PROVIDED AS EDUCATIONAL MATERIAL AND NOT INTENDED TO ADDRESS
+ * ALL REAL WORLD PROBLEMS AND ISSUES IN DETAIL.
+ *******************************************************************************/
+package at.fhooe.mtd.sgl.app.loop;
+
+import java.util.concurrent.locks.LockSupport;
+
+import at.fhooe.mtd.sgl.app.Application.LoopMode;
+
+class HybridWait extends LoopState {
+    
+    /** Nanoseconds multiplied by this constant will be seconds. */
+    private static final double NANO_TO_SECOND = 1.0 / 1000000000;
+
+    /** The initial safety margin before the deadline in nanoseconds. */
+    private static final long INITIAL_MARGIN = 1000000;
+    
+    /** The minimum safety margin in nanoseconds. */
+    private static final long MIN_MARGIN = 50000;
+    
+    /** The maximum safety margin in nanoseconds. */
+    private static final long MAX_MARGIN = 4000000;
+    
+    /** Determines how fast the safety margin shrinks (as power of two). */
+    private static final int DECAY_SHIFT = 6;
+    
+    private long last;
+    
+    /** Time spent spinning before the deadline, learned at runtime. */
+    private long margin = INITIAL_MARGIN;
+    
+    public HybridWait(GameLoop context) {
+        super(context);
+    }
+    
+    @Override
+    public void enter() {
+        last = System.nanoTime();
+        startSchedule(last);
+        running = true;
+    }
+    
+    @Override
+    public void run() {
+        while (running) {
+            long t1 = System.nanoTime();
+            long frameNs = -last + (last = t1);
+            deltaTime = frameNs * NANO_TO_SECOND;
+            countUpdate(t1);
+            getContext().getUpdatable().update(deltaTime);
+            
+            long t2 = System.nanoTime();
+            getContext().getUpdatable().render(alpha);
+            
+            long t3 = System.nanoTime();
+            long deadline = nextDeadline(t3);
+            long t4 = waitUntil(deadline);
+            
+            getContext().getFrameStats().recordFrame(frameNs, t2 - t1, t3 - t2);
+            getContext().getFrameStats().recordWait(t4 - t3, t4 - deadline);
+        }
+    }
+
+    private long waitUntil(long deadline) {
+        long now = System.nanoTime();
+        long toPark;
+        while ((toPark = deadline - margin - now) > 0) {
+            LockSupport.parkNanos(toPark);
+            long woken = System.nanoTime();
+            adaptMargin(woken - now - toPark);
+            now = woken;
+        }
+
+        while ((now = System.nanoTime()) - deadline < 0) {
+            Thread.onSpinWait();
+        }
+        return now;
+    }
+    
+    private void adaptMargin(long overshoot) {
+        if (overshoot > margin) {
+            // react to late wake-ups immediately
+            margin = Math.min(overshoot, MAX_MARGIN);
+        } else {
+            // slowly approach the observed overshoot
+            margin -= (margin - Math.max(overshoot, 0)) >> DECAY_SHIFT;
+            margin = Math.max(margin, MIN_MARGIN);
+        }
+    }
+
+    @Override
+    public LoopMode getMode() {
+        return LoopMode.HYBRID_WAIT;
+    }
+}
@@ -12,12 +12,33 @@
 package at.fhooe.mtd.sgl.app.loop;
 
 import at.fhooe.mtd.sgl.app.Application.LoopMode;
+import at.fhooe.mtd.sgl.app.Application.StallPolicy;
 
 abstract class LoopState {
     
+    /** Seconds multiplied by this constant will be nanoseconds. */
+    private static final double SECOND_TO_NANO = 1000000000.0;
+    
+    /** Interval used to measure the achieved update rate in nanoseconds. */
+    private static final long RATE_INTERVAL = 1000000000;
+    
     private GameLoop context;
     protected boolean running;
     protected double deltaTime;
+    protected double alpha = 1.0;
+    
+    /** Start time of the frame schedule in nanoseconds. */
+    private long scheduleStart;
+    
+    /** Length of one frame of the schedule in nanoseconds. */
+    private double periodNs;
+    
+    /** Index of the frame the schedule is currently at. */
+    private long frameIdx;
+    
+    private long rateStart;
+    private int rateCount;
+    private double achievedUps;
     
     public LoopState(GameLoop context) {
         this.context = context;
@@ -49,4 +70,68 @@ abstract class LoopState {
     public double getDeltaTime() {
         return deltaTime;
     }
+
+    public double getAlpha() {
+        return alpha;
+    }
+
+    public double getAchievedUps() {
+        return achievedUps;
+    }
+
+    /**
+     * Counts an update for measuring the achieved update rate.
+     * 
+     * @param now
+     *            the current time in nanoseconds
+     */
+    protected final void countUpdate(long now) {
+        if (rateCount++ == 0) {
+            rateStart = now;
+        } else if (now - rateStart >= RATE_INTERVAL) {
+            achievedUps = (rateCount - 1) * SECOND_TO_NANO / (now - rateStart);
+            context.getFrameStats().setAchievedUps(achievedUps);
+            rateStart = now;
+            rateCount = 1;
+        }
+    }
+    
+    /**
+     * Starts a new frame schedule based on the target update rate of the
+     * game loop.
+     * 
+     * @param now
+     *            the start time of the schedule in nanoseconds
+     */
+    protected final void startSchedule(long now) {
+        scheduleStart = now;
+        periodNs = SECOND_TO_NANO / context.getUps();
+        frameIdx = 0;
+    }
+
+    /**
+     * Advances the frame schedule and returns the absolute time at which the
+     * next frame is due. Deadlines are computed from the start of the schedule
+     * so timing errors do not accumulate. If the loop has fallen behind by one
+     * or more frames, the stall policy of the game loop decides how many of the
+     * missed frames are skipped.
+     * 
+     * @param now
+     *            the current time in nanoseconds
+     * @return the deadline of the next frame in nanoseconds
+     */
+    protected final long nextDeadline(long now) {
+        ++frameIdx;
+        long behind = (long) ((now - scheduleStart) / periodNs) - frameIdx;
+        if (behind > 0) {
+            if (context.getStallPolicy() == StallPolicy.DROP) {
+                // skip the slot in progress as well, its deadline has passed
+                frameIdx += behind + 1;
+            } else if (behind > context.getMaxSteps()) {
+                frameIdx += behind - context.getMaxSteps();
+            }
+        }
+        
+        return scheduleStart + (long) (frameIdx * periodNs);
+    }
 }
\ No newline at end of file
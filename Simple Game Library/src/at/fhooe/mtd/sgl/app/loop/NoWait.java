@@ -34,8 +34,15 @@ class NoWait extends LoopState {
     @Override
     public void run() {
         while (running) {
-            deltaTime = (-last + (last = System.nanoTime())) * NANO_TO_SECOND;
-            getContext().getUpdatable().update(deltaTime);            
+            long t1 = System.nanoTime();
+            long frameNs = -last + (last = t1);
+            deltaTime = frameNs * NANO_TO_SECOND;
+            countUpdate(t1);
+            getContext().getUpdatable().update(deltaTime);
+            
+            long t2 = System.nanoTime();
+            getContext().getUpdatable().render(alpha);
+            getContext().getFrameStats().recordFrame(frameNs, t2 - t1, System.nanoTime() - t2);
         }
     }
 
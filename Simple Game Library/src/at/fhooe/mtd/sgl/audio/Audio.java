@@ -13,6 +13,7 @@ package at.fhooe.mtd.sgl.audio;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.URL;
 
 /**
  * This interface encapsulates access to the audio system.
@@ -24,6 +25,10 @@ public interface Audio {
 
 	/**
 	 * Creates a new sound clip from the specified audio stream.
+	 * <p>
+	 * This method may be called by several threads concurrently, e.g., to load
+	 * sounds in the background.
+	 * </p>
 	 * 
 	 * @param is
 	 *            input stream of the specified audio file to load
@@ -33,6 +38,40 @@ public interface Audio {
 	 */
 	public Sound createSound(InputStream is) throws IOException;
 	
+	/**
+	 * Creates a new sound clip from the audio file at the specified location.
+	 * <p>
+	 * The decoded audio data is cached per location and output sample rate,
+	 * hence creating a sound from the same location again neither reads nor
+	 * decodes the audio file. Like {@link #createSound(InputStream)}, this
+	 * method may be called by several threads concurrently.
+	 * </p>
+	 * 
+	 * @param url
+	 *            the location of the audio file
+	 * @return the newly created sound instance
+	 * @throws IOException
+	 *             in case the audio file could not be loaded
+	 */
+	public Sound createSound(URL url) throws IOException;
+	
+	/**
+	 * Creates a new sound which is streamed from the specified audio file.
+	 * <p>
+	 * Streamed sounds are decoded in small chunks while being played, hence the
+	 * memory required does not depend on the length of the audio file. This is
+	 * meant for long audio tracks like music. Each playback of a streamed sound
+	 * reads the audio file separately.
+	 * </p>
+	 * 
+	 * @param url
+	 *            the location of the audio file
+	 * @return the newly created sound instance
+	 * @throws IOException
+	 *             in case the audio file could not be opened or is not supported
+	 */
+	public Sound createStreamingSound(URL url) throws IOException;
+	
 	/**
 	 * Sets the master volume.
 	 * 
@@ -131,9 +170,39 @@ public interface Audio {
 	 */
 	public void setPanning(int h, double p) throws IllegalArgumentException;
 	
+	/**
+	 * Moves the playback position of the specified streamed sound. If the
+	 * specified handle is invalid or does not refer to a streamed sound, this
+	 * method has no effect.
+	 * 
+	 * @param h
+	 *            the handle of the sound
+	 * @param t
+	 *            the new position in seconds
+	 * @see #createStreamingSound(URL)
+	 */
+	public void seek(int h, double t);
+	
 	/**
 	 * Stops all currently played sounds.
 	 */
 	public void stopAll();
 	
+	/**
+	 * Returns the current output latency, i.e., the time until a newly started
+	 * sound becomes audible.
+	 * 
+	 * @return the latency in seconds
+	 */
+	public double getLatency();
+	
+	/**
+	 * Returns the number of times the audio output ran out of data. Underruns
+	 * are heard as crackles or short gaps and indicate that the audio buffer is
+	 * too small for the system.
+	 * 
+	 * @return the number of underruns
+	 */
+	public long getNumUnderruns();
+	
 }
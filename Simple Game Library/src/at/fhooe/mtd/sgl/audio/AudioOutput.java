@@ -0,0 +1,75 @@
+/*******************************************************************************
+ * Copyright (c) 2016 - 2018 Roman Divotkey,
+ * Univ. of Applied Sciences Upper Austria. 
+ * All rights reserved.
+ *   
+ * This file is subject to the terms and conditions defined in file
+ * 'LICENSE', which is part of this source code package.
+ *    
+ * THIS CODE IS PROVIDED AS EDUCATIONAL MATERIAL AND NOT INTENDED TO ADDRESS
+ * ALL REAL WORLD PROBLEMS AND ISSUES IN DETAIL.
+ *******************************************************************************/
+package at.fhooe.mtd.sgl.audio;
+
+import javax.sound.sampled.AudioFormat;
+
+/**
+ * The destination of the audio stream produced by {@link MixProcessor2f}.
+ * <p>
+ * Usually, audio data is written to a {@link javax.sound.sampled.SourceDataLine}
+ * of the audio device, which consumes the data in real time. Other
+ * implementations accept audio data as fast as it can be mixed, which allows
+ * to run the mixer on machines without audio device and faster than real time,
+ * e.g., for tests and benchmarks.
+ * </p>
+ * 
+ * @see NullOutput
+ * @see WavFileOutput
+ */
+public interface AudioOutput {
+
+	/**
+	 * Returns the format of the audio data accepted by this output.
+	 * 
+	 * @return the audio format
+	 */
+	public AudioFormat getFormat();
+
+	/**
+	 * Returns the size of the buffer of this output. Audio data is written in
+	 * blocks of at most this size.
+	 * 
+	 * @return the buffer size in bytes
+	 */
+	public int getBufferSize();
+
+	/**
+	 * Returns the number of bytes which can be written without blocking.
+	 * 
+	 * @return the number of available bytes
+	 */
+	public int available();
+
+	/**
+	 * Writes audio data to this output. This method blocks until all data has
+	 * been accepted.
+	 * 
+	 * @param b
+	 *            the array containing the audio data
+	 * @param off
+	 *            the offset of the first byte to write
+	 * @param len
+	 *            the number of bytes to write, a multiple of the frame size
+	 * @return the number of bytes written
+	 */
+	public int write(byte[] b, int off, int len);
+
+	/**
+	 * Returns whether this output consumes audio data in real time. The
+	 * latency and underruns are measured for real time outputs only.
+	 * 
+	 * @return {@code true} if this output plays audio data in real time
+	 */
+	public boolean isRealTime();
+
+}
@@ -0,0 +1,108 @@
+/*******************************************************************************
+ * Copyright (c) 2016 - 2018 Roman Divotkey,
+ * Univ. of Applied Sciences Upper Austria. 
+ * All rights reserved.
+ *   
+ * This file is subject to the terms and conditions defined in file
+ * 'LICENSE', which is part of this source code package.
+ *    
+ * THIS CODE IS PROVIDED AS EDUCATIONAL MATERIAL AND NOT INTENDED TO ADDRESS
+ * ALL REAL WORLD PROBLEMS AND ISSUES IN DETAIL.
+ *******************************************************************************/
+package at.fhooe.mtd.sgl.audio;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives the decoders of streamed sounds on a background thread.
+ * <p>
+ * A single thread keeps the ring buffers of all playing streams filled. If
+ * none of the decoders has work to do, the thread sleeps for a short time.
+ * Decoders are released by their consumers and closed by this thread.
+ * </p>
+ */
+final class AudioStreamer implements Runnable {
+
+	/** The time in nanoseconds to sleep if no decoder had work to do. */
+	private static final long IDLE_TIME = 2_000_000L;
+
+	/** Decoders added but not yet processed by the streaming thread. */
+	private final ConcurrentLinkedQueue<StreamDecoder> pending = new ConcurrentLinkedQueue<>();
+
+	/** The decoders processed, owned by the streaming thread. */
+	private final List<StreamDecoder> decoders = new ArrayList<>();
+
+	/** Whether the streaming thread should keep running. */
+	private volatile boolean running;
+
+	/** The streaming thread. */
+	private Thread thread;
+
+	/**
+	 * Starts the streaming thread.
+	 */
+	public void start() {
+		running = true;
+		thread = new Thread(this, "SGL Audio Streamer");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Stops the streaming thread. The thread terminates asynchronously and
+	 * closes all remaining decoders.
+	 */
+	public void stop() {
+		running = false;
+		LockSupport.unpark(thread);
+	}
+
+	/**
+	 * Adds a decoder to be processed by the streaming thread.
+	 * 
+	 * @param d
+	 *            the decoder to add
+	 */
+	public void add(StreamDecoder d) {
+		pending.add(d);
+		LockSupport.unpark(thread);
+	}
+
+	@Override
+	public void run() {
+		while (running) {
+			StreamDecoder d;
+			while ((d = pending.poll()) != null) {
+				decoders.add(d);
+			}
+
+			boolean busy = false;
+			for (int i = decoders.size() - 1; i >= 0; --i) {
+				d = decoders.get(i);
+				if (d.closed) {
+					d.close();
+					decoders.remove(i);
+				} else {
+					busy |= d.fill();
+				}
+			}
+
+			if (!busy) {
+				LockSupport.parkNanos(this, IDLE_TIME);
+			}
+		}
+
+		StreamDecoder d;
+		while ((d = pending.poll()) != null) {
+			decoders.add(d);
+		}
+		for (StreamDecoder dec : decoders) {
+			dec.close();
+		}
+		decoders.clear();
+	}
+
+}
@@ -76,6 +76,26 @@ public class FloatAudio {
 		this(rate, (int) (rate * checkDuration(duration)));
 	}
 		
+	/**
+	 * Creates a new instance using the specified array of samples. The array is
+	 * not copied.
+	 * 
+	 * @param rate
+	 *            the sample rate in samples per second
+	 * @param data
+	 *            the sample data
+	 * @throws IllegalArgumentException
+	 *             in case the rate is invalid
+	 */
+	FloatAudio(float rate, float[] data) throws IllegalArgumentException {
+		if (rate <= 0) {
+			throw new IllegalArgumentException("illegal sample rate " + rate);
+		}
+		
+		this.sampleRate = rate;
+		this.data = data;
+	}
+	
 	/**
 	 * Creates a new instance. If the sample rates do not match, a sample rate
 	 * conversion is carried out.
@@ -233,7 +253,7 @@ public class FloatAudio {
 	 */
 	public boolean isValid() {
 		for (float s : data) {
-			if (s < 1.0 || s > 1.0)
+			if (s < -1.0 || s > 1.0)
 				return false;
 		}
 		
@@ -287,16 +307,7 @@ public class FloatAudio {
 	 * @return the peek index
 	 */
 	public int findPeak() {
-		int result = 0;
-		double largestValue = Float.NEGATIVE_INFINITY;
-		for (int i = 0; i < data.length; ++i) {
-			double curValue = Math.abs(data[i]);
-			if (curValue > largestValue) {
-				largestValue = curValue;
-				result = i;
-			}
-		}
-		return result;
+		return SampleConverter.findPeak(data, data.length);
 	}
 	
 	/**
@@ -306,9 +317,7 @@ public class FloatAudio {
 	 *            the scalar
 	 */
 	public void scale(float s) {
-		for (int i = 0; i < data.length; ++i) {
-			data[i] *= s;
-		}
+		SampleConverter.scale(data, data.length, s);
 	}
 	
 	/**
@@ -323,7 +332,11 @@ public class FloatAudio {
 			throw new IllegalArgumentException("normalize scaling out of range " + s);
 		}
 		
-		float peak = data[findPeak()];
+		if (data.length == 0) {
+			return;
+		}
+		
+		float peak = Math.abs(data[findPeak()]);
 		if (peak != 0 && peak != 1.0) {
 			scale(s/peak);
 		}
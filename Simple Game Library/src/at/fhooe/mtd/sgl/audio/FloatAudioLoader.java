@@ -22,20 +22,31 @@ import javax.sound.sampled.UnsupportedAudioFileException;
 /**
  * Loads audio files from input streams and converts them into
  * {@link FloatAudio} objects.
+ * <p>
+ * Audio data is read in blocks of several thousand frames. Each block is
+ * decoded by a state specific to the sample format of the audio file, which
+ * converts the samples of one channel after the other in a tight loop.
+ * </p>
  */
 public class FloatAudioLoader {
 		
 	/** Initial size of input float buffers. */
 	private static final int INITIAL_CHANNEL_BUFFER_SIZE = 0xffff;
+	
+	/** The number of frames read and decoded at once. */
+	private static final int BLOCK_SIZE = 4096;
 		
 	/** The separated channels of the audio data. */
 	private float channels[][];
 	
-	/** The current position within the audio data channel array. */
-	private int positions[];
+	/** The number of frames within the audio data channel arrays. */
+	private int position;
 			
-	/** Stores one frame of audio data. */
-	private byte frameBuffer[];
+	/** Stores one block of audio data. */
+	private byte blockBuffer[];
+	
+	/** The size of one frame in bytes. */
+	private int frameSize;
 	
 	/** The current state according to audio format to process. */
 	private State curState;
@@ -65,18 +76,23 @@ public class FloatAudioLoader {
 			//Uncomment for debug print
 			//System.out.println(ais.getFormat());
 			
-			initialize(ais.getFormat());
+			initialize(ais.getFormat(), ais.getFrameLength());
 			
+			int fill = 0;
 			int n;
-			while ((n = ais.read(frameBuffer, 0, frameBuffer.length)) == frameBuffer.length) {
-				for (int i = 0; i < channels.length; ++i) {
-					curState.readChannel(i);
+			while ((n = ais.read(blockBuffer, fill, blockBuffer.length - fill)) >= 0) {
+				fill += n;
+				if (fill < blockBuffer.length) {
+					continue;
 				}
+				decodeBlock(BLOCK_SIZE);
+				fill = 0;
 			}
 			
-			if (n >= 0) {
+			if (fill % frameSize != 0) {
 				throw new IOException("unexpected end of file");
 			}
+			decodeBlock(fill / frameSize);
 		}
 	}
 	
@@ -100,39 +116,50 @@ public class FloatAudioLoader {
 	 * @see #numChannels()
 	 */
 	public FloatAudio getChannel(int ch) throws IndexOutOfBoundsException {
-		FloatAudio result = new FloatAudio(sampleRate, positions[ch]);
-		System.arraycopy(channels[ch], 0, result.getSamples(), 0, positions[ch]);
+		FloatAudio result = new FloatAudio(sampleRate, position);
+		System.arraycopy(channels[ch], 0, result.getSamples(), 0, position);
 		return result;
 	}
 		
-	private void initialize(AudioFormat format) throws UnsupportedAudioFileException {
+	private void initialize(AudioFormat format, long frameLength) throws UnsupportedAudioFileException {
 		if (format.getEncoding() == AudioFormat.Encoding.PCM_SIGNED) {
-			selectSignedState(format);
+			selectIntegerState(format, false);
 		} else if (format.getEncoding() == AudioFormat.Encoding.PCM_UNSIGNED) {
-			selectUnsignedState(format);
+			selectIntegerState(format, true);
 		} else if (format.getEncoding() == AudioFormat.Encoding.PCM_FLOAT) {
-			throw new RuntimeException("not implemented");
+			selectFloatState(format);
 		} else {
 			throw new UnsupportedAudioFileException("encoding not supported " + format.getEncoding());
 		}
 		
-		initChannels(format.getChannels());
-		if (frameBuffer == null || frameBuffer.length != format.getFrameSize()) {
-			frameBuffer = new byte[format.getFrameSize()];
+		if (format.getFrameSize() < format.getChannels() * (format.getSampleSizeInBits() / 8)) {
+			throw new UnsupportedAudioFileException("invalid frame size " + format.getFrameSize());
+		}
+		
+		// presize channels if the length of the audio data is known in advance
+		if (frameLength != AudioSystem.NOT_SPECIFIED && frameLength >= 0 && frameLength <= Integer.MAX_VALUE) {
+			initChannels(format.getChannels(), (int) frameLength);
+		} else {
+			initChannels(format.getChannels(), INITIAL_CHANNEL_BUFFER_SIZE);
+		}
+		
+		frameSize = format.getFrameSize();
+		if (blockBuffer == null || blockBuffer.length != frameSize * BLOCK_SIZE) {
+			blockBuffer = new byte[frameSize * BLOCK_SIZE];
 		}
 		sampleRate = format.getSampleRate();
 	}
 
-	private void selectSignedState(AudioFormat format) throws UnsupportedAudioFileException {
+	private void selectIntegerState(AudioFormat format, boolean unsigned) throws UnsupportedAudioFileException {
 		switch (format.getSampleSizeInBits()) {
 		case 8:
-			curState = new Pcm8SignedState();
+			curState = unsigned ? new Pcm8UnsignedState() : new Pcm8SignedState();
 			break;
 		case 16:
-			curState = format.isBigEndian() ? new Pcm16SignedBeState() : new Pcm16SignedLeState();
+			curState = format.isBigEndian() ? new Pcm16BeState(unsigned) : new Pcm16LeState(unsigned);
 			break;
 		case 24:
-			curState = format.isBigEndian() ? new Pcm24SignedBeState() : new Pcm24SignedLeState();
+			curState = format.isBigEndian() ? new Pcm24BeState(unsigned) : new Pcm24LeState(unsigned);
 			break;
 			
 		default:
@@ -140,10 +167,10 @@ public class FloatAudioLoader {
 		}
 	}
 	
-	private void selectUnsignedState(AudioFormat format) throws UnsupportedAudioFileException {
+	private void selectFloatState(AudioFormat format) throws UnsupportedAudioFileException {
 		switch (format.getSampleSizeInBits()) {
-		case 8:
-			curState = new Pcm8UnsignedState();
+		case 32:
+			curState = format.isBigEndian() ? new Float32BeState() : new Float32LeState();
 			break;
 			
 		default:
@@ -151,22 +178,29 @@ public class FloatAudioLoader {
 		}
 	}
 	
-	private void initChannels(int numChannels) {
+	private void initChannels(int numChannels, int capacity) {
 		channels = new float[numChannels][];
-		positions = new int[numChannels];
 		for (int i = 0; i< channels.length; ++i) {
-			channels[i] = new float[INITIAL_CHANNEL_BUFFER_SIZE];
-			positions[i] = 0;
+			channels[i] = new float[capacity];
 		}
+		position = 0;
 	}
 	
-	private void putSample(int ch, float sample) throws IndexOutOfBoundsException {
-		while (positions[ch] >= channels[ch].length) {
-			float tmp[] = new float[channels[ch].length * 2];
-			System.arraycopy(channels[ch], 0, tmp, 0, channels[ch].length);
-			channels[ch] = tmp;
+	private void decodeBlock(int numFrames) {
+		if (numFrames <= 0) {
+			return;
 		}
-		channels[ch][positions[ch]++] = sample;
+		
+		int required = position + numFrames;
+		for (int ch = 0; ch < channels.length; ++ch) {
+			if (required > channels[ch].length) {
+				float tmp[] = new float[Math.max(required, channels[ch].length * 2)];
+				System.arraycopy(channels[ch], 0, tmp, 0, position);
+				channels[ch] = tmp;
+			}
+			curState.decode(ch, channels[ch], position, numFrames);
+		}
+		position = required;
 	}
 					
 	/////////////////////////////////////////////////
@@ -175,99 +209,191 @@ public class FloatAudioLoader {
 	
 	private interface State {
 		
-		public void readChannel(int ch);
+		/**
+		 * Decodes the samples of one channel from the block buffer.
+		 * 
+		 * @param ch
+		 *            the index of the channel to decode
+		 * @param dst
+		 *            the array receiving the decoded samples
+		 * @param off
+		 *            the index within the destination array of the first frame
+		 * @param numFrames
+		 *            the number of frames to decode
+		 */
+		public void decode(int ch, float[] dst, int off, int numFrames);
 		
 	}
 	
 	private class Pcm8UnsignedState implements State {
 		
 		@Override
-		public void readChannel(int ch) {
-			putSample(ch, unsignedByteToSignedFloat(0xff & frameBuffer[0]));
-		}
-		
-		private float unsignedByteToSignedFloat(int b) {
-			return -1.0f + b * (2.0f/255);
+		public void decode(int ch, float[] dst, int off, int numFrames) {
+			final byte[] src = blockBuffer;
+			final int stride = frameSize;
+			for (int i = 0, idx = ch; i < numFrames; ++i, idx += stride) {
+				dst[off + i] = -1.0f + (0xff & src[idx]) * (2.0f / 255);
+			}
 		}
 		
 	}
 	
 	private class Pcm8SignedState implements State {
 		
-		/** Used to convert short values to floats. */
+		/** Used to convert byte values to floats. */
 		private static final float BYTE_TO_FLOAT = 1.0f / Byte.MAX_VALUE;
 		
 		@Override
-		public void readChannel(int ch) {
-			putSample(ch, frameBuffer[0] * BYTE_TO_FLOAT);
+		public void decode(int ch, float[] dst, int off, int numFrames) {
+			final byte[] src = blockBuffer;
+			final int stride = frameSize;
+			for (int i = 0, idx = ch; i < numFrames; ++i, idx += stride) {
+				dst[off + i] = src[idx] * BYTE_TO_FLOAT;
+			}
 		}
 				
 	}
 	
-	private abstract class Pcm16SignedState implements State {
-		
+	/**
+	 * Reads 16-bit samples, little endian, signed or unsigned.
+	 */
+	private class Pcm16LeState implements State {
+
 		/** Used to convert short values to floats. */
 		private static final float SHORT_TO_FLOAT = 1.0f / Short.MAX_VALUE;
 		
+		/** Flips the sign bit of unsigned samples. */
+		private final int signMask;
+		
+		public Pcm16LeState(boolean unsigned) {
+			signMask = unsigned ? 0x8000 : 0;
+		}
+		
 		@Override
-		public void readChannel(int ch) {
-			putSample(ch, toShort(frameBuffer[ch << 1], frameBuffer[1 + (ch << 1)]) * SHORT_TO_FLOAT);
+		public void decode(int ch, float[] dst, int off, int numFrames) {
+			final byte[] src = blockBuffer;
+			final int stride = frameSize;
+			final int mask = signMask;
+			for (int i = 0, idx = ch << 1; i < numFrames; ++i, idx += stride) {
+				dst[off + i] = (short) ((src[idx + 1] << 8 | src[idx] & 0xff) ^ mask) * SHORT_TO_FLOAT;
+			}
 		}
 		
-		protected abstract short toShort(byte b1, byte b2);
 	}
 	
 	/**
-	 * Reads 16-bit samples, little endian, signed.
+	 * Reads 16-bit samples, big endian, signed or unsigned.
 	 */
-	private class Pcm16SignedLeState extends Pcm16SignedState {
+	private class Pcm16BeState implements State {
 
-		protected short toShort(byte b1, byte b2) {
-			return (short) (b2 << 8 | b1 & 0xff);
+		/** Used to convert short values to floats. */
+		private static final float SHORT_TO_FLOAT = 1.0f / Short.MAX_VALUE;
+		
+		/** Flips the sign bit of unsigned samples. */
+		private final int signMask;
+		
+		public Pcm16BeState(boolean unsigned) {
+			signMask = unsigned ? 0x8000 : 0;
+		}
+		
+		@Override
+		public void decode(int ch, float[] dst, int off, int numFrames) {
+			final byte[] src = blockBuffer;
+			final int stride = frameSize;
+			final int mask = signMask;
+			for (int i = 0, idx = ch << 1; i < numFrames; ++i, idx += stride) {
+				dst[off + i] = (short) ((src[idx] << 8 | src[idx + 1] & 0xff) ^ mask) * SHORT_TO_FLOAT;
+			}
 		}
 		
 	}
 	
 	/**
-	 * Reads 16-bit samples, big endian, signed.
+	 * Reads 24-bit samples, little endian, signed or unsigned.
 	 */
-	private class Pcm16SignedBeState extends Pcm16SignedState {
-
-		protected short toShort(byte b1, byte b2) {
-			return (short) (b1 << 8 | b2 & 0xff);
+	private class Pcm24LeState implements State {
+		
+		/** Used to convert 24-bit values to floats. */
+		private static final float TO_FLOAT = 1.0f / 8388607;
+		
+		/** Flips the sign bit of unsigned samples. */
+		private final int signMask;
+		
+		public Pcm24LeState(boolean unsigned) {
+			signMask = unsigned ? 0x800000 : 0;
+		}
+		
+		@Override
+		public void decode(int ch, float[] dst, int off, int numFrames) {
+			final byte[] src = blockBuffer;
+			final int stride = frameSize;
+			final int mask = signMask;
+			for (int i = 0, idx = ch * 3; i < numFrames; ++i, idx += stride) {
+				int v = ((src[idx + 2] & 0xff) << 16 | (src[idx + 1] & 0xff) << 8 | src[idx] & 0xff) ^ mask;
+				dst[off + i] = (v << 8 >> 8) * TO_FLOAT;
+			}
 		}
 		
 	}
 	
-	private abstract class Pcm24SignedState implements State {
+	/**
+	 * Reads 24-bit samples, big endian, signed or unsigned.
+	 */
+	private class Pcm24BeState implements State {
 		
-		/** Used to convert short values to floats. */
+		/** Used to convert 24-bit values to floats. */
 		private static final float TO_FLOAT = 1.0f / 8388607;
 		
+		/** Flips the sign bit of unsigned samples. */
+		private final int signMask;
+		
+		public Pcm24BeState(boolean unsigned) {
+			signMask = unsigned ? 0x800000 : 0;
+		}
+		
 		@Override
-		public void readChannel(int ch) {
-			int idx = ch * 3;
-			putSample(ch, toInt(frameBuffer[idx], frameBuffer[idx + 1], frameBuffer[idx + 2]) * TO_FLOAT);
+		public void decode(int ch, float[] dst, int off, int numFrames) {
+			final byte[] src = blockBuffer;
+			final int stride = frameSize;
+			final int mask = signMask;
+			for (int i = 0, idx = ch * 3; i < numFrames; ++i, idx += stride) {
+				int v = ((src[idx] & 0xff) << 16 | (src[idx + 1] & 0xff) << 8 | src[idx + 2] & 0xff) ^ mask;
+				dst[off + i] = (v << 8 >> 8) * TO_FLOAT;
+			}
 		}
 		
-		protected abstract int toInt(byte b1, byte b2, byte b3);
 	}
 	
-	private class Pcm24SignedLeState extends Pcm24SignedState {
-
+	/**
+	 * Reads 32-bit floating point samples, little endian.
+	 */
+	private class Float32LeState implements State {
+		
 		@Override
-		protected int toInt(byte b1, byte b2, byte b3) {
-			
-			return (b3 << 16) | (0xff00 & (b2 << 8)) | (b1 & 0xff);
+		public void decode(int ch, float[] dst, int off, int numFrames) {
+			final byte[] src = blockBuffer;
+			final int stride = frameSize;
+			for (int i = 0, idx = ch << 2; i < numFrames; ++i, idx += stride) {
+				dst[off + i] = Float.intBitsToFloat(src[idx + 3] << 24 | (src[idx + 2] & 0xff) << 16
+						| (src[idx + 1] & 0xff) << 8 | src[idx] & 0xff);
+			}
 		}
 		
 	}
 	
-	private class Pcm24SignedBeState extends Pcm24SignedState {
-
+	/**
+	 * Reads 32-bit floating point samples, big endian.
+	 */
+	private class Float32BeState implements State {
+		
 		@Override
-		protected int toInt(byte b1, byte b2, byte b3) {
-			return (b1 << 16) | (0xff00 & (b2 << 8)) | (b3 & 0xff);
+		public void decode(int ch, float[] dst, int off, int numFrames) {
+			final byte[] src = blockBuffer;
+			final int stride = frameSize;
+			for (int i = 0, idx = ch << 2; i < numFrames; ++i, idx += stride) {
+				dst[off + i] = Float.intBitsToFloat(src[idx] << 24 | (src[idx + 1] & 0xff) << 16
+						| (src[idx + 2] & 0xff) << 8 | src[idx + 3] & 0xff);
+			}
 		}
 		
 	}
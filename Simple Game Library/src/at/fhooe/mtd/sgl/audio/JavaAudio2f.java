@@ -11,10 +11,15 @@
  *******************************************************************************/
 package at.fhooe.mtd.sgl.audio;
 
+import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.URL;
+import java.nio.file.Path;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
 import javax.sound.sampled.AudioSystem;
 import javax.sound.sampled.DataLine;
 import javax.sound.sampled.LineUnavailableException;
@@ -31,29 +36,51 @@ public class JavaAudio2f implements Audio {
 	/** The default buffer size for audio processing. */
 	public static final int DEFAULT_BUFFER_SIZE = 1024;
 	
+	/** The default output sample rate in Hz. */
+	public static final float DEFAULT_SAMPLE_RATE = 44100.0f;
+	
+	/** The number of pooled mix objects per voice and channel layout. */
+	private static final int VOICE_POOL_FACTOR = 2;
+	
 	/** Audio format used for output. */
-	private AudioFormat format = new AudioFormat(44100.0f,	// sample rate
-												 16, 		// sample size (bits)
-												 2, 		// channels
-												 true, 		// signed
-												 false);	// big endian
+	private AudioFormat format;
 
 	/** The sound format used to load and store audio clips. */
-	private AudioFormat formatMono = new AudioFormat(format.getEncoding(), 
-													 format.getSampleRate(),
-													 format.getSampleSizeInBits(), 
-													 1, 
-													 format.getFrameSize() >> 1, 
-													 format.getFrameRate(), 
-													 format.isBigEndian());
+	private AudioFormat formatMono;
 	
-
-	/** Used to load and audio data int float audio objects. */
-	private FloatAudioLoader fal = new FloatAudioLoader();
+	/** The requested output sample rate. */
+	private float sampleRate = DEFAULT_SAMPLE_RATE;
 	
+	/** The requested output sample format. */
+	private SampleFormat sampleFormat = SampleFormat.PCM16;
+
 	/** Used to mix the sounds clips. */
 	private MixProcessor2f mixProc;
 	
+	/** Whether to use the low latency mode of the mixer. */
+	private boolean lowLatency;
+	
+	/** The maximum number of simultaneously playing sounds. */
+	private int maxVoices = MixProcessor2f.DEFAULT_MAX_VOICES;
+	
+	/** Defines which sound to stop if too many sounds are playing. */
+	private VoiceStealing voiceStealing = VoiceStealing.OLDEST;
+	
+	/** The pool of mix objects for one-channel sounds. */
+	private VoicePool<MonoMix2f> monoPool;
+	
+	/** The pool of mix objects for two-channel sounds. */
+	private VoicePool<StereoMix2f> stereoPool;
+	
+	/** Decodes streamed sounds in the background. */
+	private AudioStreamer streamer;
+	
+	/** The method used to convert audio data to the output sample rate. */
+	private Resampler.Quality resampleQuality = Resampler.Quality.SINC;
+	
+	/** Decoded and converted audio data, keyed by location and sample rate. */
+	private final ConcurrentHashMap<String, PcmCache> soundCache = new ConcurrentHashMap<>();
+	
 	/** The last id used as sound handle. */
 	private int lastId = Audio.INVALID_HANDLE;
 	
@@ -62,7 +89,7 @@ public class JavaAudio2f implements Audio {
 	 * Creates a new instance.
 	 */
 	public JavaAudio2f() {
-		// intentionally left empty
+		updateFormat(sampleRate, sampleFormat);
 	}
 	
 	/**
@@ -74,6 +101,250 @@ public class JavaAudio2f implements Audio {
 		return mixProc != null;
 	}
 	
+	/**
+	 * Sets the maximum number of simultaneously playing sounds. This method must
+	 * be called before this audio system is initialized.
+	 * 
+	 * @param n
+	 *            the maximum number of sounds
+	 * @throws IllegalArgumentException
+	 *             if the specified number is less than one
+	 * @throws IllegalStateException
+	 *             in case the audio system has already been initialized
+	 */
+	public void setMaxVoices(int n) throws IllegalArgumentException, IllegalStateException {
+		if (n < 1) {
+			throw new IllegalArgumentException("maximum number of voices must be at least one, got " + n);
+		}
+		if (mixProc != null) {
+			throw new IllegalStateException("already opened");
+		}
+		maxVoices = n;
+	}
+	
+	/**
+	 * Sets the sample rate of the output line. Choosing the native sample rate
+	 * of the audio device avoids resampling by the operating system. Sounds
+	 * are converted to this sample rate when they are loaded, hence this method
+	 * should be called before sounds are created. This method must be called
+	 * before this audio system is initialized.
+	 * 
+	 * @param rate
+	 *            the sample rate in Hz, e.g., 44100 or 48000
+	 * @throws IllegalArgumentException
+	 *             if the specified sample rate is not positive
+	 * @throws IllegalStateException
+	 *             in case the audio system has already been initialized
+	 */
+	public void setSampleRate(float rate) throws IllegalArgumentException, IllegalStateException {
+		if (rate <= 0) {
+			throw new IllegalArgumentException("illegal sample rate " + rate);
+		}
+		if (mixProc != null) {
+			throw new IllegalStateException("already opened");
+		}
+		sampleRate = rate;
+		updateFormat(sampleRate, sampleFormat);
+	}
+	
+	/**
+	 * Returns the sample rate of the output line. If the requested sample rate
+	 * is not supported by the audio device, the actual sample rate is known
+	 * after this audio system has been initialized.
+	 * 
+	 * @return the sample rate in Hz
+	 */
+	public float getSampleRate() {
+		return format.getSampleRate();
+	}
+	
+	/**
+	 * Sets the sample format of the output line. If the audio device does not
+	 * support the specified format, 16 bit samples are used instead. This
+	 * method must be called before this audio system is initialized.
+	 * 
+	 * @param sf
+	 *            the sample format
+	 * @throws IllegalStateException
+	 *             in case the audio system has already been initialized
+	 */
+	public void setSampleFormat(SampleFormat sf) throws IllegalStateException {
+		assert sf != null;
+		if (mixProc != null) {
+			throw new IllegalStateException("already opened");
+		}
+		sampleFormat = sf;
+		updateFormat(sampleRate, sampleFormat);
+	}
+	
+	/**
+	 * Returns the sample format of the output line.
+	 * 
+	 * @return the sample format
+	 */
+	public SampleFormat getSampleFormat() {
+		return SampleFormat.of(format);
+	}
+	
+	/**
+	 * Returns the maximum number of simultaneously playing sounds.
+	 * 
+	 * @return the maximum number of sounds
+	 */
+	public int getMaxVoices() {
+		return maxVoices;
+	}
+	
+	/**
+	 * Sets the policy used to choose a sound to stop if the maximum number of
+	 * sounds is playing.
+	 * 
+	 * @param policy
+	 *            the voice stealing policy
+	 */
+	public void setVoiceStealing(VoiceStealing policy) {
+		assert policy != null;
+		voiceStealing = policy;
+		if (mixProc != null) {
+			mixProc.setVoiceStealing(policy);
+		}
+	}
+	
+	/**
+	 * Returns the policy used to choose a sound to stop if the maximum number of
+	 * sounds is playing.
+	 * 
+	 * @return the voice stealing policy
+	 */
+	public VoiceStealing getVoiceStealing() {
+		return voiceStealing;
+	}
+	
+	/**
+	 * Sets the method used to convert audio data which does not match the
+	 * output sample rate. Windowed sinc interpolation is used by default.
+	 * 
+	 * @param quality
+	 *            the sample rate conversion method
+	 */
+	public void setResampleQuality(Resampler.Quality quality) {
+		assert quality != null;
+		resampleQuality = quality;
+	}
+	
+	/**
+	 * Returns the method used to convert audio data which does not match the
+	 * output sample rate.
+	 * 
+	 * @return the sample rate conversion method
+	 */
+	public Resampler.Quality getResampleQuality() {
+		return resampleQuality;
+	}
+	
+	/**
+	 * Discards the audio data cached by {@link #createSound(URL)}. Sounds
+	 * already created are not affected.
+	 */
+	public void clearSoundCache() {
+		soundCache.clear();
+	}
+	
+	/**
+	 * Enables or disables the low latency mode. In low latency mode, audio data
+	 * is written in small periods which adapt to the timing accuracy of the
+	 * system, see {@link MixProcessor2f#setLowLatency(boolean)}. The specified
+	 * buffer size is used as upper bound. This method must be called before
+	 * this audio system is initialized.
+	 * 
+	 * @param b
+	 *            {@code true} to enable the low latency mode
+	 * @throws IllegalStateException
+	 *             in case the audio system has already been initialized
+	 */
+	public void setLowLatency(boolean b) throws IllegalStateException {
+		if (mixProc != null) {
+			throw new IllegalStateException("already opened");
+		}
+		lowLatency = b;
+	}
+	
+	/**
+	 * Returns whether the low latency mode is enabled.
+	 * 
+	 * @return {@code true} if the low latency mode is enabled
+	 */
+	public boolean isLowLatency() {
+		return lowLatency;
+	}
+	
+	/**
+	 * Returns the number of frames currently mixed and written at once.
+	 * 
+	 * @return the period size in frames
+	 */
+	public int getPeriodSize() {
+		return mixProc != null ? mixProc.getPeriodSize() : 0;
+	}
+	
+	/**
+	 * Returns the largest number of sounds played at the same time.
+	 * 
+	 * @return the high-water mark of playing sounds
+	 */
+	public int getVoiceHighWaterMark() {
+		return mixProc != null ? mixProc.getVoiceHighWaterMark() : 0;
+	}
+	
+	/**
+	 * Returns the number of sounds stopped because the maximum number of sounds
+	 * has been reached.
+	 * 
+	 * @return the number of stolen voices
+	 */
+	public long getNumStolenVoices() {
+		return mixProc != null ? mixProc.getNumStolenVoices() : 0;
+	}
+	
+	/**
+	 * Returns the largest number of pooled mix objects for one-channel sounds
+	 * in use at the same time. Mix objects are in use while playing and while
+	 * waiting to be processed by the mixing thread.
+	 * 
+	 * @return the high-water mark of the one-channel voice pool
+	 */
+	public int getMonoPoolHighWaterMark() {
+		return monoPool != null ? monoPool.getHighWaterMark() : 0;
+	}
+	
+	/**
+	 * Returns the largest number of pooled mix objects for two-channel sounds
+	 * in use at the same time. Mix objects are in use while playing and while
+	 * waiting to be processed by the mixing thread.
+	 * 
+	 * @return the high-water mark of the two-channel voice pool
+	 */
+	public int getStereoPoolHighWaterMark() {
+		return stereoPool != null ? stereoPool.getHighWaterMark() : 0;
+	}
+	
+	/**
+	 * Returns the number of sounds that could not be played because all pooled
+	 * mix objects were in use.
+	 * 
+	 * @return the number of rejected sounds
+	 */
+	public long getNumRejectedVoices() {
+		long n = 0;
+		if (monoPool != null) {
+			n += monoPool.getNumRejected();
+		}
+		if (stereoPool != null) {
+			n += stereoPool.getNumRejected();
+		}
+		return n;
+	}
+	
 	/**
 	 * Initializes the this audio system using the default buffer size.
 	 * 
@@ -95,23 +366,78 @@ public class JavaAudio2f implements Audio {
 	 *             in case the audio system has already been initialized
 	 */
 	public void open(int bufferSize) throws IllegalStateException {
+		open(bufferSize, 1);
+	}
+	
+	/**
+	 * Initializes the this audio system using the specified buffer size and
+	 * number of mixing threads. The specified buffer size represents the number
+	 * of audio frames not the number of bytes. Using more than one mixing thread
+	 * pays off only for large numbers of simultaneously playing sounds.
+	 * 
+	 * @param bufferSize
+	 *            the buffer size
+	 * @param mixThreads
+	 *            the number of threads used to mix sounds
+	 * @throws IllegalStateException
+	 *             in case the audio system has already been initialized
+	 */
+	public void open(int bufferSize, int mixThreads) throws IllegalStateException {
 		
 		if (mixProc != null) {
 			throw new IllegalStateException("already opened");
 		}
 		
 		try {
+			selectFormat();
 			DataLine.Info info = new DataLine.Info(SourceDataLine.class, format);
 			SourceDataLine line = (SourceDataLine) AudioSystem.getLine(info);
 			line.open(format, bufferSize * format.getFrameSize());
 			line.start();
+			// leave room for sounds waiting to be processed by the mixer
+			monoPool = MonoMix2f.createPool(maxVoices * VOICE_POOL_FACTOR);
+			stereoPool = StereoMix2f.createPool(maxVoices * VOICE_POOL_FACTOR);
 			mixProc = new MixProcessor2f(line);
+			mixProc.setNumThreads(mixThreads);
+			mixProc.setMaxVoices(maxVoices);
+			mixProc.setVoiceStealing(voiceStealing);
+			mixProc.setLowLatency(lowLatency);
 			mixProc.engage();
+			streamer = new AudioStreamer();
+			streamer.start();
 		} catch (LineUnavailableException e) {
 			throw new RuntimeException("unable to open audio output line", e);
 		}
 	}
 
+	/**
+	 * Chooses the requested output format if supported by the audio device.
+	 * Otherwise, falls back to 16 bit samples at the requested sample rate and
+	 * finally to the default sample rate.
+	 */
+	private void selectFormat() {
+		updateFormat(sampleRate, sampleFormat);
+		if (isSupported(format)) {
+			return;
+		}
+		
+		AudioFormat requested = format;
+		updateFormat(sampleRate, SampleFormat.PCM16);
+		if (!isSupported(format)) {
+			updateFormat(DEFAULT_SAMPLE_RATE, SampleFormat.PCM16);
+		}
+		System.err.println("audio format not supported " + requested + ", using " + format);
+	}
+	
+	private static boolean isSupported(AudioFormat f) {
+		return AudioSystem.isLineSupported(new DataLine.Info(SourceDataLine.class, f));
+	}
+	
+	private void updateFormat(float rate, SampleFormat sf) {
+		format = sf.toAudioFormat(rate, 2);
+		formatMono = sf.toAudioFormat(rate, 1);
+	}
+
 	/**
 	 * Closes this audio system. If this audio system has not been initialized or
 	 * already closed, this method has no effect.
@@ -120,6 +446,8 @@ public class JavaAudio2f implements Audio {
 		if (mixProc != null) {
 			mixProc.terminate();
 			mixProc = null;
+			streamer.stop();
+			streamer = null;
 		}
 	}
 	
@@ -147,7 +475,11 @@ public class JavaAudio2f implements Audio {
 	 * @return the identifier
 	 */
 	private int nextId() {
-		return ++lastId;
+		if (++lastId == Audio.INVALID_HANDLE) {
+			// skip invalid handle on overflow
+			++lastId;
+		}
+		return lastId;
 	}
 						
 	/**
@@ -158,16 +490,7 @@ public class JavaAudio2f implements Audio {
 	 * @return the newly created sound
 	 */
 	public Sound createSound(FloatAudio data) {
-		if (data.getSampleRate() == formatMono.getSampleRate()) {
-			return new MonoSound2f(data.getSamples());
-		}
-		
-		// convert sample rate
-		FloatAudio resampled = new FloatAudio(formatMono.getSampleRate(), data);
-		if (!resampled.isValid()) {
-			resampled.normalize();
-		}
-		return new MonoSound2f(resampled.getSamples());
+		return new MonoSound2f(toMonoData(data));
 	}
 
 	/**
@@ -180,17 +503,144 @@ public class JavaAudio2f implements Audio {
 	 * @return the newly created sound
 	 */
 	public Sound createSound(FloatAudio ch1Data, FloatAudio ch2Data) {
-		if (ch1Data.getSampleRate() != format.getSampleRate()) {
-			ch1Data = new FloatAudio(format.getSampleRate(), ch1Data);
-			if (!ch1Data.isValid())
-				ch1Data.normalize();
+		return new StereoSound2f(toStereoData(ch1Data, ch2Data));
+	}
+	
+	/**
+	 * Creates a new sound clip from the specified cache file. If the sample rate
+	 * of the cached data matches the sample rate of this audio system, the
+	 * sound plays the samples directly from the memory mapped cache file.
+	 * Otherwise the samples are copied and converted to the output sample rate.
+	 * 
+	 * @param cacheFile
+	 *            the path of the cache file
+	 * @return the newly created sound
+	 * @throws IOException
+	 *             in case the cache file could not be read
+	 * @see #writeCache(InputStream, Path, PcmCache.Encoding)
+	 */
+	public Sound createSound(Path cacheFile) throws IOException {
+		PcmCache cache = PcmCache.read(cacheFile);
+		if (cache.getSampleRate() == format.getSampleRate()) {
+			return createSound(cache);
 		}
 		
-		if (ch2Data.getSampleRate() != format.getSampleRate()) {
-			ch2Data = new FloatAudio(format.getSampleRate(), ch2Data);
-			if (!ch2Data.isValid())
-				ch2Data.normalize();
+		float[] samples = cache.getSamples();
+		switch (cache.getNumChannels()) {
+		case 1:
+			return createSound(new FloatAudio(cache.getSampleRate(), samples));
+			
+		case 2:
+			int n = samples.length / 2;
+			FloatAudio ch1 = new FloatAudio(cache.getSampleRate(), n);
+			FloatAudio ch2 = new FloatAudio(cache.getSampleRate(), n);
+			for (int i = 0; i < n; ++i) {
+				ch1.getSamples()[i] = samples[i << 1];
+				ch2.getSamples()[i] = samples[1 + (i << 1)];
+			}
+			return createSound(ch1, ch2);
+			
+		default:
+			throw new IOException("unsupported audio format, invalid number of channels " + cache.getNumChannels());
+		}
+	}
+	
+	/**
+	 * Decodes the specified audio data and writes it to a cache file. The
+	 * cached samples are converted to the sample rate of this audio system,
+	 * hence sounds created from the cache file require neither decoding nor
+	 * sample rate conversion.
+	 * 
+	 * @param is
+	 *            the input stream to read the audio data from
+	 * @param cacheFile
+	 *            the path of the cache file to be written
+	 * @param enc
+	 *            the encoding of the cached samples
+	 * @throws IOException
+	 *             in case the audio data could not be read or the cache file
+	 *             could not be written
+	 * @see #createSound(Path)
+	 */
+	public void writeCache(InputStream is, Path cacheFile, PcmCache.Encoding enc) throws IOException {
+		decode(is).write(cacheFile, enc);
+	}
+	
+	/**
+	 * Decodes the specified audio data and converts it to the sample rate and
+	 * channel layout used by the mixers.
+	 * 
+	 * @param is
+	 *            the input stream to read the audio data from
+	 * @return the converted audio data
+	 * @throws IOException
+	 *             in case the audio data could not be read
+	 */
+	private PcmCache decode(InputStream is) throws IOException {
+		// loaders are not shared, sounds may be created by several threads at once
+		FloatAudioLoader fal = new FloatAudioLoader();
+		try {
+			fal.load(is);
+			switch (fal.numChannels()) {
+			case 1:
+				return new PcmCache(formatMono.getSampleRate(), 1, toMonoData(fal.getChannel(0)));
+			case 2:
+				return new PcmCache(format.getSampleRate(), 2, toStereoData(fal.getChannel(0), fal.getChannel(1)));
+			default:
+				throw new IOException("unsupported audio format, invalid number of channels " + fal.numChannels());
+			}
+		} catch (UnsupportedAudioFileException e) {
+			throw new IOException("unsupported audio format", e);
+		}
+	}
+	
+	/**
+	 * Creates a new sound clip from audio data matching the output sample
+	 * rate.
+	 * 
+	 * @param data
+	 *            the audio data in mixer channel layout
+	 * @return the newly created sound
+	 * @throws IOException
+	 *             in case the number of channels is not supported
+	 */
+	private Sound createSound(PcmCache data) throws IOException {
+		assert data.getSampleRate() == format.getSampleRate();
+		MappedSamples mapped = data.getMappedSamples();
+		switch (data.getNumChannels()) {
+		case 1:
+			return mapped != null ? new MonoSound2f(mapped) : new MonoSound2f(data.getSamples());
+		case 2:
+			return mapped != null ? new StereoSound2f(mapped) : new StereoSound2f(data.getSamples());
+		default:
+			throw new IOException("unsupported audio format, invalid number of channels " + data.getNumChannels());
 		}
+	}
+	
+	/**
+	 * Converts one-channel audio data to the sample rate of this audio system.
+	 * 
+	 * @param data
+	 *            the audio data
+	 * @return the samples to be used by a mono sound
+	 */
+	private float[] toMonoData(FloatAudio data) {
+		return resample(data, formatMono.getSampleRate()).getSamples();
+	}
+	
+	/**
+	 * Converts two-channel audio data to the sample rate of this audio system
+	 * and interleaves the channels.
+	 * 
+	 * @param ch1Data
+	 *            the first channel audio data
+	 * @param ch2Data
+	 *            the second channel audio data
+	 * @return the samples to be used by a stereo sound
+	 */
+	private float[] toStereoData(FloatAudio ch1Data, FloatAudio ch2Data) {
+		ch1Data = resample(ch1Data, format.getSampleRate());
+		ch2Data = resample(ch2Data, format.getSampleRate());
 		
 		// interleave the two channels to one
 		float data[] = new float[2 * Math.max(ch1Data.getNumberOfSamples(), ch2Data.getNumberOfSamples())];
@@ -200,8 +650,32 @@ public class JavaAudio2f implements Audio {
 		for (int i = 0; i < ch2Data.getNumberOfSamples(); ++i) {
 			data[1 + (i << 1)] = ch2Data.getSamples()[i];
 		}
+		return data;
+	}
+	
+	/**
+	 * Converts audio data to the specified sample rate using the configured
+	 * conversion method. If the converted samples exceed the valid range, they
+	 * get normalized.
+	 * 
+	 * @param data
+	 *            the audio data
+	 * @param rate
+	 *            the target sample rate
+	 * @return the converted audio data or the specified audio data if the sample
+	 *         rates already match
+	 */
+	private FloatAudio resample(FloatAudio data, float rate) {
+		if (data.getSampleRate() == rate) {
+			return data;
+		}
 		
-		return new StereoSound2f(data);		
+		Resampler r = new Resampler(data.getSampleRate(), rate, resampleQuality);
+		FloatAudio result = new FloatAudio(rate, r.process(data.getSamples()));
+		if (!result.isValid()) {
+			result.normalize();
+		}
+		return result;
 	}
 	
 	
@@ -211,16 +685,37 @@ public class JavaAudio2f implements Audio {
 
 	@Override
 	public Sound createSound(InputStream is) throws IOException {
-		try {
-			fal.load(is);
-			switch (fal.numChannels()) {
-			case 1:
-				return createSound(fal.getChannel(0));
-			case 2:
-				return createSound(fal.getChannel(0), fal.getChannel(1));
-			default:
-				throw new IOException("unsupported audio format, invalid number of channels " + fal.numChannels());
+		return createSound(decode(is));
+	}
+	
+	@Override
+	public Sound createSound(URL url) throws IOException {
+		String key = url.toExternalForm() + "@" + format.getSampleRate() + "/" + resampleQuality;
+		PcmCache data = soundCache.get(key);
+		if (data == null) {
+			// audio file readers require streams supporting mark and reset
+			try (InputStream is = new BufferedInputStream(url.openStream())) {
+				data = decode(is);
+			}
+			PcmCache prev = soundCache.putIfAbsent(key, data);
+			if (prev != null) {
+				data = prev;
+			}
+		}
+		return createSound(data);
+	}
+	
+	@Override
+	public Sound createStreamingSound(URL url) throws IOException {
+		try (AudioInputStream ais = StreamDecoder.open(url)) {
+			AudioFormat f = ais.getFormat();
+			if (f.getChannels() != 1 && f.getChannels() != 2) {
+				throw new IOException("unsupported audio format, invalid number of channels " + f.getChannels());
 			}
+			if (ais.getFrameLength() <= 0) {
+				throw new IOException("unsupported audio format, unknown length");
+			}
+			return new StreamSound2f(url, ais.getFrameLength(), f.getSampleRate());
 		} catch (UnsupportedAudioFileException e) {
 			throw new IOException("unsupported audio format", e);
 		}
@@ -299,11 +794,26 @@ public class JavaAudio2f implements Audio {
 		mixProc.setLooping(h, b);
 	}	
 	
+	@Override
+	public void seek(int h, double t) {
+		mixProc.seekMix(h, (float) t);
+	}
+	
 	@Override
 	public void stopAll() {
 		mixProc.stopAll();
 	}	
 	
+	@Override
+	public double getLatency() {
+		return mixProc != null ? mixProc.getLatency() : 0.0;
+	}
+	
+	@Override
+	public long getNumUnderruns() {
+		return mixProc != null ? mixProc.getNumUnderruns() : 0;
+	}
+	
 	/////////////////////////////////////////////////
 	/////// Private Inner Classes
 	/////////////////////////////////////////////////
@@ -311,15 +821,30 @@ public class JavaAudio2f implements Audio {
 	private abstract class Sound2f<T extends Sound> implements Sound {
 		
 		private float[] data;
+		private MappedSamples mapped;
+		private long numFrames;
+		private float sampleRate;
 		private double panning = 0.0;
 		private double volume = 1.0;
 		private boolean loop = false;
 		private double pitch = 1.0;
 		private double loopStart;
 		private double loopEnd;
+		private int priority;
 		
-		public Sound2f(float[] data) {
+		public Sound2f(float[] data, long numFrames, float sampleRate) {
+			this(data, null, numFrames, sampleRate);
+		}
+		
+		public Sound2f(MappedSamples mapped, long numFrames, float sampleRate) {
+			this(null, mapped, numFrames, sampleRate);
+		}
+		
+		private Sound2f(float[] data, MappedSamples mapped, long numFrames, float sampleRate) {
 			this.data = data;
+			this.mapped = mapped;
+			this.numFrames = numFrames;
+			this.sampleRate = sampleRate;
 			setLoopRegion(0, getDuration());
 		}
 		
@@ -332,6 +857,34 @@ public class JavaAudio2f implements Audio {
 			return data;
 		}
 		
+		/**
+		 * Returns the sample data of this sound if it is backed by a mapped
+		 * cache file.
+		 * 
+		 * @return the mapped sample data or {@code null}
+		 */
+		protected final MappedSamples getMappedData() {
+			return mapped;
+		}
+		
+		/**
+		 * Returns the number of frames of this sound.
+		 * 
+		 * @return the number of frames
+		 */
+		protected final long getNumFrames() {
+			return numFrames;
+		}
+		
+		/**
+		 * Returns the sample rate of this sound.
+		 * 
+		 * @return the sample rate in Hz
+		 */
+		protected final float getSampleRate() {
+			return sampleRate;
+		}
+		
 		/**
 		 * Returns the start of the loop region.
 		 * 
@@ -410,17 +963,33 @@ public class JavaAudio2f implements Audio {
 			return loop;
 		}
 		
+		@Override
+		public final T setPriority(int p) {
+			priority = p;
+			return getThis();
+		}
+		
+		@Override
+		public final int getPriority() {
+			return priority;
+		}
+		
 		@Override
 		public Sound setLoopRegion(double t1, double t2) throws IllegalArgumentException {
 			if (t1 >= t2 || t1 > getDuration() || t2 > getDuration()) {
 				throw new IllegalArgumentException("invalid loop region " + t1 + " to " + t2);
 			}
 			
-			loopStart = t1 * formatMono.getSampleRate();
-			loopEnd = Math.min(data.length - 1, t2 * formatMono.getSampleRate() - 1);
+			loopStart = t1 * sampleRate;
+			loopEnd = Math.min(numFrames - 1, t2 * sampleRate - 1);
 			return this;
 		}
 		
+		@Override
+		public final double getDuration() {
+			return numFrames / sampleRate;
+		}
+		
 	}
 	
 	private class MonoSound2f extends Sound2f<MonoSound2f> {
@@ -433,18 +1002,35 @@ public class JavaAudio2f implements Audio {
 		 *            the sample data
 		 */
 		public MonoSound2f(float[] data) {
-			super(data);
+			super(data, data.length, formatMono.getSampleRate());
+		}
+		
+		/**
+		 * Creates a new instance playing one-channel samples stored within a
+		 * mapped cache file.
+		 * 
+		 * @param data
+		 *            the mapped sample data
+		 */
+		public MonoSound2f(MappedSamples data) {
+			super(data, data.length(), formatMono.getSampleRate());
 		}
 		
 		@Override
 		public int play() {
-			MonoMix2f m = MonoMix2f.obtain(nextId(), getData());
+			MonoMix2f m = getMappedData() != null
+					? MonoMix2f.obtain(monoPool, nextId(), getMappedData())
+					: MonoMix2f.obtain(monoPool, nextId(), getData());
+			if (m == null) {
+				return INVALID_HANDLE;
+			}
 			m.setVolume((float) getVolume());
 			m.setPanning((float) getPanning());
 			m.setLoopStart((float) getLoopStart());
 			m.setLoopEnd((float) getLoopEnd());
 			m.setLooping(isLooping());
 			m.setPitch((float) getPitch());
+			m.setPriority(getPriority());
 			mixProc.addMix(m);
 			return m.getId();
 		}
@@ -454,11 +1040,6 @@ public class JavaAudio2f implements Audio {
 			return this;
 		}
 		
-		@Override
-		public double getDuration() {
-			return getData().length / formatMono.getSampleRate();
-		}
-		
 	}
 	
 	private class StereoSound2f extends Sound2f<StereoSound2f> {
@@ -471,19 +1052,37 @@ public class JavaAudio2f implements Audio {
 		 *            the sample data
 		 */
 		public StereoSound2f(float[] data) {
-			super(data);
+			super(data, data.length / 2, format.getSampleRate());
 			assert data.length % 2 == 0;
 		}
 		
+		/**
+		 * Creates a new instance playing interleaved two-channel samples stored
+		 * within a mapped cache file.
+		 * 
+		 * @param data
+		 *            the mapped sample data
+		 */
+		public StereoSound2f(MappedSamples data) {
+			super(data, data.length() / 2, format.getSampleRate());
+			assert data.length() % 2 == 0;
+		}
+		
 		@Override
 		public int play() {
-			StereoMix2f m = StereoMix2f.obtain(nextId(), getData());
+			StereoMix2f m = getMappedData() != null
+					? StereoMix2f.obtain(stereoPool, nextId(), getMappedData())
+					: StereoMix2f.obtain(stereoPool, nextId(), getData());
+			if (m == null) {
+				return INVALID_HANDLE;
+			}
 			m.setVolume((float) getVolume());
 			m.setPanning((float) getPanning());
 			m.setLoopStart((float) getLoopStart());
 			m.setLoopEnd((float) getLoopEnd());
 			m.setLooping(isLooping());
 			m.setPitch((float) getPitch());
+			m.setPriority(getPriority());
 			mixProc.addMix(m);
 			return m.getId();
 		}
@@ -493,9 +1092,47 @@ public class JavaAudio2f implements Audio {
 			return this;
 		}
 		
+	}
+	
+	private class StreamSound2f extends Sound2f<StreamSound2f> {
+		
+		/** The location of the audio file. */
+		private URL url;
+		
+		/**
+		 * Creates a new instance.
+		 * 
+		 * @param url
+		 *            the location of the audio file
+		 * @param numFrames
+		 *            the number of frames of the audio file
+		 * @param sampleRate
+		 *            the sample rate of the audio file
+		 */
+		public StreamSound2f(URL url, long numFrames, float sampleRate) {
+			super((float[]) null, numFrames, sampleRate);
+			this.url = url;
+		}
+		
 		@Override
-		public double getDuration() {
-			return getData().length / format.getSampleRate() / 2;
+		public int play() {
+			StreamDecoder d = new StreamDecoder(url, getNumFrames());
+			StreamMix2f m = new StreamMix2f(nextId(), d, getSampleRate(), format.getSampleRate());
+			m.setVolume((float) getVolume());
+			m.setPanning((float) getPanning());
+			m.setLoopStart((float) getLoopStart());
+			m.setLoopEnd((float) getLoopEnd());
+			m.setLooping(isLooping());
+			m.setPitch((float) getPitch());
+			m.setPriority(getPriority());
+			streamer.add(d);
+			mixProc.addMix(m);
+			return m.getId();
+		}
+
+		@Override
+		protected StreamSound2f getThis() {
+			return this;
 		}
 		
 	}
@@ -0,0 +1,60 @@
+/*******************************************************************************
+ * Copyright (c) 2016 - 2018 Roman Divotkey,
+ * Univ. of Applied Sciences Upper Austria. 
+ * All rights reserved.
+ *   
+ * This file is subject to the terms and conditions defined in file
+ * 'LICENSE', which is part of this source code package.
+ *    
+ * THIS CODE IS PROVIDED AS EDUCATIONAL MATERIAL AND NOT INTENDED TO ADDRESS
+ * ALL REAL WORLD PROBLEMS AND ISSUES IN DETAIL.
+ *******************************************************************************/
+package at.fhooe.mtd.sgl.audio;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.SourceDataLine;
+
+/**
+ * Writes audio data to a source data line of the audio device.
+ */
+final class LineOutput implements AudioOutput {
+
+	/** The line to write the audio data to. */
+	private final SourceDataLine line;
+
+	/**
+	 * Creates a new instance.
+	 * 
+	 * @param line
+	 *            the opened source data line
+	 */
+	public LineOutput(SourceDataLine line) {
+		this.line = line;
+	}
+
+	@Override
+	public AudioFormat getFormat() {
+		return line.getFormat();
+	}
+
+	@Override
+	public int getBufferSize() {
+		return line.getBufferSize();
+	}
+
+	@Override
+	public int available() {
+		return line.available();
+	}
+
+	@Override
+	public int write(byte[] b, int off, int len) {
+		return line.write(b, off, len);
+	}
+
+	@Override
+	public boolean isRealTime() {
+		return true;
+	}
+
+}
@@ -0,0 +1,105 @@
+/*******************************************************************************
+ * Copyright (c) 2016 - 2018 Roman Divotkey,
+ * Univ. of Applied Sciences Upper Austria. 
+ * All rights reserved.
+ *   
+ * This file is subject to the terms and conditions defined in file
+ * 'LICENSE', which is part of this source code package.
+ *    
+ * THIS CODE IS PROVIDED AS EDUCATIONAL MATERIAL AND NOT INTENDED TO ADDRESS
+ * ALL REAL WORLD PROBLEMS AND ISSUES IN DETAIL.
+ *******************************************************************************/
+package at.fhooe.mtd.sgl.audio;
+
+import java.nio.FloatBuffer;
+import java.nio.ShortBuffer;
+
+/**
+ * Read-only view of the interleaved samples stored within a memory mapped
+ * cache file.
+ * <p>
+ * The samples are read directly from the mapped file, which keeps them out of
+ * the Java heap and allows the operating system to share the pages among all
+ * processes using the same cache file. Samples are accessed using absolute
+ * indices only, hence a single instance can be read by several mixing threads
+ * at once.
+ * </p>
+ * 
+ * @see PcmCache#read(java.nio.file.Path)
+ */
+final class MappedSamples {
+
+	/** Used to convert short values to floats. */
+	private static final float SHORT_TO_FLOAT = 1.0f / Short.MAX_VALUE;
+
+	/** The samples stored as 32 bit floating point values, or {@code null}. */
+	private final FloatBuffer floats;
+
+	/** The samples stored as signed 16 bit values, or {@code null}. */
+	private final ShortBuffer shorts;
+
+	/** The number of samples. */
+	private final int length;
+
+	/**
+	 * Creates a new instance for floating point samples.
+	 * 
+	 * @param floats
+	 *            a little endian view of the samples
+	 */
+	MappedSamples(FloatBuffer floats) {
+		this.floats = floats;
+		this.shorts = null;
+		this.length = floats.limit();
+	}
+
+	/**
+	 * Creates a new instance for 16 bit samples.
+	 * 
+	 * @param shorts
+	 *            a little endian view of the samples
+	 */
+	MappedSamples(ShortBuffer shorts) {
+		this.floats = null;
+		this.shorts = shorts;
+		this.length = shorts.limit();
+	}
+
+	/**
+	 * Returns the sample at the specified index as signed float value.
+	 * 
+	 * @param idx
+	 *            the index of the sample
+	 * @return the sample value
+	 */
+	float get(int idx) {
+		return floats != null ? floats.get(idx) : shorts.get(idx) * SHORT_TO_FLOAT;
+	}
+
+	/**
+	 * Returns the number of samples.
+	 * 
+	 * @return the number of samples
+	 */
+	int length() {
+		return length;
+	}
+
+	/**
+	 * Copies the samples into a new array.
+	 * 
+	 * @return the samples as signed float values
+	 */
+	float[] toArray() {
+		float[] result = new float[length];
+		if (floats != null) {
+			floats.get(0, result);
+		} else {
+			for (int i = 0; i < length; ++i) {
+				result[i] = shorts.get(i) * SHORT_TO_FLOAT;
+			}
+		}
+		return result;
+	}
+
+}
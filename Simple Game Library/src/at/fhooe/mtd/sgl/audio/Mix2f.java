@@ -57,6 +57,37 @@ public interface Mix2f {
 	 */
 	public boolean hasData();
 	
+	/**
+	 * Renders the next frames of this mix object and adds them to the
+	 * specified buffer. The buffer holds interleaved two-channel samples.
+	 * <p>
+	 * This method is equivalent to querying both channels and moving to the
+	 * next sample position for each frame, but allows implementations to
+	 * process whole blocks of frames in tight loops. The default implementation
+	 * processes each frame separately.
+	 * </p>
+	 * 
+	 * @param out
+	 *            the buffer to which the rendered samples are added
+	 * @param offset
+	 *            the index of the first sample within the buffer
+	 * @param frames
+	 *            the number of frames to render
+	 * @param gain
+	 *            additional gain factor applied to the rendered samples
+	 * @return the number of frames actually rendered, less than the requested
+	 *         number if this mix object has reached its end
+	 */
+	public default int render(float[] out, int offset, int frames, float gain) {
+		int n = 0;
+		for (int i = offset; n < frames && hasData(); ++n) {
+			out[i++] += getChannel1() * gain;
+			out[i++] += getChannel2() * gain;
+			nextData();
+		}
+		return n;
+	}
+	
 	/**
 	 * Returns the volume of this mix object.
 	 * 
@@ -128,6 +159,34 @@ public interface Mix2f {
 	 */
 	public void setLooping(boolean b);
 	
+	/**
+	 * Sets the priority of this mix object. The priority is used to choose a
+	 * mix object to stop if too many mix objects are playing.
+	 * 
+	 * @param p
+	 *            the priority, higher values denote higher priorities
+	 */
+	public void setPriority(int p);
+	
+	/**
+	 * Returns the priority of this mix object.
+	 * 
+	 * @return the priority
+	 * @see #setPriority(int)
+	 */
+	public int getPriority();
+	
+	/**
+	 * Moves the playback position of this mix object. Only streamed mix
+	 * objects support seeking, the default implementation does nothing.
+	 * 
+	 * @param t
+	 *            the new position in seconds
+	 */
+	public default void seek(float t) {
+		// seeking not supported
+	}
+	
 	/**
 	 * Stops the playback of this mix object.
 	 */
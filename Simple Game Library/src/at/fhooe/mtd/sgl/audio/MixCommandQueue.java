@@ -0,0 +1,169 @@
+/*******************************************************************************
+ * Copyright (c) 2016 - 2018 Roman Divotkey,
+ * Univ. of Applied Sciences Upper Austria. 
+ * All rights reserved.
+ *   
+ * This file is subject to the terms and conditions defined in file
+ * 'LICENSE', which is part of this source code package.
+ *    
+ * THIS CODE IS PROVIDED AS EDUCATIONAL MATERIAL AND NOT INTENDED TO ADDRESS
+ * ALL REAL WORLD PROBLEMS AND ISSUES IN DETAIL.
+ *******************************************************************************/
+package at.fhooe.mtd.sgl.audio;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded queue used to send control commands from a single producer
+ * thread to the mixing thread, or notifications from the mixing thread back
+ * to the controlling thread.
+ * <p>
+ * Both {@link #offer(int, int, float, Mix2f) offer} and
+ * {@link #drain(Handler) drain} are wait-free; offering a command to a full
+ * queue fails immediately, it is up to the caller how to handle this case.
+ * </p>
+ * <p>
+ * The commands are stored in preallocated arrays of primitive values, hence
+ * neither sending nor processing commands allocates memory. Only one thread
+ * may send commands and only one thread may process them.
+ * </p>
+ */
+final class MixCommandQueue {
+
+	/** Adds a new mix object. */
+	public static final int ADD_MIX = 0;
+
+	/** Sets the volume of a mix object. */
+	public static final int SET_VOLUME = 1;
+
+	/** Sets the pitch of a mix object. */
+	public static final int SET_PITCH = 2;
+
+	/** Sets the panning of a mix object. */
+	public static final int SET_PANNING = 3;
+
+	/** Enables or disables looping of a mix object. */
+	public static final int SET_LOOPING = 4;
+
+	/** Fades out a mix object, the value holds the number of samples. */
+	public static final int FADE_OUT = 5;
+
+	/** Stops all mix objects. */
+	public static final int STOP_ALL = 6;
+
+	/** Moves the playback position of a mix object, the value holds seconds. */
+	public static final int SEEK = 7;
+
+	/**
+	 * Reports that a mix object has finished, sent by the mixing thread back
+	 * to the controlling thread.
+	 */
+	public static final int MIX_FINISHED = 8;
+
+	/**
+	 * Processes commands taken from the queue.
+	 */
+	public interface Handler {
+
+		/**
+		 * Executes a single command.
+		 *
+		 * @param cmd
+		 *            the command type
+		 * @param id
+		 *            the identifier of the mix object
+		 * @param value
+		 *            the parameter of the command
+		 * @param m
+		 *            the mix object to add, {@code null} for all other commands
+		 */
+		public void execute(int cmd, int id, float value, Mix2f m);
+	}
+
+	private final int mask;
+	private final int[] commands;
+	private final int[] ids;
+	private final float[] values;
+	private final Mix2f[] mixes;
+
+	/** Position of the next command to be read, written by the consumer. */
+	private final AtomicLong head = new AtomicLong();
+
+	/** Position of the next command to be written, written by the producer. */
+	private final AtomicLong tail = new AtomicLong();
+
+	/** Last known head position, only accessed by the producer. */
+	private long cachedHead;
+
+	/**
+	 * Creates a new instance.
+	 *
+	 * @param capacity
+	 *            the maximum number of pending commands, must be a power of two
+	 * @throws IllegalArgumentException
+	 *             if the capacity is not a power of two
+	 */
+	public MixCommandQueue(int capacity) throws IllegalArgumentException {
+		if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+			throw new IllegalArgumentException("capacity must be a power of two, got " + capacity);
+		}
+		mask = capacity - 1;
+		commands = new int[capacity];
+		ids = new int[capacity];
+		values = new float[capacity];
+		mixes = new Mix2f[capacity];
+	}
+
+	/**
+	 * Appends a command to this queue. This method must only be called by the
+	 * producer thread.
+	 *
+	 * @param cmd
+	 *            the command type
+	 * @param id
+	 *            the identifier of the mix object
+	 * @param value
+	 *            the parameter of the command
+	 * @param m
+	 *            the mix object to add or {@code null}
+	 * @return {@code true} if the command has been added, {@code false} if the
+	 *         queue is full
+	 */
+	public boolean offer(int cmd, int id, float value, Mix2f m) {
+		long t = tail.get();
+		if (t - cachedHead > mask) {
+			cachedHead = head.get();
+			if (t - cachedHead > mask) {
+				return false;
+			}
+		}
+
+		int idx = (int) t & mask;
+		commands[idx] = cmd;
+		ids[idx] = id;
+		values[idx] = value;
+		mixes[idx] = m;
+		tail.lazySet(t + 1);
+		return true;
+	}
+
+	/**
+	 * Executes and removes all pending commands. This method must only be
+	 * called by the consumer thread.
+	 *
+	 * @param h
+	 *            the handler used to execute the commands
+	 */
+	public void drain(Handler h) {
+		long hd = head.get();
+		long t = tail.get();
+		for (; hd < t; ++hd) {
+			int idx = (int) hd & mask;
+			Mix2f m = mixes[idx];
+			mixes[idx] = null;
+			h.execute(commands[idx], ids[idx], values[idx], m);
+		}
+		head.lazySet(hd);
+	}
+
+}
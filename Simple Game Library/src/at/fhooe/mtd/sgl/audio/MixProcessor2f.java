@@ -11,19 +11,59 @@
  *******************************************************************************/
 package at.fhooe.mtd.sgl.audio;
 
-import java.util.ArrayList;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.ShortBuffer;
 import java.util.Arrays;
-import java.util.List;
+import java.util.concurrent.locks.LockSupport;
 
 import javax.sound.sampled.AudioFormat;
 import javax.sound.sampled.SourceDataLine;
 
-import at.fhooe.mtd.sgl.math.MathUtils;
-
 /**
  * This class mixes 2-channel mix objects with single precision floating point
  * values to an audio output line. The mixing process is carried out in a
  * separate thread.
+ * <p>
+ * Mix objects are exclusively owned by the mixing thread. All methods used to
+ * control the playback do not access mix objects directly, they send commands
+ * to the mixing thread using a bounded queue. The commands are executed at the
+ * beginning of the next audio block. Hence, neither the controlling thread nor
+ * the mixing thread ever acquires a lock. However, if the queue is full the
+ * sending thread yields until the mixing thread has processed pending
+ * commands, so sending a command may block in this case. If no mixing thread
+ * is running, e.g., while rendering with {@link #render(int)}, a full queue is
+ * drained on the sending thread instead. Commands must be sent from a single
+ * thread only, typically the thread running the main loop.
+ * </p>
+ * <p>
+ * Optionally, mix objects can be rendered by several threads in parallel (see
+ * {@link #setNumThreads(int)}), which pays off for large numbers of
+ * simultaneously playing mix objects. The rendered output is bit-identical for
+ * any number of threads.
+ * </p>
+ * <p>
+ * The number of simultaneously playing mix objects is limited (see
+ * {@link #setMaxVoices(int)}). If another mix object is added while the limit
+ * has been reached, a playing mix object is chosen according to the current
+ * {@link VoiceStealing} policy and quickly faded out.
+ * </p>
+ * <p>
+ * By default, each audio block fills the whole buffer of the output line, and
+ * writing it blocks until the line has room for it. The latency is therefore
+ * about twice the buffer size. In low latency mode (see
+ * {@link #setLowLatency(boolean)}), blocks are much smaller (periods). A period
+ * is written only once the line holds less than one period of pending
+ * audio data. If the line runs dry (underrun), the period size is doubled. It
+ * is halved again after the output has been stable for a while.
+ * </p>
+ * <p>
+ * Besides audio lines, the mixer can write to any {@link AudioOutput}. Using
+ * {@link #render(int)} instead of the mixing thread, a given number of frames
+ * is mixed on the calling thread as fast as possible, which makes the output
+ * reproducible and allows to measure the mixing performance.
+ * </p>
  */
 public class MixProcessor2f {
 
@@ -60,30 +100,187 @@ public class MixProcessor2f {
 	/** Default fade-out time in seconds. */
 	private static final double DEFAULT_FADE_OUT_TIME = 0.1;
 	
-	/** The list of mixes to be processed. */
-	private List<Mix2f> mixes = new ArrayList<>();
+	/** Fade-out time in seconds used for stolen mix objects. */
+	private static final double STEAL_FADE_OUT_TIME = 0.002;
+	
+	/** The default maximum number of simultaneously playing mix objects. */
+	public static final int DEFAULT_MAX_VOICES = 128;
+	
+	/** The maximum number of pending commands. */
+	private static final int COMMAND_QUEUE_CAPACITY = 1024;
+	
+	/** The smallest period size in frames used in low latency mode. */
+	private static final int MIN_PERIOD_SIZE = 64;
+	
+	/** The initial period size in frames used in low latency mode. */
+	private static final int DEFAULT_PERIOD_SIZE = 256;
+	
+	/** Time in seconds without underrun after which the period size is reduced. */
+	private static final double PERIOD_SHRINK_TIME = 5.0;
+	
+	/** The factor by which underruns may prolong the time until reduction. */
+	private static final int MAX_SHRINK_BACKOFF = 16;
+	
+	/** The initial capacity of the array of mixes. */
+	private static final int INITIAL_MIX_CAPACITY = 64;
+	
+	/** The mixes to be processed, owned by the mixing thread. */
+	private Mix2f[] mixes = new Mix2f[INITIAL_MIX_CAPACITY];
+	
+	/** Whether the mixes have still data, written while mixing. */
+	private boolean[] active = new boolean[INITIAL_MIX_CAPACITY];
+	
+	/** The number of mixes to be processed. */
+	private int numMixes;
+	
+	/**
+	 * The number of stolen mixes which are still fading out, kept at the end
+	 * of the mixes until they have finished.
+	 */
+	private int numStolen;
+	
+	/** The maximum number of simultaneously playing mixes. */
+	private volatile int maxVoices = DEFAULT_MAX_VOICES;
+	
+	/** Defines which mix to stop if too many mixes are playing. */
+	private volatile VoiceStealing voiceStealing = VoiceStealing.OLDEST;
+	
+	/** The largest number of mixes played at the same time. */
+	private volatile int voiceHighWaterMark;
+	
+	/** The total number of stolen mixes. */
+	private volatile long numStolenTotal;
+	
+	/** The number of threads used to render mixes. */
+	private int numThreads = 1;
+	
+	/** Renders the mixes, owned by the mixing thread, created when needed. */
+	private MixWorkerPool workerPool;
+	
+	/** Whether the period size and the worker threads have been prepared. */
+	private boolean prepared;
+	
+	/** Maps identifiers to mixes, owned by the mixing thread. */
+	private MixTable mixTable = new MixTable();
+	
+	/** Commands to be executed by the mixing thread. */
+	private MixCommandQueue commands = new MixCommandQueue(COMMAND_QUEUE_CAPACITY);
+	
+	/** Notifications sent by the mixing thread to the controlling thread. */
+	private MixCommandQueue notifications = new MixCommandQueue(COMMAND_QUEUE_CAPACITY);
+	
+	/**
+	 * Identifiers of finished mixes which did not fit into the notification
+	 * queue, owned by the mixing thread.
+	 */
+	private int[] unreported = new int[INITIAL_MIX_CAPACITY];
+	
+	/** The number of finished mixes not yet reported. */
+	private int numUnreported;
+	
+	/**
+	 * The volumes last sent for mixes which are still playing, owned by the
+	 * controlling thread.
+	 */
+	private VolumeTable volumes = new VolumeTable();
+	
+	/** Removes the volumes of finished mixes. */
+	private MixCommandQueue.Handler notificationHandler = new MixCommandQueue.Handler() {
+		@Override
+		public void execute(int cmd, int id, float value, Mix2f m) {
+			assert cmd == MixCommandQueue.MIX_FINISHED;
+			volumes.remove(id);
+		}
+	};
+	
+	/** Executes commands taken from the command queue. */
+	private MixCommandQueue.Handler cmdHandler = new MixCommandQueue.Handler() {
+		@Override
+		public void execute(int cmd, int id, float value, Mix2f m) {
+			executeCommand(cmd, id, value, m);
+		}
+	};
 	
-	/** Audio output line to which write the final audio stream. */
-	private SourceDataLine line;
+	/** Audio output to which write the final audio stream. */
+	private final AudioOutput output;
 	
 	/** The audio buffer. */
 	private byte[] outBuffer;
 	
 	/** The buffer used to mix the output. */
 	private float[] mixBuffer;
+	
+	/** The sample format of the output line. */
+	private final SampleFormat sampleFormat;
+	
+	/** Whether the output line expects big endian samples. */
+	private final boolean bigEndian;
+	
+	/** The mix buffer converted to 16 bit samples. */
+	private short[] pcmBuffer;
+	
+	/** View of the audio buffer used to store 16 bit samples. */
+	private ShortBuffer outView;
+	
+	/** View of the audio buffer used to store floating point samples. */
+	private FloatBuffer outFloatView;
 		
 	/** Master volume. */
-	private float volume = 1.0f;
+	private volatile float volume = 1.0f;
 	
 	/** The number of samples used to fade out. */
 	private int numFadeOutSamples;
 	
+	/** The number of samples used to fade out stolen mixes. */
+	private int numStealFadeOutSamples;
+	
 	/** The current thread status of this mix process. */
-	private Status status = Status.TERMINATED;
+	private volatile Status status = Status.TERMINATED;
+	
+	/** Whether to write small periods instead of whole buffers. */
+	private boolean lowLatency;
+	
+	/** The sample rate of the output line. */
+	private final float sampleRate;
+	
+	/** The size of one frame of the output line in bytes. */
+	private final int frameSize;
+	
+	/** The size of the buffer of the output line in frames. */
+	private final int lineFrames;
+	
+	/** The smallest and the largest period size in frames. */
+	private int minPeriodSize, maxPeriodSize;
+	
+	/** The number of frames mixed and written at once. */
+	private volatile int periodSize;
+	
+	/** The number of frames written since the period size has been changed. */
+	private long stableFrames;
+	
+	/** The number of frames without underrun required to reduce the period size. */
+	private long shrinkFrames;
+	
+	/** The total number of frames written to the output line. */
+	private long framesWritten;
+	
+	/** The number of times the output line ran out of data. */
+	private volatile long numUnderruns;
+	
+	/** The amount of audio data pending in the output line in seconds. */
+	private volatile float latency;
+	
+	/** The sum of the number of frames mixed per mix object. */
+	private volatile long numVoiceFrames;
 
 	
 	/**
 	 * Creates a new instance.
+	 * <p>
+	 * The line must use two channels and any sample rate. Supported sample
+	 * formats are signed 16 bit, signed 24 bit and 32 bit floating point
+	 * samples, in little or big endian byte order.
+	 * </p>
 	 * 
 	 * @param srcLine
 	 *            the source data line used to write the audio stream
@@ -91,17 +288,54 @@ public class MixProcessor2f {
 	 *             in case the audio format of the specified line is incompatible
 	 */
 	public MixProcessor2f(SourceDataLine srcLine) throws IllegalArgumentException {
-		AudioFormat format = srcLine.getFormat();
-		if (format.getChannels() != 2 || format.getSampleSizeInBits() != 16) {
+		this(new LineOutput(srcLine));
+	}
+	
+	/**
+	 * Creates a new instance writing to the specified audio output. The same
+	 * audio formats as for audio lines are supported.
+	 * 
+	 * @param out
+	 *            the audio output used to write the audio stream
+	 * @throws IllegalArgumentException
+	 *             in case the audio format of the specified output is
+	 *             incompatible
+	 * @see #MixProcessor2f(SourceDataLine)
+	 */
+	public MixProcessor2f(AudioOutput out) throws IllegalArgumentException {
+		AudioFormat format = out.getFormat();
+		sampleFormat = SampleFormat.of(format);
+		if (format.getChannels() != 2 || sampleFormat == null
+				|| format.getFrameSize() != format.getChannels() * format.getSampleSizeInBits() / 8) {
 			throw new IllegalArgumentException(
-					"source line has invalid audio format; 16bit, singed, 2 channels, little endian "
-					+ "required, got" + format);
+					"audio output has invalid audio format; 2 channels, 16 or 24 bit signed or 32 bit float "
+					+ "required, got " + format);
 		}
 				
 		numFadeOutSamples = (int) (format.getSampleRate() * DEFAULT_FADE_OUT_TIME);
-		outBuffer = new byte[srcLine.getBufferSize()];
-		mixBuffer = new float[srcLine.getBufferSize() / format.getFrameSize() * format.getChannels()];
-		this.line = srcLine;
+		numStealFadeOutSamples = Math.max(1, (int) (format.getSampleRate() * STEAL_FADE_OUT_TIME));
+		sampleRate = format.getSampleRate();
+		frameSize = format.getFrameSize();
+		lineFrames = out.getBufferSize() / frameSize;
+		periodSize = lineFrames;
+		outBuffer = new byte[lineFrames * frameSize];
+		mixBuffer = new float[lineFrames * format.getChannels()];
+		bigEndian = format.isBigEndian();
+		
+		ByteBuffer bb = ByteBuffer.wrap(outBuffer).order(bigEndian ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN);
+		switch (sampleFormat) {
+		case PCM16:
+			pcmBuffer = new short[mixBuffer.length];
+			outView = bb.asShortBuffer();
+			break;
+		case FLOAT32:
+			outFloatView = bb.asFloatBuffer();
+			break;
+		default:
+			// 24 bit samples are written directly to the audio buffer
+			break;
+		}
+		this.output = out;
 	}
 	
 	/**
@@ -109,17 +343,17 @@ public class MixProcessor2f {
 	 * 
 	 * @param m
 	 *            the mix to add
-	 * @return numeric handle used to control the playback of the mix
 	 */
 	public void addMix(Mix2f m) {
-		synchronized(mixes) {
-			assert findMix(m.getId()) == null;
-			mixes.add(m);
-		}
+		int id = m.getId();
+		float v = m.getVolume();
+		send(MixCommandQueue.ADD_MIX, id, 0.0f, m);
+		volumes.put(id, v);
 	}
 	
 	/**
-	 * Terminates the mixer thread.
+	 * Terminates the mixer thread. The mixing thread stops its worker threads
+	 * before it terminates.
 	 */
 	public synchronized void terminate() {
 		if (status == Status.RUNNING) {
@@ -127,16 +361,210 @@ public class MixProcessor2f {
 		}
 	}
 	
+	/**
+	 * Stops the worker threads used by {@link #render(int)} and waits until they
+	 * have terminated. The worker threads are created again if this mix
+	 * processor is used afterwards.
+	 * 
+	 * @throws IllegalStateException
+	 *             if the mixing thread is running
+	 */
+	public synchronized void close() throws IllegalStateException {
+		if (status != Status.TERMINATED) {
+			throw new IllegalStateException("unable to close, mixer thread running");
+		}
+		closeWorkerPool();
+	}
+	
 	/**
 	 * Returns the current thread status of this mix processor.
 	 * 
 	 * @return the thread status
 	 */
-	public synchronized Status getStatus() {
+	public Status getStatus() {
 		return status;
 	}
 	
 	
+	/**
+	 * Sets the number of threads used to render mix objects. If more than one
+	 * thread is used, the mix objects are split among the mixing thread and
+	 * additional worker threads. The number of threads cannot be changed while
+	 * the mixing thread is running.
+	 * 
+	 * @param n
+	 *            the number of threads, including the mixing thread
+	 * @throws IllegalArgumentException
+	 *             if the number of threads is less than one
+	 * @throws IllegalStateException
+	 *             if the mixing thread is running
+	 */
+	public synchronized void setNumThreads(int n) throws IllegalArgumentException, IllegalStateException {
+		if (n < 1) {
+			throw new IllegalArgumentException("number of threads must be at least one, got " + n);
+		}
+		if (status != Status.TERMINATED) {
+			throw new IllegalStateException("unable to change number of threads while mixer is running");
+		}
+		if (n != numThreads) {
+			closeWorkerPool();
+			numThreads = n;
+		}
+	}
+	
+	/**
+	 * Enables or disables the low latency mode. In low latency mode, the audio
+	 * data is written in small periods, which adapt to the timing accuracy of
+	 * the system. The mode cannot be changed while the mixing thread is
+	 * running.
+	 * 
+	 * @param b
+	 *            {@code true} to enable the low latency mode
+	 * @throws IllegalStateException
+	 *             if the mixing thread is running
+	 */
+	public synchronized void setLowLatency(boolean b) throws IllegalStateException {
+		if (status != Status.TERMINATED) {
+			throw new IllegalStateException("unable to change latency mode while mixer is running");
+		}
+		lowLatency = b;
+		prepared = false;
+	}
+	
+	/**
+	 * Returns whether the low latency mode is enabled.
+	 * 
+	 * @return {@code true} if the low latency mode is enabled
+	 */
+	public boolean isLowLatency() {
+		return lowLatency;
+	}
+	
+	/**
+	 * Returns the number of frames currently mixed and written at once. In low
+	 * latency mode, this number adapts at runtime.
+	 * 
+	 * @return the period size in frames
+	 */
+	public int getPeriodSize() {
+		return periodSize;
+	}
+	
+	/**
+	 * Returns the amount of audio data pending in the output line, measured
+	 * after the last write. This corresponds to the delay until newly started
+	 * sounds become audible.
+	 * 
+	 * @return the latency in seconds
+	 */
+	public float getLatency() {
+		return latency;
+	}
+	
+	/**
+	 * Returns the number of times the output line ran out of audio data, which
+	 * is heard as a crackle or short gap.
+	 * 
+	 * @return the number of underruns
+	 */
+	public long getNumUnderruns() {
+		return numUnderruns;
+	}
+	
+	/**
+	 * Returns the number of threads used to render mix objects.
+	 * 
+	 * @return the number of threads, including the mixing thread
+	 */
+	public int getNumThreads() {
+		return numThreads;
+	}
+	
+	/**
+	 * Sets the maximum number of simultaneously playing mix objects.
+	 * 
+	 * @param n
+	 *            the maximum number of mix objects
+	 * @throws IllegalArgumentException
+	 *             if the specified number is less than one
+	 */
+	public void setMaxVoices(int n) throws IllegalArgumentException {
+		if (n < 1) {
+			throw new IllegalArgumentException("maximum number of voices must be at least one, got " + n);
+		}
+		maxVoices = n;
+	}
+	
+	/**
+	 * Returns the maximum number of simultaneously playing mix objects.
+	 * 
+	 * @return the maximum number of mix objects
+	 */
+	public int getMaxVoices() {
+		return maxVoices;
+	}
+	
+	/**
+	 * Sets the policy used to choose a mix object to stop if the maximum number
+	 * of mix objects is playing.
+	 * 
+	 * @param policy
+	 *            the voice stealing policy
+	 */
+	public void setVoiceStealing(VoiceStealing policy) {
+		assert policy != null;
+		voiceStealing = policy;
+	}
+	
+	/**
+	 * Returns the policy used to choose a mix object to stop if the maximum
+	 * number of mix objects is playing.
+	 * 
+	 * @return the voice stealing policy
+	 */
+	public VoiceStealing getVoiceStealing() {
+		return voiceStealing;
+	}
+	
+	/**
+	 * Returns the largest number of mix objects played at the same time.
+	 * 
+	 * @return the high-water mark of playing mix objects
+	 */
+	public int getVoiceHighWaterMark() {
+		return voiceHighWaterMark;
+	}
+	
+	/**
+	 * Returns the number of mix objects stopped because the maximum number of
+	 * mix objects has been reached.
+	 * 
+	 * @return the number of stolen mix objects
+	 */
+	public long getNumStolenVoices() {
+		return numStolenTotal;
+	}
+	
+	/**
+	 * Returns the sample rate of the audio output.
+	 * 
+	 * @return the sample rate in Hz
+	 */
+	public float getSampleRate() {
+		return sampleRate;
+	}
+	
+	/**
+	 * Returns the sum of the number of frames mixed per mix object. Divided by
+	 * the time spent, this is the mixing throughput in voices times frames per
+	 * second.
+	 * 
+	 * @return the number of mixed voice frames
+	 */
+	public long getNumVoiceFrames() {
+		return numVoiceFrames;
+	}
+	
 	/**
 	 * Starts the mixer thread.
 	 */
@@ -145,6 +573,7 @@ public class MixProcessor2f {
 			throw new IllegalStateException("unable to terminate, mixer not started");
 		}
 		
+		prepare();
 		status = Status.RUNNING;
 		new Thread(new Runnable() {
 			@Override
@@ -154,6 +583,70 @@ public class MixProcessor2f {
 		}).start();
 	}
 	
+	/**
+	 * Mixes the specified number of frames on the calling thread and writes
+	 * them to the audio output. Pending commands are executed before each
+	 * period. This method can be used instead of the mixing thread, e.g., to
+	 * render a scene to a file or to measure the mixing performance. The worker
+	 * threads are kept between calls, use {@link #close()} to stop them.
+	 * 
+	 * @param numFrames
+	 *            the number of frames to render
+	 * @throws IllegalStateException
+	 *             if the mixing thread is running
+	 */
+	public synchronized void render(int numFrames) throws IllegalStateException {
+		if (status != Status.TERMINATED) {
+			throw new IllegalStateException("unable to render, mixer thread running");
+		}
+		
+		prepare();
+		while (numFrames > 0) {
+			int frames = Math.min(numFrames, periodSize);
+			commands.drain(cmdHandler);
+			mix(frames);
+			writeBuffer(frames);
+			numFrames -= frames;
+		}
+	}
+	
+	/**
+	 * Prepares the period size and the worker threads before mixing. This
+	 * method has no effect if the mixer is already prepared.
+	 */
+	private void prepare() {
+		if (prepared) {
+			return;
+		}
+		
+		if (lowLatency) {
+			maxPeriodSize = Math.max(1, lineFrames / 4);
+			minPeriodSize = Math.min(MIN_PERIOD_SIZE, maxPeriodSize);
+			periodSize = Math.max(minPeriodSize, Math.min(DEFAULT_PERIOD_SIZE, maxPeriodSize));
+		} else {
+			minPeriodSize = maxPeriodSize = periodSize = lineFrames;
+		}
+		stableFrames = 0;
+		shrinkFrames = (long) (PERIOD_SHRINK_TIME * sampleRate);
+		
+		if (workerPool == null) {
+			workerPool = new MixWorkerPool(numThreads, mixBuffer.length);
+			workerPool.start();
+		}
+		prepared = true;
+	}
+	
+	/**
+	 * Stops the worker threads and waits until they have terminated.
+	 */
+	private void closeWorkerPool() {
+		if (workerPool != null) {
+			workerPool.stop();
+			workerPool = null;
+		}
+		prepared = false;
+	}
+	
 	/**
 	 * Sets the master volume of this mix processor.
 	 * 
@@ -187,19 +680,19 @@ public class MixProcessor2f {
 	 *            the new volume
 	 */
 	public void setVolume(int id, float v) {
-		synchronized (mixes) {
-			Mix2f m = findMix(id);
-			if (m != null) {
-				m.setVolume(v);
-			}
-		}
+		send(MixCommandQueue.SET_VOLUME, id, v, null);
+		volumes.replace(id, v);
 	}
 	
 	/**
 	 * Returns the volume of the mix object with the specified identifier.
 	 * <p>
-	 * If no mix object with the specified identifier could be found, this method
-	 * has no effect.
+	 * The volume is tracked by the controlling thread, hence this method does
+	 * not access mix objects owned by the mixing thread and executes in
+	 * constant time. The returned value is the volume last set for the mix
+	 * object, even if the command is still pending. A mix object that has
+	 * finished playing is reported with a short delay, when the mixing thread
+	 * has processed it.
 	 * </p>
 	 * 
 	 * @param id
@@ -208,13 +701,8 @@ public class MixProcessor2f {
 	 *         found
 	 */
 	public float getVolume(int id) {
-		synchronized (mixes) {
-			Mix2f m = findMix(id);
-			if (m != null) {
-				return m.getVolume();
-			}
-		}
-		return 0.0f;
+		notifications.drain(notificationHandler);
+		return volumes.get(id);
 	}
 
 	/**
@@ -230,12 +718,7 @@ public class MixProcessor2f {
 	 *            the new pitch
 	 */
 	public void setPitch(int id, float p) {
-		synchronized (mixes) {
-			Mix2f m = findMix(id);
-			if (m != null) {
-				m.setPitch(p);
-			}
-		}
+		send(MixCommandQueue.SET_PITCH, id, p, null);
 	}
 	
 	/**
@@ -251,12 +734,7 @@ public class MixProcessor2f {
 	 *            the new panning value
 	 */
 	public void setPanning(int id, float p) {
-		synchronized (mixes) {
-			Mix2f m = findMix(id);
-			if (m != null) {
-				m.setPanning(p);
-			}
-		}
+		send(MixCommandQueue.SET_PANNING, id, p, null);
 	}	
 	
 	/**
@@ -273,12 +751,7 @@ public class MixProcessor2f {
 	 *            {@code true} if the mix object should be looped
 	 */
 	public void setLooping(int id, boolean b) {
-		synchronized (mixes) {
-			Mix2f m = findMix(id);
-			if (m != null) {
-				m.setLooping(b);
-			}
-		}
+		send(MixCommandQueue.SET_LOOPING, id, b ? 1.0f : 0.0f, null);
 	}
 	
 	/**
@@ -290,12 +763,7 @@ public class MixProcessor2f {
 	 *            the identifier of the mix object
 	 */
 	public void stopMix(int id) {
-		synchronized (mixes) {
-			Mix2f m = findMix(id);
-			if (m != null) {
-				m.fadeOut(numFadeOutSamples);
-			}
-		}
+		send(MixCommandQueue.FADE_OUT, id, numFadeOutSamples, null);
 	}
 	
 	/**
@@ -309,87 +777,369 @@ public class MixProcessor2f {
 	 *            the number of samples used to fade out the mix object
 	 */
 	public void fadeOutMix(int id, int numSamples) {
-		synchronized (mixes) {
-			Mix2f m = findMix(id);
-			if (m != null) {
-				m.fadeOut(numSamples);
-			}
-		}
+		send(MixCommandQueue.FADE_OUT, id, numSamples, null);
 	}
 
+	/**
+	 * Moves the playback position of the mix object with the specified
+	 * identifier. If the no mix object with the specified ID does exist or the
+	 * mix object does not support seeking, this method has no effect.
+	 * 
+	 * @param id
+	 *            the identifier of the mix object
+	 * @param t
+	 *            the new position in seconds
+	 */
+	public void seekMix(int id, float t) {
+		send(MixCommandQueue.SEEK, id, t, null);
+	}
+	
 	/**
 	 * Stops playback of all currently processed mix objects.
 	 */
 	public void stopAll() {
-		synchronized (mixes) {
-			for (int i = 0; i < mixes.size(); ++i) {
-				mixes.get(i).free();
+		send(MixCommandQueue.STOP_ALL, Audio.INVALID_HANDLE, 0.0f, null);
+		volumes.clear();
+	}
+	
+	/**
+	 * Sends a command to the mixing thread. If the command queue is full, this
+	 * method yields until the mixing thread has processed pending commands. If
+	 * the mixing thread is not running, the pending commands are executed on
+	 * the calling thread instead.
+	 * 
+	 * @param cmd
+	 *            the command type
+	 * @param id
+	 *            the identifier of the mix object
+	 * @param value
+	 *            the parameter of the command
+	 * @param m
+	 *            the mix object to add or {@code null}
+	 */
+	private void send(int cmd, int id, float value, Mix2f m) {
+		notifications.drain(notificationHandler);
+		while (!commands.offer(cmd, id, value, m)) {
+			if (status == Status.TERMINATED) {
+				synchronized (this) {
+					if (status == Status.TERMINATED) {
+						// no mixing thread, execute pending commands on the calling thread
+						commands.drain(cmdHandler);
+						continue;
+					}
+				}
 			}
-			mixes.clear();
+			Thread.yield();
 		}
 	}
 	
+	/**
+	 * Executes a command received from the command queue. This method is
+	 * called by the mixing thread.
+	 * 
+	 * @param cmd
+	 *            the command type
+	 * @param id
+	 *            the identifier of the mix object
+	 * @param value
+	 *            the parameter of the command
+	 * @param m
+	 *            the mix object to add or {@code null}
+	 */
+	private void executeCommand(int cmd, int id, float value, Mix2f m) {
+		switch (cmd) {
+		case MixCommandQueue.ADD_MIX:
+			assert findMix(id) == null;
+			if (numMixes - numStolen >= maxVoices) {
+				stealVoice(id);
+			}
+			if (numMixes == mixes.length) {
+				mixes = Arrays.copyOf(mixes, mixes.length * 2);
+				active = new boolean[mixes.length];
+			}
+			
+			// insert in front of the stolen mixes
+			mixes[numMixes] = mixes[numMixes - numStolen];
+			mixes[numMixes - numStolen] = m;
+			++numMixes;
+			mixTable.put(m);
+			if (numMixes - numStolen > voiceHighWaterMark) {
+				voiceHighWaterMark = numMixes - numStolen;
+			}
+			return;
+			
+		case MixCommandQueue.STOP_ALL:
+			for (int i = 0; i < numMixes; ++i) {
+				mixes[i].free();
+				mixes[i] = null;
+			}
+			numMixes = 0;
+			numStolen = 0;
+			mixTable.clear();
+			return;
+		}
+		
+		m = findMix(id);
+		if (m == null) {
+			return;
+		}
+		
+		switch (cmd) {
+		case MixCommandQueue.SET_VOLUME:
+			m.setVolume(value);
+			break;
+		case MixCommandQueue.SET_PITCH:
+			m.setPitch(value);
+			break;
+		case MixCommandQueue.SET_PANNING:
+			m.setPanning(value);
+			break;
+		case MixCommandQueue.SET_LOOPING:
+			m.setLooping(value != 0.0f);
+			break;
+		case MixCommandQueue.FADE_OUT:
+			m.fadeOut((int) value);
+			break;
+		case MixCommandQueue.SEEK:
+			m.seek(value);
+			break;
+		}
+	}
+	
+	/**
+	 * Fades out a playing mix object chosen by the current voice stealing
+	 * policy. The stolen mix object is moved behind all other mix objects which
+	 * are still playing and stays there until it has faded out, hence mix
+	 * objects which are already fading out are never chosen again.
+	 * 
+	 * @param newId
+	 *            the identifier of the mix object to be added
+	 */
+	private void stealVoice(int newId) {
+		int n = numMixes - numStolen;
+		VoiceStealing policy = voiceStealing;
+		int victim = 0;
+		for (int i = 1; i < n; ++i) {
+			if (isBetterVictim(mixes[i], mixes[victim], policy, newId)) {
+				victim = i;
+			}
+		}
+		
+		Mix2f m = mixes[victim];
+		mixes[victim] = mixes[n - 1];
+		mixes[n - 1] = m;
+		++numStolen;
+		++numStolenTotal;
+		m.fadeOut(numStealFadeOutSamples);
+	}
+	
+	/**
+	 * Decides whether a mix object should rather be stolen than another one.
+	 * 
+	 * @param a
+	 *            the candidate
+	 * @param b
+	 *            the current victim
+	 * @param policy
+	 *            the voice stealing policy
+	 * @param newId
+	 *            the identifier of the mix object to be added
+	 * @return {@code true} if the candidate should be stolen instead
+	 */
+	private static boolean isBetterVictim(Mix2f a, Mix2f b, VoiceStealing policy, int newId) {
+		switch (policy) {
+		case QUIETEST:
+			if (a.getVolume() != b.getVolume()) {
+				return a.getVolume() < b.getVolume();
+			}
+			break;
+		case LOWEST_PRIORITY:
+			if (a.getPriority() != b.getPriority()) {
+				return a.getPriority() < b.getPriority();
+			}
+			break;
+		default:
+			break;
+		}
+		
+		// identifiers increase with each played sound, compare ages wrap-around safe
+		return newId - a.getId() > newId - b.getId();
+	}
+	
 	/**
 	 * The processing loop executed by the mixing thread.
 	 */
 	private void process() {
 		while (getStatus() == Status.RUNNING) {
-			mix();
-			writeBuffer();
+			if (lowLatency && output.isRealTime()) {
+				waitForPeriod();
+			}
+			int frames = periodSize;
+			commands.drain(cmdHandler);
+			mix(frames);
+			writeBuffer(frames);
+		}
+		
+		synchronized (this) {
+			closeWorkerPool();
+			status = Status.TERMINATED;
+		}
+	}
+	
+	/**
+	 * Waits until the output line holds at most one period of pending audio
+	 * data.
+	 */
+	private void waitForPeriod() {
+		while (getStatus() == Status.RUNNING) {
+			int pending = lineFrames - output.available() / frameSize;
+			int excess = pending - periodSize;
+			if (excess <= 0) {
+				return;
+			}
+			LockSupport.parkNanos((long) (excess * 1e9 / sampleRate));
 		}
 	}
 	
 	/**
 	 * Mixes the currently active mix objects into the mix buffer.
+	 * 
+	 * @param frames
+	 *            the number of frames to mix
 	 */
-	private void mix() {
+	private void mix(int frames) {
+		if (numUnreported > 0) {
+			flushUnreported();
+		}
+		
 		// clear mix buffer
-		Arrays.fill(mixBuffer, 0.0f);
+		Arrays.fill(mixBuffer, 0, frames * 2, 0.0f);
 		
-		synchronized (mixes) {
-			for (int i = 0; i < mixes.size(); ) {
-				if (mix(mixes.get(i))) {
-					++i;
+		workerPool.render(mixes, active, numMixes, mixBuffer, frames, volume);
+		numVoiceFrames += (long) numMixes * frames;
+		
+		// iterate backwards, mixes moved from the end have already been checked
+		for (int i = numMixes - 1; i >= 0; --i) {
+			if (!active[i]) {
+				Mix2f m = mixes[i];
+				int numLive = numMixes - numStolen;
+				if (i < numLive) {
+					// replace by the last live mix, keep stolen mixes at the end
+					mixes[i] = mixes[numLive - 1];
+					mixes[numLive - 1] = mixes[numMixes - 1];
 				} else {
-					mixes.remove(i).free();
+					mixes[i] = mixes[numMixes - 1];
+					--numStolen;
 				}
+				mixes[--numMixes] = null;
+				mixTable.remove(m.getId());
+				reportFinished(m.getId());
+				m.free();
 			}
 		}
 	}
-	
+
 	/**
-	 * Mixes the specified mix object into the mix buffer.
+	 * Reports a finished mix object to the controlling thread. If the
+	 * notification queue is full, the report is kept and retried with the next
+	 * audio block.
 	 * 
-	 * @param m
-	 *            the mix object to process
-	 * @return {@code true} if the mix object has still data, {@code false} if the
-	 *         mix object can be removed
+	 * @param id
+	 *            the identifier of the finished mix object
 	 */
-	private boolean mix(Mix2f m) {
-		
-		for (int i = 0; i < mixBuffer.length && m.hasData(); ) {
-			mixBuffer[i++] += m.getChannel1() * volume;
-			mixBuffer[i++] += m.getChannel2() * volume;
-			m.nextData();
+	private void reportFinished(int id) {
+		// keep the order of earlier reports which are still pending
+		if (numUnreported == 0 && notifications.offer(MixCommandQueue.MIX_FINISHED, id, 0.0f, null)) {
+			return;
 		}
 		
-		return m.hasData();
+		if (numUnreported == unreported.length) {
+			unreported = Arrays.copyOf(unreported, unreported.length * 2);
+		}
+		unreported[numUnreported++] = id;
 	}
-
+	
+	/**
+	 * Sends pending reports of finished mix objects as far as the notification
+	 * queue has room for them.
+	 */
+	private void flushUnreported() {
+		int n = 0;
+		while (n < numUnreported && notifications.offer(MixCommandQueue.MIX_FINISHED, unreported[n], 0.0f, null)) {
+			++n;
+		}
+		System.arraycopy(unreported, n, unreported, 0, numUnreported - n);
+		numUnreported -= n;
+	}
+	
 	/**
 	 * Writes the current content of the mix buffer to the output audio line.
+	 * 
+	 * @param frames
+	 *            the number of frames to write
 	 */
-	private void writeBuffer() {
+	private void writeBuffer(int frames) {
+		int n = frames * 2;
 
 		// copy mix buffer to out buffer (and do format conversion)
-		for (int i = 0, j = 0; i < mixBuffer.length; ++i) {
-			short value = (short) (MathUtils.clamp(mixBuffer[i], -1.0f, 1.0f) * Short.MAX_VALUE);
-			outBuffer[j++] = (byte) (value & 0xff);
-			outBuffer[j++] = (byte) ((value >> 8) & 0xff);
+		switch (sampleFormat) {
+		case PCM16:
+			SampleConverter.toPcm16(mixBuffer, pcmBuffer, n);
+			outView.clear();
+			outView.put(pcmBuffer, 0, n);
+			break;
+		case PCM24:
+			SampleConverter.toPcm24(mixBuffer, outBuffer, n, bigEndian);
+			break;
+		case FLOAT32:
+			SampleConverter.clamp(mixBuffer, n);
+			outFloatView.clear();
+			outFloatView.put(mixBuffer, 0, n);
+			break;
 		}
-				
+		
+		if (!output.isRealTime()) {
+			output.write(outBuffer, 0, frames * frameSize);
+			framesWritten += frames;
+			return;
+		}
+		
+		// an empty line has played all data written so far
+		boolean underrun = framesWritten > 0 && output.available() >= lineFrames * frameSize;
+		
 		// write byte buffer to line
-		line.write(outBuffer, 0, outBuffer.length);
+		output.write(outBuffer, 0, frames * frameSize);
+		framesWritten += frames;
+		latency = (lineFrames - output.available() / frameSize) / sampleRate;
+		
+		if (underrun) {
+			++numUnderruns;
+		}
+		if (lowLatency) {
+			adaptPeriod(underrun, frames);
+		}
+	}
+	
+	/**
+	 * Adapts the period size used in low latency mode. The period size is
+	 * doubled on each underrun and halved after the output has been stable for
+	 * a while. Each underrun doubles the time required to be stable, which
+	 * prevents probing too small periods over and over again.
+	 * 
+	 * @param underrun
+	 *            whether the output line ran out of data before the last write
+	 * @param frames
+	 *            the number of frames written
+	 */
+	private void adaptPeriod(boolean underrun, int frames) {
+		if (underrun) {
+			periodSize = Math.min(maxPeriodSize, periodSize * 2);
+			shrinkFrames = Math.min(shrinkFrames * 2, (long) (PERIOD_SHRINK_TIME * sampleRate * MAX_SHRINK_BACKOFF));
+			stableFrames = 0;
+		} else if ((stableFrames += frames) >= shrinkFrames) {
+			periodSize = Math.max(minPeriodSize, periodSize / 2);
+			stableFrames = 0;
+		}
 	}
 	
 	/**
@@ -401,16 +1151,7 @@ public class MixProcessor2f {
 	 *         be found
 	 */
 	private Mix2f findMix(int id) {
-		synchronized (mixes) {
-			for (int i = 0; i < mixes.size(); ++i) {
-				Mix2f m = mixes.get(i);
-				if (m.getId() == id) {
-					return m;
-				}
-			}
-		}
-		
-		return null;
+		return mixTable.get(id);
 	}
 	
 }
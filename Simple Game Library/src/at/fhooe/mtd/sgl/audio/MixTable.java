@@ -0,0 +1,151 @@
+/*******************************************************************************
+ * Copyright (c) 2016 - 2018 Roman Divotkey,
+ * Univ. of Applied Sciences Upper Austria. 
+ * All rights reserved.
+ *   
+ * This file is subject to the terms and conditions defined in file
+ * 'LICENSE', which is part of this source code package.
+ *    
+ * THIS CODE IS PROVIDED AS EDUCATIONAL MATERIAL AND NOT INTENDED TO ADDRESS
+ * ALL REAL WORLD PROBLEMS AND ISSUES IN DETAIL.
+ *******************************************************************************/
+package at.fhooe.mtd.sgl.audio;
+
+/**
+ * Maps identifiers to mix objects.
+ * <p>
+ * This is a hash table using open addressing with linear probing and primitive
+ * integer keys. Lookups, insertions and removals are carried out in constant
+ * time and do not allocate memory, unless the table has to grow. The identifier
+ * {@link Audio#INVALID_HANDLE} is used to mark empty slots and cannot be used
+ * as key. This class is not thread-safe.
+ * </p>
+ */
+final class MixTable {
+
+	/** The initial capacity, must be a power of two. */
+	private static final int INITIAL_CAPACITY = 128;
+
+	private int[] keys;
+	private Mix2f[] values;
+	private int mask;
+	private int size;
+
+	/**
+	 * Creates a new instance.
+	 */
+	public MixTable() {
+		allocate(INITIAL_CAPACITY);
+	}
+
+	/**
+	 * Returns the mix object with the specified identifier.
+	 *
+	 * @param id
+	 *            the identifier of the mix object
+	 * @return the mix object or {@code null} if no such mix object exists
+	 */
+	public Mix2f get(int id) {
+		for (int i = hash(id) & mask; keys[i] != Audio.INVALID_HANDLE; i = (i + 1) & mask) {
+			if (keys[i] == id) {
+				return values[i];
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Adds the specified mix object using its identifier as key.
+	 *
+	 * @param m
+	 *            the mix object to add
+	 */
+	public void put(Mix2f m) {
+		assert m.getId() != Audio.INVALID_HANDLE;
+		if (2 * (size + 1) > keys.length) {
+			grow();
+		}
+
+		int i = hash(m.getId()) & mask;
+		while (keys[i] != Audio.INVALID_HANDLE && keys[i] != m.getId()) {
+			i = (i + 1) & mask;
+		}
+		if (keys[i] == Audio.INVALID_HANDLE) {
+			++size;
+		}
+		keys[i] = m.getId();
+		values[i] = m;
+	}
+
+	/**
+	 * Removes the mix object with the specified identifier.
+	 *
+	 * @param id
+	 *            the identifier of the mix object to remove
+	 */
+	public void remove(int id) {
+		int i = hash(id) & mask;
+		while (keys[i] != id) {
+			if (keys[i] == Audio.INVALID_HANDLE) {
+				return;
+			}
+			i = (i + 1) & mask;
+		}
+		--size;
+
+		// shift subsequent entries back to close the gap
+		for (int j = (i + 1) & mask; keys[j] != Audio.INVALID_HANDLE; j = (j + 1) & mask) {
+			int home = hash(keys[j]) & mask;
+			if (((j - home) & mask) >= ((j - i) & mask)) {
+				keys[i] = keys[j];
+				values[i] = values[j];
+				i = j;
+			}
+		}
+		keys[i] = Audio.INVALID_HANDLE;
+		values[i] = null;
+	}
+
+	/**
+	 * Removes all mix objects.
+	 */
+	public void clear() {
+		for (int i = 0; i < keys.length; ++i) {
+			keys[i] = Audio.INVALID_HANDLE;
+			values[i] = null;
+		}
+		size = 0;
+	}
+
+	/**
+	 * Returns the number of mix objects.
+	 *
+	 * @return the number of entries
+	 */
+	public int size() {
+		return size;
+	}
+
+	private void allocate(int capacity) {
+		keys = new int[capacity];
+		values = new Mix2f[capacity];
+		mask = capacity - 1;
+		size = 0;
+	}
+
+	private void grow() {
+		Mix2f[] old = values;
+		allocate(keys.length * 2);
+		for (Mix2f m : old) {
+			if (m != null) {
+				put(m);
+			}
+		}
+	}
+
+	private static int hash(int id) {
+		int h = id * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+}
@@ -0,0 +1,277 @@
+/*******************************************************************************
+ * Copyright (c) 2016 - 2018 Roman Divotkey,
+ * Univ. of Applied Sciences Upper Austria. 
+ * All rights reserved.
+ *   
+ * This file is subject to the terms and conditions defined in file
+ * 'LICENSE', which is part of this source code package.
+ *    
+ * THIS CODE IS PROVIDED AS EDUCATIONAL MATERIAL AND NOT INTENDED TO ADDRESS
+ * ALL REAL WORLD PROBLEMS AND ISSUES IN DETAIL.
+ *******************************************************************************/
+package at.fhooe.mtd.sgl.audio;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Renders mix objects in parallel using a fixed number of threads.
+ * <p>
+ * The mix objects of each audio block are summed in groups of
+ * {@value #GROUP_SIZE} consecutive mix objects. Each group is rendered into a
+ * buffer of its own, the first group directly into the output buffer, and the
+ * group buffers are added to the output buffer in ascending order. The groups
+ * are split into contiguous ranges, one range per thread. Since floating point
+ * samples are always summed in the same order, the output is bit-identical for
+ * any number of threads and does not depend on their scheduling. Rendering a
+ * block only allocates memory if the number of groups exceeds all previous
+ * blocks.
+ * </p>
+ * <p>
+ * The pool is owned by the mixing thread and reused for all audio blocks until
+ * it is stopped. Mix objects are only rendered by the worker threads, they are
+ * never added, removed or freed by them.
+ * </p>
+ */
+final class MixWorkerPool {
+
+	/** The minimum number of mix objects per thread to render in parallel. */
+	private static final int MIN_MIXES_PER_THREAD = 16;
+	
+	/** The number of mix objects summed into one group buffer. */
+	static final int GROUP_SIZE = 16;
+
+	/** The worker threads. */
+	private final Worker[] workers;
+
+	/** The number of workers that have not finished the current block. */
+	private final AtomicInteger pending = new AtomicInteger();
+
+	/** The number of the current block, incremented to start the workers. */
+	private volatile int generation;
+
+	/** Whether the worker threads should keep running. */
+	private volatile boolean running;
+
+	/** The thread waiting for the workers to finish. */
+	private Thread owner;
+
+	/** The mix objects of the current block. */
+	private Mix2f[] mixes;
+
+	/** Receives whether the mix objects of the current block have still data. */
+	private boolean[] active;
+
+	/** The number of mix objects of the current block. */
+	private int numMixes;
+
+	/** The number of frames of the current block. */
+	private int frames;
+
+	/** The gain applied to the mix objects of the current block. */
+	private float gain;
+	
+	/** The maximum number of samples per audio block. */
+	private final int bufferLength;
+	
+	/** The buffers of the groups, the first group uses the output buffer. */
+	private float[][] groups = new float[1][];
+	
+	/** The number of groups of the current block. */
+	private int numGroups;
+
+	/**
+	 * Creates a new instance.
+	 * 
+	 * @param numThreads
+	 *            the number of threads rendering mix objects, including the
+	 *            calling thread
+	 * @param bufferLength
+	 *            the maximum number of samples per audio block
+	 * @throws IllegalArgumentException
+	 *             if the number of threads is less than one
+	 */
+	public MixWorkerPool(int numThreads, int bufferLength) throws IllegalArgumentException {
+		if (numThreads < 1) {
+			throw new IllegalArgumentException("number of threads must be at least one, got " + numThreads);
+		}
+
+		this.bufferLength = bufferLength;
+		workers = new Worker[numThreads - 1];
+		for (int i = 0; i < workers.length; ++i) {
+			workers[i] = new Worker(i + 1);
+		}
+	}
+
+	/**
+	 * Returns the number of threads rendering mix objects, including the
+	 * calling thread.
+	 * 
+	 * @return the number of threads
+	 */
+	public int getNumThreads() {
+		return workers.length + 1;
+	}
+
+	/**
+	 * Starts the worker threads.
+	 */
+	public void start() {
+		running = true;
+		for (Worker w : workers) {
+			w.thread.start();
+		}
+	}
+
+	/**
+	 * Stops the worker threads and waits until they have terminated.
+	 */
+	public void stop() {
+		running = false;
+		for (Worker w : workers) {
+			LockSupport.unpark(w.thread);
+		}
+		
+		boolean interrupted = false;
+		for (Worker w : workers) {
+			while (w.thread.isAlive()) {
+				try {
+					w.thread.join();
+				} catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Renders the specified mix objects and adds them to the output buffer. This
+	 * method blocks until all mix objects have been rendered.
+	 * 
+	 * @param mixes
+	 *            the mix objects to render
+	 * @param active
+	 *            receives for each mix object whether it has still data
+	 * @param n
+	 *            the number of mix objects to render
+	 * @param out
+	 *            the buffer the rendered samples are added to
+	 * @param frames
+	 *            the number of frames to render
+	 * @param gain
+	 *            the gain applied to the rendered samples
+	 */
+	public void render(Mix2f[] mixes, boolean[] active, int n, float[] out, int frames, float gain) {
+		assert frames * 2 <= out.length;
+		this.mixes = mixes;
+		this.active = active;
+		this.numMixes = n;
+		this.frames = frames;
+		this.gain = gain;
+		numGroups = (n + GROUP_SIZE - 1) / GROUP_SIZE;
+		if (numGroups > groups.length) {
+			groups = Arrays.copyOf(groups, Math.max(numGroups, groups.length * 2));
+		}
+		groups[0] = out;
+
+		if (workers.length == 0 || n < getNumThreads() * MIN_MIXES_PER_THREAD) {
+			renderGroups(0, numGroups);
+		} else {
+			// start workers, the volatile write publishes the parameters
+			owner = Thread.currentThread();
+			pending.set(workers.length);
+			++generation;
+			for (Worker w : workers) {
+				LockSupport.unpark(w.thread);
+			}
+	
+			renderGroups(0, numGroups / getNumThreads());
+	
+			while (pending.get() != 0) {
+				LockSupport.park(this);
+			}
+		}
+
+		// reduce group buffers in fixed order
+		int numSamples = frames * 2;
+		for (int g = 1; g < numGroups; ++g) {
+			float[] buf = groups[g];
+			for (int i = 0; i < numSamples; ++i) {
+				out[i] += buf[i];
+			}
+		}
+		groups[0] = null;
+	}
+
+	/**
+	 * Renders a range of the groups of the current block, each group into its
+	 * own buffer.
+	 * 
+	 * @param from
+	 *            the index of the first group (inclusive)
+	 * @param to
+	 *            the index of the last group (exclusive)
+	 */
+	private void renderGroups(int from, int to) {
+		for (int g = from; g < to; ++g) {
+			float[] buf = groups[g];
+			if (buf == null) {
+				// created once, the number of groups only grows with the voices
+				buf = groups[g] = new float[bufferLength];
+			} else if (g > 0) {
+				Arrays.fill(buf, 0, frames * 2, 0.0f);
+			}
+			
+			int end = Math.min(numMixes, (g + 1) * GROUP_SIZE);
+			for (int i = g * GROUP_SIZE; i < end; ++i) {
+				Mix2f m = mixes[i];
+				m.render(buf, 0, frames, gain);
+				active[i] = m.hasData();
+			}
+		}
+	}
+
+	/**
+	 * A worker thread rendering one range of groups per block.
+	 */
+	private class Worker implements Runnable {
+
+		/** The index of the range rendered by this worker. */
+		private final int index;
+
+		/** The thread executing this worker. */
+		private final Thread thread;
+
+		public Worker(int index) {
+			this.index = index;
+			thread = new Thread(this, "SGL Mix Worker " + index);
+			thread.setDaemon(true);
+		}
+
+		@Override
+		public void run() {
+			int seen = 0;
+			while (running) {
+				int g = generation;
+				if (g == seen) {
+					LockSupport.park(this);
+					continue;
+				}
+				seen = g;
+
+				int n = numGroups;
+				int numThreads = getNumThreads();
+				renderGroups(n * index / numThreads, n * (index + 1) / numThreads);
+
+				if (pending.decrementAndGet() == 0) {
+					LockSupport.unpark(owner);
+				}
+			}
+		}
+	}
+
+}
@@ -11,8 +11,6 @@
  *******************************************************************************/
 package at.fhooe.mtd.sgl.audio;
 
-import java.util.ArrayList;
-import java.util.List;
 import java.util.NoSuchElementException;
 
 /**
@@ -20,8 +18,11 @@ import java.util.NoSuchElementException;
  */
 public final class MonoMix2f implements Mix2f {
 
-	/** The pool of instances. */
-	private static List<MonoMix2f> pool = new ArrayList<>();
+	/** The pool this mix object belongs to, {@code null} if not pooled. */
+	private final VoicePool<MonoMix2f> pool;
+	
+	/** The priority of this mix object. */
+	private int priority;
 	
 	/** The identifier of this mix object. */
 	private int id;
@@ -35,9 +36,15 @@ public final class MonoMix2f implements Mix2f {
 	/** The pitch multiplier. */
 	private float pitch;
 	
-	/** The audio samples. */
+	/** The audio samples, {@code null} if playing mapped samples. */
 	private float[] data;
 	
+	/** The audio samples within a mapped cache file, or {@code null}. */
+	private MappedSamples mapped;
+	
+	/** The number of samples. */
+	private int length;
+	
 	/** The gain factor for the left channel. */
 	private float leftGain;
 	
@@ -76,37 +83,137 @@ public final class MonoMix2f implements Mix2f {
 	
 
 	/**
-	 * Obtains an instance of this mix object.
+	 * Obtains an instance of this mix object. The returned instance does not
+	 * belong to a pool, use {@link #createPool(int)} to avoid allocating memory
+	 * whenever a sound is played.
 	 * 
+	 * @param id
+	 *            the identifier of the mix object
 	 * @param data
 	 *            the sample data as singed float value
 	 * @return the instance of the mix object
 	 */
 	public static MonoMix2f obtain(int id, float[] data) {
-		MonoMix2f result;
-		if (pool.isEmpty()) {
-			result = new MonoMix2f();
-		} else {
-			result = pool.remove(pool.size() - 1);
-		}
-		
-		result.id = id;
-		result.data = data;
-		result.pos = result.loopStart = 0.0f;
-		result.volume = result.leftGain = result.rightGain = result.pitch = 1.0f;
-		result.panning = 0.0f;
-		result.endPos = result.loopEnd = data.length - 1;
-		result.switchState(result.playOnce);
-		return result;
+		return new MonoMix2f(null).init(id, data);
+	}
+	
+	/**
+	 * Obtains an instance of this mix object from the specified pool.
+	 * 
+	 * @param pool
+	 *            the pool to take the instance from
+	 * @param id
+	 *            the identifier of the mix object
+	 * @param data
+	 *            the sample data as singed float value
+	 * @return the instance of the mix object or {@code null} if all instances
+	 *         of the pool are in use
+	 */
+	static MonoMix2f obtain(VoicePool<MonoMix2f> pool, int id, float[] data) {
+		MonoMix2f result = pool.obtain();
+		return result != null ? result.init(id, data) : null;
+	}
+	
+	/**
+	 * Obtains an instance of this mix object from the specified pool, which
+	 * plays samples stored within a mapped cache file.
+	 * 
+	 * @param pool
+	 *            the pool to take the instance from
+	 * @param id
+	 *            the identifier of the mix object
+	 * @param data
+	 *            the mapped sample data
+	 * @return the instance of the mix object or {@code null} if all instances
+	 *         of the pool are in use
+	 */
+	static MonoMix2f obtain(VoicePool<MonoMix2f> pool, int id, MappedSamples data) {
+		MonoMix2f result = pool.obtain();
+		return result != null ? result.init(id, data) : null;
+	}
+	
+	/**
+	 * Creates a pool of preallocated instances of this mix object.
+	 * 
+	 * @param capacity
+	 *            the number of instances
+	 * @return the newly created pool
+	 */
+	static VoicePool<MonoMix2f> createPool(int capacity) {
+		return new VoicePool<>(capacity, MonoMix2f::new);
+	}
+	
+	/**
+	 * Initializes this mix object for playback.
+	 * 
+	 * @param id
+	 *            the identifier of the mix object
+	 * @param data
+	 *            the sample data as singed float value
+	 * @return reference to this mix object for method chaining
+	 */
+	private MonoMix2f init(int id, float[] data) {
+		this.data = data;
+		return init(id, data.length);
+	}
+	
+	/**
+	 * Initializes this mix object for playback of mapped samples.
+	 * 
+	 * @param id
+	 *            the identifier of the mix object
+	 * @param data
+	 *            the mapped sample data
+	 * @return reference to this mix object for method chaining
+	 */
+	private MonoMix2f init(int id, MappedSamples data) {
+		this.mapped = data;
+		return init(id, data.length());
+	}
+	
+	/**
+	 * Initializes the playback parameters of this mix object.
+	 * 
+	 * @param id
+	 *            the identifier of the mix object
+	 * @param length
+	 *            the number of samples
+	 * @return reference to this mix object for method chaining
+	 */
+	private MonoMix2f init(int id, int length) {
+		this.id = id;
+		this.length = length;
+		pos = loopStart = 0.0f;
+		volume = leftGain = rightGain = pitch = 1.0f;
+		panning = 0.0f;
+		endPos = loopEnd = length - 1;
+		priority = 0;
+		switchState(playOnce);
+		return this;
 	}
 	
 	/**
 	 * Creates a new instance. Deliberately made private.
+	 * 
+	 * @param pool
+	 *            the pool the new instance belongs to or {@code null}
 	 */
-	private MonoMix2f() {
+	private MonoMix2f(VoicePool<MonoMix2f> pool) {
+		this.pool = pool;
 		reset();
 	}
 	
+	/**
+	 * Returns the sample at the specified index.
+	 * 
+	 * @param idx
+	 *            the index of the sample
+	 * @return the sample value
+	 */
+	private float sampleAt(int idx) {
+		return data != null ? data[idx] : mapped.get(idx);
+	}
+	
 	/**
 	 * Returns the interpolated sample at the current position.
 	 * 
@@ -116,10 +223,10 @@ public final class MonoMix2f implements Mix2f {
 		int idx = (int) pos;
 		float p = pos - idx;
 
-		if (idx + 1 < data.length) {
-			return data[idx] * (1.0f - p) + data[idx + 1] * p;
+		if (idx + 1 < length) {
+			return sampleAt(idx) * (1.0f - p) + sampleAt(idx + 1) * p;
 		} else {
-			return data[idx] * (1.0f - p);			
+			return sampleAt(idx) * (1.0f - p);			
 		}
 	}
 	
@@ -135,9 +242,9 @@ public final class MonoMix2f implements Mix2f {
 		
 		assert pos < loopEnd + 1;
 		if (pos < loopEnd) {
-			return data[idx] * (1.0f - p) + data[idx + 1] * p;
+			return sampleAt(idx) * (1.0f - p) + sampleAt(idx + 1) * p;
 		} else {
-			return data[idx] * (1.0f - p) + data[(int) loopStart] * p;
+			return sampleAt(idx) * (1.0f - p) + sampleAt((int) loopStart) * p;
 		}
 	}
 	
@@ -173,6 +280,7 @@ public final class MonoMix2f implements Mix2f {
 	private void reset() {
 		id = Audio.INVALID_HANDLE;
 		data = null;
+		mapped = null;
 		switchState(end);
 	}
 	
@@ -219,6 +327,11 @@ public final class MonoMix2f implements Mix2f {
 		return curState.hasData();
 	}
 	
+	@Override
+	public int render(float[] out, int offset, int frames, float gain) {
+		return curState.render(out, offset, frames, gain);
+	}
+	
 	@Override
 	public int getId() {
 		return id;
@@ -282,10 +395,22 @@ public final class MonoMix2f implements Mix2f {
 		curState.fadeOut(n);
 	}
 	
+	@Override
+	public void setPriority(int p) {
+		priority = p;
+	}
+	
+	@Override
+	public int getPriority() {
+		return priority;
+	}
+	
 	@Override
 	public void free() {
 		reset();
-		pool.add(this);
+		if (pool != null) {
+			pool.release(this);
+		}
 	}
 	
 	/////////////////////////////////////////////////
@@ -301,6 +426,7 @@ public final class MonoMix2f implements Mix2f {
 		public float getChannel2();
 		public void fadeOut(int numSamples);
 		public void setLooping(boolean b);
+		public int render(float[] out, int offset, int frames, float gain);
 	}
 	
 	private class PlayOnceState implements State {
@@ -356,6 +482,89 @@ public final class MonoMix2f implements Mix2f {
 			switchState(fadeOut.numSamples(numSamples));
 		}
 		
+		@Override
+		public int render(float[] out, int offset, int frames, float gain) {
+			float gl = gain * volume * leftGain;
+			float gr = gain * volume * rightGain;
+			int n;
+			if (pitch == 1.0f && pos == (int) pos) {
+				n = data != null
+						? renderUnpitched(out, offset, frames, gl, gr)
+						: renderMappedUnpitched(out, offset, frames, gl, gr);
+			} else {
+				n = data != null
+						? renderPitched(out, offset, frames, gl, gr)
+						: renderMappedPitched(out, offset, frames, gl, gr);
+			}
+			
+			if (pos > endPos) {
+				switchState(end);
+			} else {
+				sample = getSample();
+			}
+			return n;
+		}
+		
+		private int renderUnpitched(float[] out, int offset, int frames, float gl, float gr) {
+			int idx = (int) pos;
+			int n = Math.min(frames, (int) endPos - idx + 1);
+			for (int i = 0, j = offset; i < n; ++i) {
+				float smpl = data[idx + i];
+				out[j++] += smpl * gl;
+				out[j++] += smpl * gr;
+			}
+			pos += n;
+			return n;
+		}
+
+		private int renderPitched(float[] out, int offset, int frames, float gl, float gr) {
+			float p = pos;
+			int n = 0;
+			for (int j = offset; n < frames && p <= endPos; ++n) {
+				int idx = (int) p;
+				float t = p - idx;
+				float smpl = idx + 1 < data.length 
+						? data[idx] * (1.0f - t) + data[idx + 1] * t
+						: data[idx] * (1.0f - t);
+				out[j++] += smpl * gl;
+				out[j++] += smpl * gr;
+				p += pitch;
+			}
+			pos = p;
+			return n;
+		}
+		
+		private int renderMappedUnpitched(float[] out, int offset, int frames, float gl, float gr) {
+			MappedSamples m = mapped;
+			int idx = (int) pos;
+			int n = Math.min(frames, (int) endPos - idx + 1);
+			for (int i = 0, j = offset; i < n; ++i) {
+				float smpl = m.get(idx + i);
+				out[j++] += smpl * gl;
+				out[j++] += smpl * gr;
+			}
+			pos += n;
+			return n;
+		}
+		
+		private int renderMappedPitched(float[] out, int offset, int frames, float gl, float gr) {
+			MappedSamples m = mapped;
+			float p = pos;
+			int n = 0;
+			for (int j = offset; n < frames && p <= endPos; ++n) {
+				int idx = (int) p;
+				float t = p - idx;
+				float smpl = idx + 1 < length 
+						? m.get(idx) * (1.0f - t) + m.get(idx + 1) * t
+						: m.get(idx) * (1.0f - t);
+				out[j++] += smpl * gl;
+				out[j++] += smpl * gr;
+				p += pitch;
+			}
+			pos = p;
+			return n;
+		}
+		
 	}
 	
 	private class LoopState implements State {
@@ -414,6 +623,63 @@ public final class MonoMix2f implements Mix2f {
 			switchState(fadeOutLoop.numSamples(numSamples));
 		}
 		
+		@Override
+		public int render(float[] out, int offset, int frames, float gain) {
+			assert loopEnd <= endPos : "loopEnd > endPos (loopEnd = " + loopEnd + ", endPos = " + endPos;
+			float gl = gain * volume * leftGain;
+			float gr = gain * volume * rightGain;
+			if (data == null) {
+				renderMapped(out, offset, frames, gl, gr);
+			} else {
+				renderArray(out, offset, frames, gl, gr);
+			}
+			sample = getLoopSample();
+			return frames;
+		}
+		
+		private void renderArray(float[] out, int offset, int frames, float gl, float gr) {
+			float wrap = loopEnd + 1.0f;
+			int first = (int) loopStart;
+			float p = pos;
+			
+			for (int i = 0, j = offset; i < frames; ++i) {
+				int idx = (int) p;
+				float t = p - idx;
+				float next = p < loopEnd ? data[idx + 1] : data[first];
+				float smpl = data[idx] * (1.0f - t) + next * t;
+				out[j++] += smpl * gl;
+				out[j++] += smpl * gr;
+				
+				p += pitch;
+				if (p >= wrap) {
+					p = loopStart + (p - wrap);
+				}
+			}
+			pos = p;
+		}
+		
+		private void renderMapped(float[] out, int offset, int frames, float gl, float gr) {
+			MappedSamples m = mapped;
+			float wrap = loopEnd + 1.0f;
+			int first = (int) loopStart;
+			float p = pos;
+			
+			for (int i = 0, j = offset; i < frames; ++i) {
+				int idx = (int) p;
+				float t = p - idx;
+				float next = p < loopEnd ? m.get(idx + 1) : m.get(first);
+				float smpl = m.get(idx) * (1.0f - t) + next * t;
+				out[j++] += smpl * gl;
+				out[j++] += smpl * gr;
+				
+				p += pitch;
+				if (p >= wrap) {
+					p = loopStart + (p - wrap);
+				}
+			}
+			pos = p;
+		}
+		
 	}
 	
 	private class FadeOutState implements State {
@@ -464,7 +730,7 @@ public final class MonoMix2f implements Mix2f {
 			if (pos >= endPos || numSamples <= 0) {
 				switchState(end);
 			} else {
-				sample = getSample() * volume;
+				sample = getSample();
 			}
 		}
 
@@ -490,6 +756,30 @@ public final class MonoMix2f implements Mix2f {
 			// ignore
 		}
 		
+		@Override
+		public int render(float[] out, int offset, int frames, float gain) {
+			float gl = gain * leftGain;
+			float gr = gain * rightGain;
+			
+			for (int i = 0, j = offset; i < frames; ) {
+				float smpl = getSample() * volume;
+				out[j++] += smpl * gl;
+				out[j++] += smpl * gr;
+				++i;
+				
+				pos += pitch;
+				--numSamples;
+				volume = Math.max(0.0f, volume - deltaVolume);
+				if (pos >= endPos || numSamples <= 0) {
+					switchState(end);
+					return i;
+				}
+			}
+			
+			sample = getSample();
+			return frames;
+		}
+		
 	}
 	
 	private class FadeOutLoopState implements State {
@@ -575,6 +865,35 @@ public final class MonoMix2f implements Mix2f {
 			// ignore
 		}
 		
+		@Override
+		public int render(float[] out, int offset, int frames, float gain) {
+			assert loopEnd <= endPos;
+			float gl = gain * leftGain;
+			float gr = gain * rightGain;
+			
+			for (int i = 0, j = offset; i < frames; ) {
+				float smpl = getLoopSample() * volume;
+				out[j++] += smpl * gl;
+				out[j++] += smpl * gr;
+				++i;
+				
+				pos += pitch;
+				--numSamples;
+				volume = Math.max(0.0f, volume - deltaVolume);
+				if (numSamples <= 0) {
+					switchState(end);
+					return i;
+				}
+				
+				if (pos >= loopEnd + 1.0f) {
+					pos = loopStart + (pos - loopEnd - 1.0f);
+				}
+			}
+			
+			sample = getLoopSample();
+			return frames;
+		}
+		
 	}
 	
 	
@@ -620,6 +939,11 @@ public final class MonoMix2f implements Mix2f {
 			// ignore
 		}
 		
+		@Override
+		public int render(float[] out, int offset, int frames, float gain) {
+			return 0;
+		}
+		
 	}
 
 }
@@ -0,0 +1,84 @@
+/*******************************************************************************
+ * Copyright (c) 2016 - 2018 Roman Divotkey,
+ * Univ. of Applied Sciences Upper Austria. 
+ * All rights reserved.
+ *   
+ * This file is subject to the terms and conditions defined in file
+ * 'LICENSE', which is part of this source code package.
+ *    
+ * THIS CODE IS PROVIDED AS EDUCATIONAL MATERIAL AND NOT INTENDED TO ADDRESS
+ * ALL REAL WORLD PROBLEMS AND ISSUES IN DETAIL.
+ *******************************************************************************/
+package at.fhooe.mtd.sgl.audio;
+
+import javax.sound.sampled.AudioFormat;
+
+/**
+ * An audio output which discards all audio data. Audio data is accepted
+ * immediately, hence the mixer runs as fast as possible.
+ */
+public class NullOutput implements AudioOutput {
+
+	/** The format of the accepted audio data. */
+	private final AudioFormat format;
+
+	/** The buffer size in bytes. */
+	private final int bufferSize;
+
+	/** The total number of bytes written. */
+	private long bytesWritten;
+
+	/**
+	 * Creates a new instance.
+	 * 
+	 * @param format
+	 *            the format of the audio data
+	 * @param bufferFrames
+	 *            the buffer size in frames
+	 * @throws IllegalArgumentException
+	 *             if the buffer size is less than one
+	 */
+	public NullOutput(AudioFormat format, int bufferFrames) throws IllegalArgumentException {
+		if (bufferFrames < 1) {
+			throw new IllegalArgumentException("invalid buffer size " + bufferFrames);
+		}
+		this.format = format;
+		this.bufferSize = bufferFrames * format.getFrameSize();
+	}
+
+	/**
+	 * Returns the total number of bytes written to this output.
+	 * 
+	 * @return the number of bytes written
+	 */
+	public long getBytesWritten() {
+		return bytesWritten;
+	}
+
+	@Override
+	public AudioFormat getFormat() {
+		return format;
+	}
+
+	@Override
+	public int getBufferSize() {
+		return bufferSize;
+	}
+
+	@Override
+	public int available() {
+		return bufferSize;
+	}
+
+	@Override
+	public int write(byte[] b, int off, int len) {
+		bytesWritten += len;
+		return len;
+	}
+
+	@Override
+	public boolean isRealTime() {
+		return false;
+	}
+
+}
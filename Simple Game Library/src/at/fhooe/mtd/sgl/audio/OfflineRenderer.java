@@ -0,0 +1,232 @@
+/*******************************************************************************
+ * Copyright (c) 2016 - 2018 Roman Divotkey,
+ * Univ. of Applied Sciences Upper Austria. 
+ * All rights reserved.
+ *   
+ * This file is subject to the terms and conditions defined in file
+ * 'LICENSE', which is part of this source code package.
+ *    
+ * THIS CODE IS PROVIDED AS EDUCATIONAL MATERIAL AND NOT INTENDED TO ADDRESS
+ * ALL REAL WORLD PROBLEMS AND ISSUES IN DETAIL.
+ *******************************************************************************/
+package at.fhooe.mtd.sgl.audio;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Renders a scripted audio scene faster than real time.
+ * <p>
+ * The scene is described by actions executed at given points in time, e.g.,
+ * adding mix objects to the mixer or changing their volume. The mixer renders
+ * the audio data on the calling thread (see {@link MixProcessor2f#render(int)}),
+ * typically to a {@link NullOutput} or a {@link WavFileOutput}. Since the
+ * actions are executed at exact frame positions, the rendered output is
+ * reproducible. Each rendering reports the mixing throughput, which serves as
+ * a performance baseline.
+ * </p>
+ * 
+ * <pre>
+ * MixProcessor2f mixer = new MixProcessor2f(new NullOutput(format, 1024));
+ * OfflineRenderer r = new OfflineRenderer(mixer);
+ * r.at(0.0, m -&gt; m.addMix(MonoMix2f.obtain(1, samples)));
+ * r.at(2.5, m -&gt; m.stopAll());
+ * System.out.println(r.render(5.0));
+ * </pre>
+ */
+public class OfflineRenderer {
+
+	/** The mixer used to render the scene. */
+	private final MixProcessor2f mixer;
+
+	/** The actions of the scene. */
+	private final List<Action> actions = new ArrayList<>();
+
+	/**
+	 * Creates a new instance.
+	 * 
+	 * @param mixer
+	 *            the mixer used to render the scene, must not be engaged
+	 */
+	public OfflineRenderer(MixProcessor2f mixer) {
+		this.mixer = mixer;
+	}
+
+	/**
+	 * Adds an action to the scene.
+	 * 
+	 * @param t
+	 *            the time in seconds at which the action is executed
+	 * @param action
+	 *            the action to execute
+	 * @return this renderer for method chaining
+	 * @throws IllegalArgumentException
+	 *             if the specified time is negative
+	 */
+	public OfflineRenderer at(double t, Consumer<MixProcessor2f> action) throws IllegalArgumentException {
+		if (t < 0) {
+			throw new IllegalArgumentException("invalid time " + t);
+		}
+		actions.add(new Action(t, action));
+		return this;
+	}
+
+	/**
+	 * Renders the scene. Actions scheduled at or after the end of the scene are
+	 * not executed. Each call executes the actions of the scene again, the state
+	 * of the mixer is not reset. The worker threads of the mixer are stopped
+	 * when the rendering is complete (see {@link MixProcessor2f#close()}).
+	 * 
+	 * @param duration
+	 *            the duration of the scene in seconds
+	 * @return the report of this rendering
+	 * @throws IllegalArgumentException
+	 *             if the specified duration is negative
+	 */
+	public Report render(double duration) throws IllegalArgumentException {
+		if (duration < 0) {
+			throw new IllegalArgumentException("invalid duration " + duration);
+		}
+
+		List<Action> script = new ArrayList<>(actions);
+		script.sort(Comparator.comparingDouble(a -> a.time));
+
+		float rate = mixer.getSampleRate();
+		long numFrames = Math.round(duration * rate);
+		long pos = 0;
+		long voiceFrames = mixer.getNumVoiceFrames();
+		long t0 = System.nanoTime();
+
+		try {
+			for (Action a : script) {
+				long frame = Math.round(a.time * rate);
+				if (frame >= numFrames) {
+					break;
+				}
+				renderFrames(frame - pos);
+				pos = Math.max(pos, frame);
+				a.action.accept(mixer);
+			}
+			renderFrames(numFrames - pos);
+		} finally {
+			mixer.close();
+		}
+
+		long elapsed = System.nanoTime() - t0;
+		return new Report(numFrames, rate, elapsed, mixer.getNumVoiceFrames() - voiceFrames);
+	}
+
+	private void renderFrames(long n) {
+		while (n > 0) {
+			int frames = (int) Math.min(n, Integer.MAX_VALUE);
+			mixer.render(frames);
+			n -= frames;
+		}
+	}
+
+	/**
+	 * An action of the scene.
+	 */
+	private static final class Action {
+
+		/** The time in seconds at which the action is executed. */
+		final double time;
+
+		/** The action to execute. */
+		final Consumer<MixProcessor2f> action;
+
+		Action(double time, Consumer<MixProcessor2f> action) {
+			this.time = time;
+			this.action = action;
+		}
+	}
+
+	/**
+	 * The result of rendering a scene.
+	 */
+	public static final class Report {
+
+		/** The number of frames rendered. */
+		private final long numFrames;
+
+		/** The sample rate of the rendered audio data. */
+		private final float sampleRate;
+
+		/** The time spent rendering in nanoseconds. */
+		private final long elapsedNanos;
+
+		/** The sum of the number of frames mixed per mix object. */
+		private final long numVoiceFrames;
+
+		Report(long numFrames, float sampleRate, long elapsedNanos, long numVoiceFrames) {
+			this.numFrames = numFrames;
+			this.sampleRate = sampleRate;
+			this.elapsedNanos = Math.max(1, elapsedNanos);
+			this.numVoiceFrames = numVoiceFrames;
+		}
+
+		/**
+		 * Returns the number of frames rendered.
+		 * 
+		 * @return the number of frames
+		 */
+		public long getNumFrames() {
+			return numFrames;
+		}
+
+		/**
+		 * Returns the duration of the rendered audio data.
+		 * 
+		 * @return the duration in seconds
+		 */
+		public double getDuration() {
+			return numFrames / (double) sampleRate;
+		}
+
+		/**
+		 * Returns the time spent rendering.
+		 * 
+		 * @return the elapsed time in seconds
+		 */
+		public double getElapsedTime() {
+			return elapsedNanos * 1e-9;
+		}
+
+		/**
+		 * Returns the sum of the number of frames mixed per mix object.
+		 * 
+		 * @return the number of voice frames
+		 */
+		public long getNumVoiceFrames() {
+			return numVoiceFrames;
+		}
+
+		/**
+		 * Returns the mixing throughput.
+		 * 
+		 * @return the number of voices times frames mixed per second
+		 */
+		public double getThroughput() {
+			return numVoiceFrames / getElapsedTime();
+		}
+
+		/**
+		 * Returns how many times faster than real time the scene has been
+		 * rendered.
+		 * 
+		 * @return the ratio of audio duration to elapsed time
+		 */
+		public double getRealTimeFactor() {
+			return getDuration() / getElapsedTime();
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%.2f s rendered in %.3f s (%.1fx real time), %.3g voice frames/s",
+					getDuration(), getElapsedTime(), getRealTimeFactor(), getThroughput());
+		}
+	}
+
+}
@@ -0,0 +1,259 @@
+/*******************************************************************************
+ * Copyright (c) 2016 - 2018 Roman Divotkey,
+ * Univ. of Applied Sciences Upper Austria. 
+ * All rights reserved.
+ *   
+ * This file is subject to the terms and conditions defined in file
+ * 'LICENSE', which is part of this source code package.
+ *    
+ * THIS CODE IS PROVIDED AS EDUCATIONAL MATERIAL AND NOT INTENDED TO ADDRESS
+ * ALL REAL WORLD PROBLEMS AND ISSUES IN DETAIL.
+ *******************************************************************************/
+package at.fhooe.mtd.sgl.audio;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Preprocessed audio data stored in a simple binary file format.
+ * <p>
+ * Cache files hold samples that are ready to be played: they are already
+ * converted to the sample rate of the audio system and channels are
+ * interleaved. Hence, loading a cached sound requires neither decoding nor
+ * sample rate conversion. Cache files are accessed using memory mapped file
+ * channels and the samples are not copied to the Java heap; sounds created
+ * from a cache file read their samples directly from the mapped file. The
+ * pages of the file are loaded on demand and shared by all processes using
+ * the same cache file.
+ * </p>
+ * <p>
+ * A cache file starts with a header of 32 bytes followed by the interleaved
+ * samples. All values are stored in little endian byte order.
+ * </p>
+ * <ul>
+ * <li>Magic number "SGLP" (4 bytes)</li>
+ * <li>Version (int)</li>
+ * <li>Encoding (int), see {@link Encoding}</li>
+ * <li>Number of channels (int)</li>
+ * <li>Sample rate (float)</li>
+ * <li>Number of frames (long)</li>
+ * <li>Reserved (4 bytes)</li>
+ * </ul>
+ */
+public final class PcmCache {
+
+	/**
+	 * The encoding of the samples within a cache file.
+	 */
+	public enum Encoding {
+
+		/** Samples are stored as 32 bit floating point values. */
+		FLOAT32,
+
+		/** Samples are stored as signed 16 bit values, using half the space. */
+		PCM16
+	}
+
+	/** The magic number of cache files, "SGLP" in little endian order. */
+	private static final int MAGIC = 0x504C4753;
+
+	/** The version of the cache file format. */
+	private static final int VERSION = 1;
+
+	/** The size of the header in bytes. */
+	private static final int HEADER_SIZE = 32;
+
+	/** The sample rate of the audio data. */
+	private final float sampleRate;
+
+	/** The number of channels. */
+	private final int numChannels;
+
+	/** The interleaved samples, {@code null} if backed by a mapped file. */
+	private final float[] samples;
+	
+	/** The interleaved samples within the mapped file, or {@code null}. */
+	private final MappedSamples mapped;
+
+	/**
+	 * Creates a new instance.
+	 * 
+	 * @param sampleRate
+	 *            the sample rate of the audio data
+	 * @param numChannels
+	 *            the number of channels
+	 * @param samples
+	 *            the interleaved samples
+	 */
+	public PcmCache(float sampleRate, int numChannels, float[] samples) {
+		if (numChannels < 1 || samples.length % numChannels != 0) {
+			throw new IllegalArgumentException("invalid number of channels " + numChannels);
+		}
+		this.sampleRate = sampleRate;
+		this.numChannels = numChannels;
+		this.samples = samples;
+		this.mapped = null;
+	}
+
+	/**
+	 * Creates a new instance backed by a mapped cache file.
+	 * 
+	 * @param sampleRate
+	 *            the sample rate of the audio data
+	 * @param numChannels
+	 *            the number of channels
+	 * @param mapped
+	 *            the interleaved samples within the mapped file
+	 */
+	private PcmCache(float sampleRate, int numChannels, MappedSamples mapped) {
+		this.sampleRate = sampleRate;
+		this.numChannels = numChannels;
+		this.samples = null;
+		this.mapped = mapped;
+	}
+
+	/**
+	 * Returns the sample rate of the audio data.
+	 * 
+	 * @return the sample rate in Hz
+	 */
+	public float getSampleRate() {
+		return sampleRate;
+	}
+
+	/**
+	 * Returns the number of channels.
+	 * 
+	 * @return the number of channels
+	 */
+	public int getNumChannels() {
+		return numChannels;
+	}
+
+	/**
+	 * Returns the interleaved samples. If this audio data is backed by a mapped
+	 * cache file, the samples are copied into a new array.
+	 * 
+	 * @return the samples
+	 */
+	public float[] getSamples() {
+		return samples != null ? samples : mapped.toArray();
+	}
+
+	/**
+	 * Returns the interleaved samples within the mapped cache file.
+	 * 
+	 * @return the mapped samples or {@code null} if this audio data is not
+	 *         backed by a mapped file
+	 */
+	MappedSamples getMappedSamples() {
+		return mapped;
+	}
+
+	/**
+	 * Reads a cache file.
+	 * 
+	 * @param path
+	 *            the path of the cache file
+	 * @return the cached audio data
+	 * @throws IOException
+	 *             in case the file could not be read or is not a valid cache
+	 *             file
+	 */
+	public static PcmCache read(Path path) throws IOException {
+		try (FileChannel fc = FileChannel.open(path, StandardOpenOption.READ)) {
+			if (fc.size() < HEADER_SIZE) {
+				throw new IOException("invalid cache file " + path);
+			}
+
+			MappedByteBuffer buf = fc.map(MapMode.READ_ONLY, 0, fc.size());
+			buf.order(ByteOrder.LITTLE_ENDIAN);
+			if (buf.getInt(0) != MAGIC) {
+				throw new IOException("invalid cache file " + path);
+			}
+			if (buf.getInt(4) != VERSION) {
+				throw new IOException("unsupported cache file version " + buf.getInt(4));
+			}
+
+			int encoding = buf.getInt(8);
+			int numChannels = buf.getInt(12);
+			float sampleRate = buf.getFloat(16);
+			long numFrames = buf.getLong(20);
+			if (encoding < 0 || encoding >= Encoding.values().length || numChannels < 1 || sampleRate <= 0
+					|| numFrames < 0 || numFrames * numChannels > Integer.MAX_VALUE) {
+				throw new IOException("invalid cache file header " + path);
+			}
+
+			int n = (int) numFrames * numChannels;
+			Encoding enc = Encoding.values()[encoding];
+			if (fc.size() < HEADER_SIZE + (long) n * bytesPerSample(enc)) {
+				throw new IOException("truncated cache file " + path);
+			}
+
+			// the mapping stays valid after the channel has been closed
+			buf.position(HEADER_SIZE);
+			buf.limit(HEADER_SIZE + n * bytesPerSample(enc));
+			MappedSamples mapped = enc == Encoding.FLOAT32
+					? new MappedSamples(buf.slice().order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer())
+					: new MappedSamples(buf.slice().order(ByteOrder.LITTLE_ENDIAN).asShortBuffer());
+			return new PcmCache(sampleRate, numChannels, mapped);
+		}
+	}
+
+	/**
+	 * Writes this audio data to a cache file. An existing file is replaced.
+	 * 
+	 * @param path
+	 *            the path of the cache file
+	 * @param enc
+	 *            the encoding of the samples
+	 * @throws IOException
+	 *             in case the file could not be written
+	 */
+	public void write(Path path, Encoding enc) throws IOException {
+		float[] samples = getSamples();
+		long size = HEADER_SIZE + (long) samples.length * bytesPerSample(enc);
+		try (FileChannel fc = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+
+			MappedByteBuffer buf = fc.map(MapMode.READ_WRITE, 0, size);
+			buf.order(ByteOrder.LITTLE_ENDIAN);
+			buf.putInt(MAGIC);
+			buf.putInt(VERSION);
+			buf.putInt(enc.ordinal());
+			buf.putInt(numChannels);
+			buf.putFloat(sampleRate);
+			buf.putLong(samples.length / numChannels);
+			buf.putInt(0);
+
+			switch (enc) {
+			case FLOAT32:
+				FloatBuffer fb = buf.slice().order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer();
+				fb.put(samples);
+				break;
+			case PCM16:
+				ShortBuffer sb = buf.slice().order(ByteOrder.LITTLE_ENDIAN).asShortBuffer();
+				for (int i = 0; i < samples.length; ++i) {
+					float v = samples[i];
+					v = v < -1.0f ? -1.0f : v;
+					v = v > 1.0f ? 1.0f : v;
+					sb.put(i, (short) (v * Short.MAX_VALUE));
+				}
+				break;
+			}
+			buf.force();
+		}
+	}
+
+	private static int bytesPerSample(Encoding enc) {
+		return enc == Encoding.FLOAT32 ? 4 : 2;
+	}
+
+}
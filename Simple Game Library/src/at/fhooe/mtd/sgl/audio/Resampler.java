@@ -0,0 +1,243 @@
+/*******************************************************************************
+ * Copyright (c) 2016 - 2018 Roman Divotkey,
+ * Univ. of Applied Sciences Upper Austria. 
+ * All rights reserved.
+ *   
+ * This file is subject to the terms and conditions defined in file
+ * 'LICENSE', which is part of this source code package.
+ *    
+ * THIS CODE IS PROVIDED AS EDUCATIONAL MATERIAL AND NOT INTENDED TO ADDRESS
+ * ALL REAL WORLD PROBLEMS AND ISSUES IN DETAIL.
+ *******************************************************************************/
+package at.fhooe.mtd.sgl.audio;
+
+/**
+ * Converts one-channel audio data from one sample rate to another.
+ * <p>
+ * Two conversion methods are available. Linear interpolation is fast but
+ * introduces aliasing, especially when the sample rate is reduced. Windowed
+ * sinc interpolation uses a band limited interpolation filter, which is
+ * precomputed for a fixed number of phases (polyphase filter) when the
+ * resampler is created. Coefficients between two phases are interpolated
+ * linearly, hence arbitrary conversion ratios are supported.
+ * </p>
+ * <p>
+ * Instances of this class are immutable and may be used by several threads
+ * concurrently.
+ * </p>
+ */
+public final class Resampler {
+
+	/**
+	 * The available conversion methods.
+	 */
+	public enum Quality {
+		
+		/** Linear interpolation between adjacent samples. */
+		LINEAR,
+		
+		/** Kaiser windowed sinc interpolation. */
+		SINC
+	}
+	
+	/** The number of zero crossings of the filter on each side. */
+	private static final int ZERO_CROSSINGS = 16;
+	
+	/** The number of filter taps. */
+	private static final int NUM_TAPS = 2 * ZERO_CROSSINGS;
+	
+	/** The number of precomputed filter phases. */
+	private static final int NUM_PHASES = 256;
+	
+	/** The shape parameter of the Kaiser window. */
+	private static final double KAISER_BETA = 8.0;
+	
+	/** The cutoff frequency relative to the Nyquist frequency when downsampling. */
+	private static final double ROLLOFF = 0.95;
+	
+	/** The source sample rate. */
+	private final float srcRate;
+	
+	/** The target sample rate. */
+	private final float dstRate;
+	
+	/** The conversion method. */
+	private final Quality quality;
+	
+	/** The filter coefficients, one row of taps per phase. */
+	private final float[] coefs;
+	
+	/** The differences between the coefficients of adjacent phases. */
+	private final float[] deltas;
+	
+	/**
+	 * Creates a new instance.
+	 * 
+	 * @param srcRate
+	 *            the sample rate of the audio data to be converted
+	 * @param dstRate
+	 *            the sample rate of the converted audio data
+	 * @param quality
+	 *            the conversion method
+	 * @throws IllegalArgumentException
+	 *             in case one of the sample rates is invalid
+	 */
+	public Resampler(float srcRate, float dstRate, Quality quality) throws IllegalArgumentException {
+		if (srcRate <= 0) {
+			throw new IllegalArgumentException("illegal sample rate " + srcRate);
+		}
+		if (dstRate <= 0) {
+			throw new IllegalArgumentException("illegal sample rate " + dstRate);
+		}
+		
+		this.srcRate = srcRate;
+		this.dstRate = dstRate;
+		this.quality = quality;
+		
+		if (quality == Quality.SINC) {
+			coefs = new float[(NUM_PHASES + 1) * NUM_TAPS];
+			deltas = new float[NUM_PHASES * NUM_TAPS];
+			initFilter(dstRate < srcRate ? ROLLOFF * dstRate / srcRate : 1.0);
+		} else {
+			coefs = null;
+			deltas = null;
+		}
+	}
+	
+	/**
+	 * Returns the conversion method used by this resampler.
+	 * 
+	 * @return the conversion method
+	 */
+	public Quality getQuality() {
+		return quality;
+	}
+	
+	/**
+	 * Returns the number of samples resulting from the conversion of the
+	 * specified number of samples.
+	 * 
+	 * @param n
+	 *            the number of source samples
+	 * @return the number of converted samples
+	 */
+	public int getOutputLength(int n) {
+		return (int) ((double) n * dstRate / srcRate);
+	}
+	
+	/**
+	 * Converts the specified samples.
+	 * 
+	 * @param src
+	 *            the samples to convert
+	 * @return the converted samples
+	 */
+	public float[] process(float[] src) {
+		float[] dst = new float[getOutputLength(src.length)];
+		if (srcRate == dstRate) {
+			System.arraycopy(src, 0, dst, 0, dst.length);
+		} else if (quality == Quality.SINC) {
+			processSinc(src, dst);
+		} else {
+			processLinear(src, dst);
+		}
+		return dst;
+	}
+	
+	private void processLinear(float[] src, float[] dst) {
+		final double step = (double) srcRate / dstRate;
+		final int last = src.length - 1;
+		
+		for (int i = 0; i < dst.length; ++i) {
+			double pos = i * step;
+			int idx = (int) pos;
+			float p = (float) (pos - idx);
+			
+			if (idx < last) {
+				dst[i] = src[idx] + (src[idx + 1] - src[idx]) * p;
+			} else {
+				dst[i] = src[idx] * (1.0f - p);
+			}
+		}
+	}
+	
+	private void processSinc(float[] src, float[] dst) {
+		final double step = (double) srcRate / dstRate;
+		final float[] c = coefs;
+		final float[] d = deltas;
+		
+		for (int i = 0; i < dst.length; ++i) {
+			double pos = i * step;
+			int idx = (int) pos;
+			double phase = (pos - idx) * NUM_PHASES;
+			int ph = (int) phase;
+			float t = (float) (phase - ph);
+			int row = ph * NUM_TAPS;
+			
+			// index of the source sample matching the first tap
+			int first = idx - ZERO_CROSSINGS + 1;
+			float sum = 0;
+			if (first >= 0 && first + NUM_TAPS <= src.length) {
+				for (int j = 0; j < NUM_TAPS; ++j) {
+					sum += src[first + j] * (c[row + j] + d[row + j] * t);
+				}
+			} else {
+				// near the borders, samples outside the source data are zero
+				int j0 = Math.max(0, -first);
+				int j1 = Math.min(NUM_TAPS, src.length - first);
+				for (int j = j0; j < j1; ++j) {
+					sum += src[first + j] * (c[row + j] + d[row + j] * t);
+				}
+			}
+			dst[i] = sum;
+		}
+	}
+	
+	private void initFilter(double cutoff) {
+		double norm = besselI0(KAISER_BETA);
+		for (int ph = 0; ph <= NUM_PHASES; ++ph) {
+			double frac = (double) ph / NUM_PHASES;
+			for (int j = 0; j < NUM_TAPS; ++j) {
+				// distance of the tap to the interpolated position
+				double x = j - ZERO_CROSSINGS + 1 - frac;
+				double r = x / ZERO_CROSSINGS;
+				double w = r <= -1.0 || r >= 1.0 ? 0.0 : besselI0(KAISER_BETA * Math.sqrt(1.0 - r * r)) / norm;
+				coefs[ph * NUM_TAPS + j] = (float) (cutoff * sinc(cutoff * x) * w);
+			}
+		}
+		
+		for (int i = 0; i < deltas.length; ++i) {
+			deltas[i] = coefs[i + NUM_TAPS] - coefs[i];
+		}
+	}
+	
+	private static double sinc(double x) {
+		if (x == 0) {
+			return 1.0;
+		}
+		double px = Math.PI * x;
+		return Math.sin(px) / px;
+	}
+	
+	/**
+	 * Computes the zeroth order modified Bessel function of the first kind.
+	 * 
+	 * @param x
+	 *            the argument
+	 * @return the function value
+	 */
+	private static double besselI0(double x) {
+		double sum = 1.0;
+		double term = 1.0;
+		double halfX = x / 2;
+		for (int k = 1; k < 50; ++k) {
+			term *= (halfX / k) * (halfX / k);
+			sum += term;
+			if (term < sum * 1e-12) {
+				break;
+			}
+		}
+		return sum;
+	}
+	
+}
@@ -0,0 +1,239 @@
+/*******************************************************************************
+ * Copyright (c) 2016 - 2018 Roman Divotkey,
+ * Univ. of Applied Sciences Upper Austria. 
+ * All rights reserved.
+ *   
+ * This file is subject to the terms and conditions defined in file
+ * 'LICENSE', which is part of this source code package.
+ *    
+ * THIS CODE IS PROVIDED AS EDUCATIONAL MATERIAL AND NOT INTENDED TO ADDRESS
+ * ALL REAL WORLD PROBLEMS AND ISSUES IN DETAIL.
+ *******************************************************************************/
+package at.fhooe.mtd.sgl.audio;
+
+/**
+ * Converts floating point samples to the sample formats of output lines and
+ * provides basic operations on blocks of samples.
+ * <p>
+ * The conversion loops are deliberately kept free of branches and
+ * cross-iteration dependencies, which allows the just-in-time compiler to
+ * translate them into SIMD instructions. Splitting 16 bit and floating point
+ * samples into bytes is left to bulk operations of
+ * {@link java.nio.ShortBuffer} and {@link java.nio.FloatBuffer}, which copy
+ * whole arrays at once.
+ * </p>
+ * <p>
+ * If the incubating Vector API (module {@code jdk.incubator.vector}) has been
+ * added to the boot layer, e.g., by starting the virtual machine with
+ * {@code --add-modules jdk.incubator.vector}, the static methods of this class
+ * use {@link VectorSampleConverter} instead, which is loaded reflectively. The
+ * loops of this class serve as fallback otherwise.
+ * </p>
+ */
+class SampleConverter {
+
+	/** The largest value of signed 24 bit samples. */
+	private static final float PCM24_MAX = 8388607;
+	
+	/** The name of the module providing the Vector API. */
+	private static final String VECTOR_MODULE = "jdk.incubator.vector";
+	
+	/** The name of the class using the Vector API. */
+	private static final String VECTOR_CONVERTER = "at.fhooe.mtd.sgl.audio.VectorSampleConverter";
+	
+	/** The converter used by the static methods. */
+	private static final SampleConverter INSTANCE = create();
+
+	/**
+	 * Creates a new scalar converter.
+	 */
+	SampleConverter() {
+		// intentionally left empty
+	}
+	
+	/**
+	 * Creates the converter used by the static methods of this class.
+	 * 
+	 * @return the vectorized converter if available, the scalar one otherwise
+	 */
+	private static SampleConverter create() {
+		SampleConverter c = createVectorized();
+		return c != null ? c : new SampleConverter();
+	}
+	
+	/**
+	 * Creates a converter using the Vector API.
+	 * 
+	 * @return the vectorized converter or {@code null} if the Vector API is not
+	 *         available
+	 */
+	static SampleConverter createVectorized() {
+		if (!ModuleLayer.boot().findModule(VECTOR_MODULE).isPresent()) {
+			return null;
+		}
+		
+		try {
+			return (SampleConverter) Class.forName(VECTOR_CONVERTER).getDeclaredConstructor().newInstance();
+		} catch (ReflectiveOperationException | LinkageError e) {
+			// not compiled or not supported by this platform
+			return null;
+		}
+	}
+
+	/**
+	 * Converts floating point samples to signed 16 bit samples. Values exceeding
+	 * the range [-1, 1] are clamped.
+	 *
+	 * @param src
+	 *            the floating point samples to convert
+	 * @param dst
+	 *            the array receiving the converted samples
+	 * @param n
+	 *            the number of samples to convert
+	 */
+	public static void toPcm16(float[] src, short[] dst, int n) {
+		INSTANCE.convertPcm16(src, dst, n);
+	}
+	
+	/**
+	 * Converts floating point samples to signed 24 bit samples, three bytes per
+	 * sample. Values exceeding the range [-1, 1] are clamped.
+	 * 
+	 * @param src
+	 *            the floating point samples to convert
+	 * @param dst
+	 *            the array receiving the converted samples
+	 * @param n
+	 *            the number of samples to convert
+	 * @param bigEndian
+	 *            {@code true} to store the most significant byte first
+	 */
+	public static void toPcm24(float[] src, byte[] dst, int n, boolean bigEndian) {
+		INSTANCE.convertPcm24(src, dst, n, bigEndian);
+	}
+	
+	/**
+	 * Clamps floating point samples to the range [-1, 1].
+	 * 
+	 * @param buf
+	 *            the samples to clamp
+	 * @param n
+	 *            the number of samples to clamp
+	 */
+	public static void clamp(float[] buf, int n) {
+		INSTANCE.clampSamples(buf, n);
+	}
+	
+	/**
+	 * Returns the index of the first sample with the largest absolute value.
+	 * 
+	 * @param buf
+	 *            the samples to search
+	 * @param n
+	 *            the number of samples to search
+	 * @return the index of the peak or zero if no samples are given
+	 */
+	public static int findPeak(float[] buf, int n) {
+		return INSTANCE.peakIndex(buf, n);
+	}
+	
+	/**
+	 * Multiplies floating point samples by the specified factor.
+	 * 
+	 * @param buf
+	 *            the samples to scale
+	 * @param n
+	 *            the number of samples to scale
+	 * @param s
+	 *            the factor
+	 */
+	public static void scale(float[] buf, int n, float s) {
+		INSTANCE.scaleSamples(buf, n, s);
+	}
+	
+	/**
+	 * Converts floating point samples to signed 16 bit samples.
+	 *
+	 * @see #toPcm16(float[], short[], int)
+	 */
+	void convertPcm16(float[] src, short[] dst, int n) {
+		for (int i = 0; i < n; ++i) {
+			float v = src[i];
+			v = v < -1.0f ? -1.0f : v;
+			v = v > 1.0f ? 1.0f : v;
+			dst[i] = (short) (v * Short.MAX_VALUE);
+		}
+	}
+	
+	/**
+	 * Converts floating point samples to signed 24 bit samples.
+	 * 
+	 * @see #toPcm24(float[], byte[], int, boolean)
+	 */
+	void convertPcm24(float[] src, byte[] dst, int n, boolean bigEndian) {
+		if (bigEndian) {
+			for (int i = 0, j = 0; i < n; ++i, j += 3) {
+				float v = src[i];
+				v = v < -1.0f ? -1.0f : v;
+				v = v > 1.0f ? 1.0f : v;
+				int s = (int) (v * PCM24_MAX);
+				dst[j] = (byte) (s >> 16);
+				dst[j + 1] = (byte) (s >> 8);
+				dst[j + 2] = (byte) s;
+			}
+		} else {
+			for (int i = 0, j = 0; i < n; ++i, j += 3) {
+				float v = src[i];
+				v = v < -1.0f ? -1.0f : v;
+				v = v > 1.0f ? 1.0f : v;
+				int s = (int) (v * PCM24_MAX);
+				dst[j] = (byte) s;
+				dst[j + 1] = (byte) (s >> 8);
+				dst[j + 2] = (byte) (s >> 16);
+			}
+		}
+	}
+	
+	/**
+	 * Clamps floating point samples to the range [-1, 1].
+	 * 
+	 * @see #clamp(float[], int)
+	 */
+	void clampSamples(float[] buf, int n) {
+		for (int i = 0; i < n; ++i) {
+			float v = buf[i];
+			v = v < -1.0f ? -1.0f : v;
+			buf[i] = v > 1.0f ? 1.0f : v;
+		}
+	}
+	
+	/**
+	 * Returns the index of the first sample with the largest absolute value.
+	 * 
+	 * @see #findPeak(float[], int)
+	 */
+	int peakIndex(float[] buf, int n) {
+		int result = 0;
+		float peak = Float.NEGATIVE_INFINITY;
+		for (int i = 0; i < n; ++i) {
+			float v = Math.abs(buf[i]);
+			if (v > peak) {
+				peak = v;
+				result = i;
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * Multiplies floating point samples by the specified factor.
+	 * 
+	 * @see #scale(float[], int, float)
+	 */
+	void scaleSamples(float[] buf, int n, float s) {
+		for (int i = 0; i < n; ++i) {
+			buf[i] *= s;
+		}
+	}
+
+}
@@ -0,0 +1,74 @@
+/*******************************************************************************
+ * Copyright (c) 2016 - 2018 Roman Divotkey,
+ * Univ. of Applied Sciences Upper Austria. 
+ * All rights reserved.
+ *   
+ * This file is subject to the terms and conditions defined in file
+ * 'LICENSE', which is part of this source code package.
+ *    
+ * THIS CODE IS PROVIDED AS EDUCATIONAL MATERIAL AND NOT INTENDED TO ADDRESS
+ * ALL REAL WORLD PROBLEMS AND ISSUES IN DETAIL.
+ *******************************************************************************/
+package at.fhooe.mtd.sgl.audio;
+
+import javax.sound.sampled.AudioFormat;
+
+/**
+ * Defines the sample format used to write audio data to the output line.
+ */
+public enum SampleFormat {
+
+	/** Signed 16 bit integer samples. */
+	PCM16,
+
+	/** Signed 24 bit integer samples. */
+	PCM24,
+
+	/** 32 bit floating point samples. */
+	FLOAT32;
+
+	/**
+	 * Returns the audio format using this sample format.
+	 * 
+	 * @param sampleRate
+	 *            the sample rate in Hz
+	 * @param channels
+	 *            the number of channels
+	 * @return the audio format, little endian
+	 */
+	public AudioFormat toAudioFormat(float sampleRate, int channels) {
+		switch (this) {
+		case PCM24:
+			return new AudioFormat(sampleRate, 24, channels, true, false);
+		case FLOAT32:
+			return new AudioFormat(AudioFormat.Encoding.PCM_FLOAT, sampleRate, 32, channels, channels * 4,
+					sampleRate, false);
+		default:
+			return new AudioFormat(sampleRate, 16, channels, true, false);
+		}
+	}
+
+	/**
+	 * Returns the sample format of the specified audio format.
+	 * 
+	 * @param f
+	 *            the audio format
+	 * @return the matching sample format or {@code null} if not supported
+	 */
+	static SampleFormat of(AudioFormat f) {
+		if (f.getEncoding() == AudioFormat.Encoding.PCM_SIGNED) {
+			switch (f.getSampleSizeInBits()) {
+			case 16:
+				return PCM16;
+			case 24:
+				return PCM24;
+			default:
+				return null;
+			}
+		} else if (f.getEncoding() == AudioFormat.Encoding.PCM_FLOAT && f.getSampleSizeInBits() == 32) {
+			return FLOAT32;
+		}
+		return null;
+	}
+
+}
@@ -21,7 +21,9 @@ public interface Sound {
 	 * The playback will start immediately after this method returns. Changing this
 	 * sounds parameters has no effect on the current playback.
 	 * 
-	 * @return a handle used to control the playback of this sound
+	 * @return a handle used to control the playback of this sound or
+	 *         {@link Audio#INVALID_HANDLE} if no voice is available to play
+	 *         this sound
 	 */
 	public int play();
 		
@@ -117,6 +119,24 @@ public interface Sound {
 	 */
 	public boolean isLooping();
 	
+	/**
+	 * Sets the priority of this sound. If the maximum number of simultaneously
+	 * playing sounds has been reached, the audio system might stop sounds with
+	 * low priority in favor of new sounds.
+	 * 
+	 * @param p
+	 *            the priority, higher values denote higher priorities
+	 * @return reference to this sound for method chaining
+	 */
+	public Sound setPriority(int p);
+	
+	/**
+	 * Returns the priority of this sound.
+	 * 
+	 * @return the priority
+	 */
+	public int getPriority();
+	
 	/**
 	 * Returns the duration of this sound clip. The duration is calculated assuming
 	 * a pitch multiplier of 1.0.
@@ -11,8 +11,6 @@
  *******************************************************************************/
 package at.fhooe.mtd.sgl.audio;
 
-import java.util.ArrayList;
-import java.util.List;
 import java.util.NoSuchElementException;
 
 /**
@@ -20,8 +18,11 @@ import java.util.NoSuchElementException;
  */
 public final class StereoMix2f implements Mix2f {
 
-	/** The pool of instances. */
-	private static List<StereoMix2f> pool = new ArrayList<>();
+	/** The pool this mix object belongs to, {@code null} if not pooled. */
+	private final VoicePool<StereoMix2f> pool;
+	
+	/** The priority of this mix object. */
+	private int priority;
 	
 	/** The identifier of this mix object. */
 	private int id;
@@ -35,9 +36,15 @@ public final class StereoMix2f implements Mix2f {
 	/** The pitch multiplier. */
 	private float pitch;
 	
-	/** The audio samples. */
+	/** The audio samples, {@code null} if playing mapped samples. */
 	private float[] data;
 	
+	/** The audio samples within a mapped cache file, or {@code null}. */
+	private MappedSamples mapped;
+	
+	/** The number of samples. */
+	private int length;
+	
 	/** The gain factor for the left channel. */
 	private float leftGain;
 	
@@ -76,38 +83,138 @@ public final class StereoMix2f implements Mix2f {
 	
 
 	/**
-	 * Obtains an instance of this mix object.
+	 * Obtains an instance of this mix object. The returned instance does not
+	 * belong to a pool, use {@link #createPool(int)} to avoid allocating memory
+	 * whenever a sound is played.
 	 * 
+	 * @param id
+	 *            the identifier of the mix object
 	 * @param data
 	 *            the sample data as singed float value
 	 * @return the instance of the mix object
 	 */
 	public static StereoMix2f obtain(int id, float[] data) {
-		assert data.length % 2 == 0;
-		
-		StereoMix2f result;
-		if (pool.isEmpty()) {
-			result = new StereoMix2f();
-		} else {
-			result = pool.remove(pool.size() - 1);
-		}
-		
-		result.id = id;
-		result.data = data;
-		result.pos = result.loopStart = 0.0f;
-		result.volume = result.leftGain = result.rightGain = result.pitch = 1.0f;
-		result.panning = 0.0f;
-		result.endPos = result.loopEnd = (data.length >> 1) - 1;
-		result.switchState(result.playOnce);
-		return result;
+		return new StereoMix2f(null).init(id, data);
+	}
+	
+	/**
+	 * Obtains an instance of this mix object from the specified pool.
+	 * 
+	 * @param pool
+	 *            the pool to take the instance from
+	 * @param id
+	 *            the identifier of the mix object
+	 * @param data
+	 *            the sample data as singed float value
+	 * @return the instance of the mix object or {@code null} if all instances
+	 *         of the pool are in use
+	 */
+	static StereoMix2f obtain(VoicePool<StereoMix2f> pool, int id, float[] data) {
+		StereoMix2f result = pool.obtain();
+		return result != null ? result.init(id, data) : null;
+	}
+	
+	/**
+	 * Obtains an instance of this mix object from the specified pool, which
+	 * plays samples stored within a mapped cache file.
+	 * 
+	 * @param pool
+	 *            the pool to take the instance from
+	 * @param id
+	 *            the identifier of the mix object
+	 * @param data
+	 *            the mapped sample data
+	 * @return the instance of the mix object or {@code null} if all instances
+	 *         of the pool are in use
+	 */
+	static StereoMix2f obtain(VoicePool<StereoMix2f> pool, int id, MappedSamples data) {
+		StereoMix2f result = pool.obtain();
+		return result != null ? result.init(id, data) : null;
+	}
+	
+	/**
+	 * Creates a pool of preallocated instances of this mix object.
+	 * 
+	 * @param capacity
+	 *            the number of instances
+	 * @return the newly created pool
+	 */
+	static VoicePool<StereoMix2f> createPool(int capacity) {
+		return new VoicePool<>(capacity, StereoMix2f::new);
+	}
+	
+	/**
+	 * Initializes this mix object for playback.
+	 * 
+	 * @param id
+	 *            the identifier of the mix object
+	 * @param data
+	 *            the sample data as singed float value
+	 * @return reference to this mix object for method chaining
+	 */
+	private StereoMix2f init(int id, float[] data) {
+		this.data = data;
+		return init(id, data.length);
+	}
+	
+	/**
+	 * Initializes this mix object for playback of mapped samples.
+	 * 
+	 * @param id
+	 *            the identifier of the mix object
+	 * @param data
+	 *            the mapped sample data
+	 * @return reference to this mix object for method chaining
+	 */
+	private StereoMix2f init(int id, MappedSamples data) {
+		this.mapped = data;
+		return init(id, data.length());
+	}
+	
+	/**
+	 * Initializes the playback parameters of this mix object.
+	 * 
+	 * @param id
+	 *            the identifier of the mix object
+	 * @param length
+	 *            the number of samples
+	 * @return reference to this mix object for method chaining
+	 */
+	private StereoMix2f init(int id, int length) {
+		assert length % 2 == 0;
+		
+		this.id = id;
+		this.length = length;
+		pos = loopStart = 0.0f;
+		volume = leftGain = rightGain = pitch = 1.0f;
+		panning = 0.0f;
+		endPos = loopEnd = (length >> 1) - 1;
+		priority = 0;
+		switchState(playOnce);
+		return this;
 	}
 	
 	/**
 	 * Creates a new instance. Deliberately made private.
+	 * 
+	 * @param pool
+	 *            the pool the new instance belongs to or {@code null}
 	 */
-	private StereoMix2f() {
+	private StereoMix2f(VoicePool<StereoMix2f> pool) {
+		this.pool = pool;
 		reset();
 	}
+	
+	/**
+	 * Returns the sample at the specified index.
+	 * 
+	 * @param idx
+	 *            the index of the sample
+	 * @return the sample value
+	 */
+	private float sampleAt(int idx) {
+		return data != null ? data[idx] : mapped.get(idx);
+	}
 			
 	/**
 	 * Returns the actual sample of the left channel.
@@ -141,6 +248,7 @@ public final class StereoMix2f implements Mix2f {
 	private void reset() {
 		id = Audio.INVALID_HANDLE;
 		data = null;
+		mapped = null;
 		switchState(end);
 	}
 	
@@ -190,6 +298,11 @@ public final class StereoMix2f implements Mix2f {
 		return curState.hasData();
 	}
 	
+	@Override
+	public int render(float[] out, int offset, int frames, float gain) {
+		return curState.render(out, offset, frames, gain);
+	}
+	
 	@Override
 	public int getId() {
 		return id;
@@ -253,10 +366,22 @@ public final class StereoMix2f implements Mix2f {
 		curState.fadeOut(n);
 	}
 	
+	@Override
+	public void setPriority(int p) {
+		priority = p;
+	}
+	
+	@Override
+	public int getPriority() {
+		return priority;
+	}
+	
 	@Override
 	public void free() {
 		reset();
-		pool.add(this);
+		if (pool != null) {
+			pool.release(this);
+		}
 	}
 	
 	/////////////////////////////////////////////////
@@ -272,6 +397,7 @@ public final class StereoMix2f implements Mix2f {
 		public float getChannel2();
 		public void fadeOut(int numSamples);
 		public void setLooping(boolean b);
+		public int render(float[] out, int offset, int frames, float gain);
 	}
 	
 	private abstract class LipState implements State {
@@ -293,12 +419,12 @@ public final class StereoMix2f implements Mix2f {
 			float np = 1.0f - p;
 			idx <<= 1;
 			
-			if (idx + 2 < data.length) {
-				sample1 = data[idx] * np + data[idx + 2] * p;
-				sample2 = data[idx + 1] * np + data[idx + 3] * p;
+			if (idx + 2 < length) {
+				sample1 = sampleAt(idx) * np + sampleAt(idx + 2) * p;
+				sample2 = sampleAt(idx + 1) * np + sampleAt(idx + 3) * p;
 			} else {
-				sample1 = data[idx] * np;
-				sample2 = data[idx + 1] * np;
+				sample1 = sampleAt(idx) * np;
+				sample2 = sampleAt(idx + 1) * np;
 			}
 		}
 		
@@ -335,12 +461,12 @@ public final class StereoMix2f implements Mix2f {
 			
 			assert pos < loopEnd + 1;
 			if (pos < loopEnd) {
-				sample1 = data[idx] * np + data[idx + 2] * p;
-				sample2 = data[idx + 1] * np + data[idx + 3] * p;
+				sample1 = sampleAt(idx) * np + sampleAt(idx + 2) * p;
+				sample2 = sampleAt(idx + 1) * np + sampleAt(idx + 3) * p;
 			} else {
-				int idx2 = (int) loopStart;
-				sample1 = data[idx] * np + data[idx2] * p;
-				sample2 = data[idx + 1] * np + data[idx2 + 1] * p;
+				int idx2 = (int) loopStart << 1;
+				sample1 = sampleAt(idx) * np + sampleAt(idx2) * p;
+				sample2 = sampleAt(idx + 1) * np + sampleAt(idx2 + 1) * p;
 			}			
 			
 		}
@@ -398,6 +524,107 @@ public final class StereoMix2f implements Mix2f {
 			switchState(fadeOut.numSamples(numSamples));
 		}
 		
+		@Override
+		public int render(float[] out, int offset, int frames, float gain) {
+			float gl = gain * volume * leftGain;
+			float gr = gain * volume * rightGain;
+			int n;
+			if (pitch == 1.0f && pos == (int) pos) {
+				n = data != null
+						? renderUnpitched(out, offset, frames, gl, gr)
+						: renderMappedUnpitched(out, offset, frames, gl, gr);
+			} else {
+				n = data != null
+						? renderPitched(out, offset, frames, gl, gr)
+						: renderMappedPitched(out, offset, frames, gl, gr);
+			}
+			
+			if (pos >= endPos) {
+				switchState(end);
+			} else {
+				updateSamples();
+			}
+			return n;
+		}
+		
+		private int renderUnpitched(float[] out, int offset, int frames, float gl, float gr) {
+			int idx = (int) pos;
+			int n = Math.min(frames, Math.max(1, (int) endPos - idx));
+			for (int i = 0, j = offset, k = idx << 1; i < n; ++i) {
+				out[j++] += data[k++] * gl;
+				out[j++] += data[k++] * gr;
+			}
+			pos += n;
+			return n;
+		}
+
+		private int renderPitched(float[] out, int offset, int frames, float gl, float gr) {
+			float p = pos;
+			int n = 0;
+			for (int j = offset; n < frames; ) {
+				int idx = (int) p;
+				float t = p - idx;
+				float nt = 1.0f - t;
+				idx <<= 1;
+				
+				if (idx + 2 < data.length) {
+					out[j++] += (data[idx] * nt + data[idx + 2] * t) * gl;
+					out[j++] += (data[idx + 1] * nt + data[idx + 3] * t) * gr;
+				} else {
+					out[j++] += data[idx] * nt * gl;
+					out[j++] += data[idx + 1] * nt * gr;
+				}
+				++n;
+				
+				p += pitch;
+				if (p >= endPos) {
+					break;
+				}
+			}
+			pos = p;
+			return n;
+		}
+		
+		private int renderMappedUnpitched(float[] out, int offset, int frames, float gl, float gr) {
+			MappedSamples m = mapped;
+			int idx = (int) pos;
+			int n = Math.min(frames, Math.max(1, (int) endPos - idx));
+			for (int i = 0, j = offset, k = idx << 1; i < n; ++i) {
+				out[j++] += m.get(k++) * gl;
+				out[j++] += m.get(k++) * gr;
+			}
+			pos += n;
+			return n;
+		}
+		
+		private int renderMappedPitched(float[] out, int offset, int frames, float gl, float gr) {
+			MappedSamples m = mapped;
+			float p = pos;
+			int n = 0;
+			for (int j = offset; n < frames; ) {
+				int idx = (int) p;
+				float t = p - idx;
+				float nt = 1.0f - t;
+				idx <<= 1;
+				
+				if (idx + 2 < length) {
+					out[j++] += (m.get(idx) * nt + m.get(idx + 2) * t) * gl;
+					out[j++] += (m.get(idx + 1) * nt + m.get(idx + 3) * t) * gr;
+				} else {
+					out[j++] += m.get(idx) * nt * gl;
+					out[j++] += m.get(idx + 1) * nt * gr;
+				}
+				++n;
+				
+				p += pitch;
+				if (p >= endPos) {
+					break;
+				}
+			}
+			pos = p;
+			return n;
+		}
+		
 	}
 	
 	private class LoopState extends LipLoopState {
@@ -443,6 +670,67 @@ public final class StereoMix2f implements Mix2f {
 			switchState(fadeOutLoop.numSamples(numSamples));
 		}
 		
+		@Override
+		public int render(float[] out, int offset, int frames, float gain) {
+			assert loopEnd <= endPos;
+			float gl = gain * volume * leftGain;
+			float gr = gain * volume * rightGain;
+			if (data == null) {
+				renderMapped(out, offset, frames, gl, gr);
+			} else {
+				renderArray(out, offset, frames, gl, gr);
+			}
+			updateSamples();
+			return frames;
+		}
+		
+		private void renderArray(float[] out, int offset, int frames, float gl, float gr) {
+			float wrap = loopEnd + 1.0f;
+			int first = (int) loopStart << 1;
+			float p = pos;
+			
+			for (int i = 0, j = offset; i < frames; ++i) {
+				int idx = (int) p;
+				float t = p - idx;
+				float nt = 1.0f - t;
+				idx <<= 1;
+				int next = p < loopEnd ? idx + 2 : first;
+				
+				out[j++] += (data[idx] * nt + data[next] * t) * gl;
+				out[j++] += (data[idx + 1] * nt + data[next + 1] * t) * gr;
+				
+				p += pitch;
+				if (p >= wrap) {
+					p = loopStart + (p - wrap);
+				}
+			}
+			pos = p;
+		}
+		
+		private void renderMapped(float[] out, int offset, int frames, float gl, float gr) {
+			MappedSamples m = mapped;
+			float wrap = loopEnd + 1.0f;
+			int first = (int) loopStart << 1;
+			float p = pos;
+			
+			for (int i = 0, j = offset; i < frames; ++i) {
+				int idx = (int) p;
+				float t = p - idx;
+				float nt = 1.0f - t;
+				idx <<= 1;
+				int next = p < loopEnd ? idx + 2 : first;
+				
+				out[j++] += (m.get(idx) * nt + m.get(next) * t) * gl;
+				out[j++] += (m.get(idx + 1) * nt + m.get(next + 1) * t) * gr;
+				
+				p += pitch;
+				if (p >= wrap) {
+					p = loopStart + (p - wrap);
+				}
+			}
+			pos = p;
+		}
+		
 	}
 	
 	private class FadeOutState extends LipState {
@@ -507,6 +795,22 @@ public final class StereoMix2f implements Mix2f {
 			// ignore
 		}
 		
+		@Override
+		public int render(float[] out, int offset, int frames, float gain) {
+			// fades are short, process them frame by frame
+			for (int i = 0, j = offset; i < frames; ) {
+				out[j++] += getChannel1() * gain;
+				out[j++] += getChannel2() * gain;
+				++i;
+				
+				nextData();
+				if (curState == end) {
+					return i;
+				}
+			}
+			return frames;
+		}
+		
 	}
 	
 	private class FadeOutLoopState extends LipLoopState {
@@ -579,6 +883,22 @@ public final class StereoMix2f implements Mix2f {
 			// ignore
 		}
 		
+		@Override
+		public int render(float[] out, int offset, int frames, float gain) {
+			// fades are short, process them frame by frame
+			for (int i = 0, j = offset; i < frames; ) {
+				out[j++] += getChannel1() * gain;
+				out[j++] += getChannel2() * gain;
+				++i;
+				
+				nextData();
+				if (curState == end) {
+					return i;
+				}
+			}
+			return frames;
+		}
+		
 	}
 	
 	
@@ -624,6 +944,11 @@ public final class StereoMix2f implements Mix2f {
 			// ignore
 		}
 		
+		@Override
+		public int render(float[] out, int offset, int frames, float gain) {
+			return 0;
+		}
+		
 	}
 
 }
@@ -0,0 +1,276 @@
+/*******************************************************************************
+ * Copyright (c) 2016 - 2018 Roman Divotkey,
+ * Univ. of Applied Sciences Upper Austria. 
+ * All rights reserved.
+ *   
+ * This file is subject to the terms and conditions defined in file
+ * 'LICENSE', which is part of this source code package.
+ *    
+ * THIS CODE IS PROVIDED AS EDUCATIONAL MATERIAL AND NOT INTENDED TO ADDRESS
+ * ALL REAL WORLD PROBLEMS AND ISSUES IN DETAIL.
+ *******************************************************************************/
+package at.fhooe.mtd.sgl.audio;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+/**
+ * Decodes an audio file in chunks into a ring buffer.
+ * <p>
+ * The decoder is the producing side of a single-producer, single-consumer ring
+ * buffer holding two-channel frames. It is driven by the {@link AudioStreamer}
+ * thread, the frames are consumed by a {@link StreamMix2f} on the mixing
+ * thread. The memory used by a decoder does not depend on the length of the
+ * audio file. Loop boundaries and seek requests are handled by reopening or
+ * skipping the audio stream.
+ * </p>
+ */
+final class StreamDecoder {
+
+	/** The number of frames the ring buffer can hold, must be a power of two. */
+	public static final int RING_FRAMES = 1 << 15;
+
+	/** Used to compute positions within the ring buffer. */
+	public static final int RING_MASK = RING_FRAMES - 1;
+
+	/** The number of frames decoded at once. */
+	private static final int CHUNK_FRAMES = 4096;
+
+	/** Used to convert short values to floats. */
+	private static final float SHORT_TO_FLOAT = 1.0f / Short.MAX_VALUE;
+
+	/** The interleaved two-channel frames. */
+	final float[] ring = new float[RING_FRAMES * 2];
+
+	/** The number of frames written to the ring buffer, written by the producer. */
+	final AtomicLong writePos = new AtomicLong();
+
+	/** The number of frames read from the ring buffer, written by the consumer. */
+	final AtomicLong readPos = new AtomicLong();
+
+	/** Frames written before this position are outdated due to seeking. */
+	volatile long skipTo;
+
+	/** Whether a seek request has not yet been carried out. */
+	volatile boolean seekPending;
+
+	/** Whether all frames have been written to the ring buffer. */
+	volatile boolean eof;
+
+	/** Whether the loop region should be repeated. */
+	volatile boolean looping;
+
+	/** The first frame of the loop region. */
+	volatile long loopStart;
+
+	/** The last frame of the loop region. */
+	volatile long loopEnd;
+
+	/** Whether the consumer has released this decoder. */
+	volatile boolean closed;
+
+	/** The frame to seek to, negative if no seek is requested. */
+	private final AtomicLong seekRequest = new AtomicLong(-1);
+
+	/** The location of the audio file. */
+	private final URL url;
+
+	/** The total number of frames of the audio file. */
+	private final long numFrames;
+
+	/** The audio stream currently decoded. */
+	private AudioInputStream ais;
+
+	/** The number of channels of the audio stream. */
+	private int numChannels;
+
+	/** The frame position of the audio stream. */
+	private long position;
+
+	/** Holds a chunk of raw audio data. */
+	private byte[] bytes;
+
+	/**
+	 * Creates a new instance.
+	 * 
+	 * @param url
+	 *            the location of the audio file
+	 * @param numFrames
+	 *            the total number of frames of the audio file
+	 */
+	public StreamDecoder(URL url, long numFrames) {
+		this.url = url;
+		this.numFrames = numFrames;
+		loopEnd = numFrames - 1;
+	}
+
+	/**
+	 * Opens the specified audio file as stream of signed 16 bit samples.
+	 * 
+	 * @param url
+	 *            the location of the audio file
+	 * @return the audio stream
+	 * @throws IOException
+	 *             in case of an IO error while opening the audio file
+	 * @throws UnsupportedAudioFileException
+	 *             if the audio format is not supported
+	 */
+	public static AudioInputStream open(URL url) throws IOException, UnsupportedAudioFileException {
+		AudioInputStream src = AudioSystem.getAudioInputStream(url);
+		AudioFormat f = src.getFormat();
+		AudioFormat target = new AudioFormat(f.getSampleRate(), 16, f.getChannels(), true, false);
+		if (f.matches(target)) {
+			return src;
+		}
+
+		try {
+			return AudioSystem.getAudioInputStream(target, src);
+		} catch (IllegalArgumentException e) {
+			src.close();
+			throw new UnsupportedAudioFileException("unable to convert audio format " + f);
+		}
+	}
+
+	/**
+	 * Requests to continue decoding at the specified frame. This method is
+	 * called by the consumer.
+	 * 
+	 * @param frame
+	 *            the frame position
+	 */
+	public void seek(long frame) {
+		seekPending = true;
+		seekRequest.set(Math.max(0, Math.min(frame, numFrames - 1)));
+	}
+
+	/**
+	 * Decodes the next chunk of frames if there is enough space within the
+	 * ring buffer. This method is called by the producer.
+	 * 
+	 * @return {@code true} if frames have been decoded
+	 */
+	public boolean fill() {
+		try {
+			long seek = seekRequest.getAndSet(-1);
+			if (seek >= 0) {
+				reposition(seek);
+				eof = false;
+				skipTo = writePos.get();
+				seekPending = false;
+			}
+
+			if (eof) {
+				return false;
+			}
+
+			long w = writePos.get();
+			int free = (int) (RING_FRAMES - (w - readPos.get()));
+			if (free < CHUNK_FRAMES) {
+				return false;
+			}
+
+			boolean loop = looping;
+			long limit = loop ? Math.min(loopEnd + 1, numFrames) : numFrames;
+			if (ais == null || position >= limit) {
+				if (ais != null && !loop) {
+					eof = true;
+					return false;
+				}
+				reposition(ais == null ? 0 : loopStart);
+			}
+
+			int n = readFrames((int) Math.min(CHUNK_FRAMES, limit - position));
+			if (n <= 0) {
+				// audio file is shorter than announced
+				eof = true;
+				return false;
+			}
+			convert(n, w);
+			position += n;
+			writePos.lazySet(w + n);
+			return true;
+		} catch (IOException | UnsupportedAudioFileException e) {
+			System.err.println("unable to decode audio stream " + url + ": " + e.getMessage());
+			eof = true;
+			return false;
+		}
+	}
+
+	/**
+	 * Closes the audio stream of this decoder. This method is called by the
+	 * producer.
+	 */
+	public void close() {
+		if (ais != null) {
+			try {
+				ais.close();
+			} catch (IOException e) {
+				// ignore, nothing left to do
+			}
+			ais = null;
+		}
+	}
+
+	private void reposition(long frame) throws IOException, UnsupportedAudioFileException {
+		if (ais == null || frame < position) {
+			close();
+			ais = open(url);
+			numChannels = ais.getFormat().getChannels();
+			int chunkBytes = CHUNK_FRAMES * ais.getFormat().getFrameSize();
+			if (bytes == null || bytes.length != chunkBytes) {
+				bytes = new byte[chunkBytes];
+			}
+			position = 0;
+		}
+
+		long toSkip = (frame - position) * ais.getFormat().getFrameSize();
+		while (toSkip > 0) {
+			long n = ais.skip(toSkip);
+			if (n <= 0) {
+				// some streams do not support skipping, read instead
+				n = ais.read(bytes, 0, (int) Math.min(bytes.length, toSkip));
+				if (n < 0) {
+					break;
+				}
+			}
+			toSkip -= n;
+		}
+		position = frame;
+	}
+
+	private int readFrames(int n) throws IOException {
+		int frameSize = ais.getFormat().getFrameSize();
+		int len = n * frameSize;
+		int off = 0;
+		while (off < len) {
+			int r = ais.read(bytes, off, len - off);
+			if (r < 0) {
+				break;
+			}
+			off += r;
+		}
+		return off / frameSize;
+	}
+
+	private void convert(int n, long w) {
+		for (int i = 0, j = 0; i < n; ++i) {
+			int idx = (int) ((w + i) & RING_MASK) << 1;
+			float s1 = (short) (bytes[j + 1] << 8 | bytes[j] & 0xff) * SHORT_TO_FLOAT;
+			j += 2;
+			if (numChannels == 1) {
+				ring[idx] = ring[idx + 1] = s1;
+			} else {
+				ring[idx] = s1;
+				ring[idx + 1] = (short) (bytes[j + 1] << 8 | bytes[j] & 0xff) * SHORT_TO_FLOAT;
+				j += 2 * (numChannels - 1);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,312 @@
+/*******************************************************************************
+ * Copyright (c) 2016 - 2018 Roman Divotkey,
+ * Univ. of Applied Sciences Upper Austria. 
+ * All rights reserved.
+ *   
+ * This file is subject to the terms and conditions defined in file
+ * 'LICENSE', which is part of this source code package.
+ *    
+ * THIS CODE IS PROVIDED AS EDUCATIONAL MATERIAL AND NOT INTENDED TO ADDRESS
+ * ALL REAL WORLD PROBLEMS AND ISSUES IN DETAIL.
+ *******************************************************************************/
+package at.fhooe.mtd.sgl.audio;
+
+/**
+ * Mixes two-channel audio data streamed from an audio file.
+ * <p>
+ * The frames are taken from the ring buffer of a {@link StreamDecoder} and
+ * interpolated linearly to account for pitch and differing sample rates. If
+ * the decoder falls behind, silence is rendered until new frames are
+ * available. Streamed mix objects are not pooled, they are created whenever a
+ * streamed sound is played.
+ * </p>
+ */
+public final class StreamMix2f implements Mix2f {
+
+	/** The identifier of this mix object. */
+	private final int id;
+
+	/** The decoder producing the frames. */
+	private final StreamDecoder decoder;
+
+	/** The sample rate of the audio file. */
+	private final float sampleRate;
+
+	/** The ratio of the audio file's sample rate to the output sample rate. */
+	private final float rateRatio;
+
+	/** The number of frames consumed from the ring buffer. */
+	private long readPos;
+
+	/** The number of frames known to be available in the ring buffer. */
+	private long availablePos;
+
+	/** The position between the current and the next frame. */
+	private float frac = 2.0f;
+
+	/** The current frame. */
+	private float cur1, cur2;
+
+	/** The next frame. */
+	private float next1, next2;
+
+	/** The most recent frame rendered by {@link #nextData()}. */
+	private final float[] frame = new float[2];
+
+	/** The pitch multiplier. */
+	private float pitch = 1.0f;
+
+	/** The volume of this mix object. */
+	private float volume = 1.0f;
+
+	/** The panning for this sound [-1, 1]. */
+	private float panning;
+
+	/** The gain factor for the left channel. */
+	private float leftGain = 1.0f;
+
+	/** The gain factor for the right channel. */
+	private float rightGain = 1.0f;
+
+	/** The priority of this mix object. */
+	private int priority;
+
+	/** Remaining samples for fade-out, zero if not fading out. */
+	private int fadeSamples;
+
+	/** Determines how much to reduce the volume each sample. */
+	private float deltaVolume;
+
+	/** Whether the playback has ended. */
+	private boolean ended;
+
+	/**
+	 * Creates a new instance.
+	 * 
+	 * @param id
+	 *            the identifier of the mix object
+	 * @param decoder
+	 *            the decoder producing the frames
+	 * @param sampleRate
+	 *            the sample rate of the audio file
+	 * @param outputRate
+	 *            the sample rate of the audio output
+	 */
+	StreamMix2f(int id, StreamDecoder decoder, float sampleRate, float outputRate) {
+		this.id = id;
+		this.decoder = decoder;
+		this.sampleRate = sampleRate;
+		this.rateRatio = sampleRate / outputRate;
+	}
+
+	/**
+	 * Moves to the next frame of the ring buffer.
+	 * 
+	 * @return {@code true} if a frame was available
+	 */
+	private boolean fetch() {
+		if (readPos == availablePos) {
+			availablePos = decoder.writePos.get();
+			if (readPos == availablePos) {
+				return false;
+			}
+		}
+
+		int idx = (int) (readPos & StreamDecoder.RING_MASK) << 1;
+		cur1 = next1;
+		cur2 = next2;
+		next1 = decoder.ring[idx];
+		next2 = decoder.ring[idx + 1];
+		++readPos;
+		return true;
+	}
+
+	/**
+	 * Determines whether the decoder has delivered all frames.
+	 * 
+	 * @return {@code true} if the end of the stream has been reached
+	 */
+	private boolean isEndOfStream() {
+		// end-of-file flag is set after the last frame has been published
+		return decoder.eof && readPos == decoder.writePos.get() && !decoder.seekPending;
+	}
+
+	private void updatePanning() {
+		if (panning == 0) {
+			leftGain = rightGain = 1.0f;
+		} else if (panning > 0) {
+			leftGain = (float) (1.0 - panning / 1.0);
+			rightGain = 1.0f;
+		} else {
+			leftGain = 1.0f;
+			rightGain = (float) (1.0 + panning / 1.0);
+		}
+	}
+
+	/////////////////////////////////////////////////
+	/////// Interface Mix2f
+	/////////////////////////////////////////////////
+
+	@Override
+	public float getChannel1() {
+		return frame[0];
+	}
+
+	@Override
+	public float getChannel2() {
+		return frame[1];
+	}
+
+	@Override
+	public void nextData() {
+		frame[0] = frame[1] = 0.0f;
+		render(frame, 0, 1, 1.0f);
+	}
+
+	@Override
+	public boolean hasData() {
+		return !ended;
+	}
+
+	@Override
+	public int render(float[] out, int offset, int frames, float gain) {
+		if (ended) {
+			return 0;
+		}
+		if (decoder.seekPending) {
+			// render silence until the decoder continues at the new position
+			return frames;
+		}
+
+		long skip = decoder.skipTo;
+		if (readPos < skip) {
+			readPos = availablePos = skip;
+			frac = 2.0f;
+		}
+
+		float step = pitch * rateRatio;
+		for (int i = 0, j = offset; i < frames; ++i) {
+			while (frac >= 1.0f) {
+				if (!fetch()) {
+					break;
+				}
+				frac -= 1.0f;
+			}
+
+			if (frac >= 1.0f) {
+				if (isEndOfStream()) {
+					ended = true;
+					decoder.readPos.lazySet(readPos);
+					return i;
+				}
+				// decoder is late, leave the rest of the block silent
+				break;
+			}
+
+			float g = gain * volume;
+			out[j++] += (cur1 + (next1 - cur1) * frac) * g * leftGain;
+			out[j++] += (cur2 + (next2 - cur2) * frac) * g * rightGain;
+			frac += step;
+
+			if (fadeSamples > 0) {
+				volume = Math.max(0.0f, volume - deltaVolume);
+				if (--fadeSamples == 0) {
+					stop();
+					decoder.readPos.lazySet(readPos);
+					return i + 1;
+				}
+			}
+		}
+
+		decoder.readPos.lazySet(readPos);
+		return frames;
+	}
+
+	@Override
+	public int getId() {
+		return id;
+	}
+
+	@Override
+	public float getVolume() {
+		return volume;
+	}
+
+	@Override
+	public void setVolume(float v) {
+		volume = v;
+	}
+
+	@Override
+	public void setPanning(float p) {
+		assert p >= -1.0f && p <= 1.0f;
+		panning = p;
+		updatePanning();
+	}
+
+	@Override
+	public float getPanning() {
+		return panning;
+	}
+
+	@Override
+	public void setPitch(float p) {
+		assert p > 0.0f;
+		pitch = p;
+	}
+
+	@Override
+	public float getPitch() {
+		return pitch;
+	}
+
+	@Override
+	public void setLoopStart(float pos) {
+		decoder.loopStart = (long) pos;
+	}
+
+	@Override
+	public void setLoopEnd(float pos) {
+		decoder.loopEnd = (long) pos;
+	}
+
+	@Override
+	public void setLooping(boolean b) {
+		decoder.looping = b;
+	}
+
+	@Override
+	public void seek(float t) {
+		decoder.seek((long) (t * sampleRate));
+	}
+
+	@Override
+	public void setPriority(int p) {
+		priority = p;
+	}
+
+	@Override
+	public int getPriority() {
+		return priority;
+	}
+
+	@Override
+	public void stop() {
+		ended = true;
+	}
+
+	@Override
+	public void fadeOut(int n) {
+		if (fadeSamples == 0 && n > 0) {
+			fadeSamples = n;
+			deltaVolume = volume / n;
+		}
+	}
+
+	@Override
+	public void free() {
+		ended = true;
+		decoder.closed = true;
+	}
+
+}
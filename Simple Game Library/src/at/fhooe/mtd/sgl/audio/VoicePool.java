@@ -0,0 +1,186 @@
+/*******************************************************************************
+ * Copyright (c) 2016 - 2018 Roman Divotkey,
+ * Univ. of Applied Sciences Upper Austria. 
+ * All rights reserved.
+ *   
+ * This file is subject to the terms and conditions defined in file
+ * 'LICENSE', which is part of this source code package.
+ *    
+ * THIS CODE IS PROVIDED AS EDUCATIONAL MATERIAL AND NOT INTENDED TO ADDRESS
+ * ALL REAL WORLD PROBLEMS AND ISSUES IN DETAIL.
+ *******************************************************************************/
+package at.fhooe.mtd.sgl.audio;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+
+/**
+ * A bounded pool of preallocated mix objects.
+ * <p>
+ * All mix objects are created when the pool is created, obtaining and
+ * releasing mix objects never allocates memory. The pool is a lock-free
+ * bounded queue, mix objects can be obtained and released by arbitrary
+ * threads. Typically, mix objects are obtained by the thread running the main
+ * loop and released by the mixing thread.
+ * </p>
+ * 
+ * @param <T>
+ *            the type of the pooled mix objects
+ */
+final class VoicePool<T extends Mix2f> {
+
+	/** The number of mix objects managed by this pool. */
+	private final int capacity;
+
+	/** Used to compute slot indices, the number of slots is a power of two. */
+	private final int mask;
+
+	/** The slots holding the mix objects currently available. */
+	private final Object[] slots;
+
+	/** The sequence numbers used to coordinate access to the slots. */
+	private final AtomicLongArray sequences;
+
+	/** Position of the next mix object to be obtained. */
+	private final AtomicLong head = new AtomicLong();
+
+	/** Position of the next mix object to be released. */
+	private final AtomicLong tail = new AtomicLong();
+
+	/** The number of mix objects currently in use. */
+	private final AtomicInteger numInUse = new AtomicInteger();
+
+	/** The largest number of mix objects in use at the same time. */
+	private final AtomicInteger highWaterMark = new AtomicInteger();
+
+	/** The number of failed attempts to obtain a mix object. */
+	private final AtomicLong numRejected = new AtomicLong();
+
+	/**
+	 * Creates a new instance.
+	 * 
+	 * @param capacity
+	 *            the number of mix objects to create
+	 * @param factory
+	 *            creates a mix object belonging to this pool
+	 * @throws IllegalArgumentException
+	 *             if the capacity is less than one
+	 */
+	public VoicePool(int capacity, Function<VoicePool<T>, T> factory) throws IllegalArgumentException {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("capacity must be at least one, got " + capacity);
+		}
+		this.capacity = capacity;
+
+		// use spare slots, so releasing rarely waits for a pending obtain
+		int numSlots = Integer.highestOneBit(capacity) << 2;
+		mask = numSlots - 1;
+		slots = new Object[numSlots];
+		sequences = new AtomicLongArray(numSlots);
+		for (int i = 0; i < numSlots; ++i) {
+			sequences.set(i, i);
+		}
+
+		for (int i = 0; i < capacity; ++i) {
+			release(factory.apply(this));
+		}
+		numInUse.set(0);
+	}
+
+	/**
+	 * Returns the number of mix objects managed by this pool.
+	 * 
+	 * @return the capacity
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Returns the number of mix objects currently in use.
+	 * 
+	 * @return the number of mix objects obtained but not yet released
+	 */
+	public int getNumInUse() {
+		return numInUse.get();
+	}
+
+	/**
+	 * Returns the largest number of mix objects that have been in use at the
+	 * same time.
+	 * 
+	 * @return the high-water mark
+	 */
+	public int getHighWaterMark() {
+		return highWaterMark.get();
+	}
+
+	/**
+	 * Returns the number of failed attempts to obtain a mix object because
+	 * all mix objects were in use.
+	 * 
+	 * @return the number of rejected requests
+	 */
+	public long getNumRejected() {
+		return numRejected.get();
+	}
+
+	/**
+	 * Obtains a mix object from this pool.
+	 * 
+	 * @return the mix object or {@code null} if all mix objects are in use
+	 */
+	@SuppressWarnings("unchecked")
+	public T obtain() {
+		for (;;) {
+			long h = head.get();
+			int idx = (int) h & mask;
+			long diff = sequences.get(idx) - (h + 1);
+			if (diff == 0) {
+				if (head.compareAndSet(h, h + 1)) {
+					T result = (T) slots[idx];
+					slots[idx] = null;
+					sequences.set(idx, h + mask + 1);
+					updateHighWaterMark(numInUse.incrementAndGet());
+					return result;
+				}
+			} else if (diff < 0) {
+				numRejected.incrementAndGet();
+				return null;
+			}
+		}
+	}
+
+	/**
+	 * Returns a mix object to this pool.
+	 * 
+	 * @param m
+	 *            the mix object to return, must belong to this pool
+	 */
+	public void release(T m) {
+		for (;;) {
+			long t = tail.get();
+			int idx = (int) t & mask;
+			long diff = sequences.get(idx) - t;
+			if (diff == 0) {
+				if (tail.compareAndSet(t, t + 1)) {
+					slots[idx] = m;
+					sequences.set(idx, t + 1);
+					numInUse.decrementAndGet();
+					return;
+				}
+			} else if (diff < 0) {
+				// slot is still being emptied by a concurrent obtain
+				Thread.yield();
+			}
+		}
+	}
+
+	private void updateHighWaterMark(int n) {
+		int hwm;
+		while (n > (hwm = highWaterMark.get()) && !highWaterMark.compareAndSet(hwm, n));
+	}
+
+}
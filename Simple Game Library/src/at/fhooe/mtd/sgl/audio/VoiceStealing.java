@@ -0,0 +1,29 @@
+/*******************************************************************************
+ * Copyright (c) 2016 - 2018 Roman Divotkey,
+ * Univ. of Applied Sciences Upper Austria. 
+ * All rights reserved.
+ *   
+ * This file is subject to the terms and conditions defined in file
+ * 'LICENSE', which is part of this source code package.
+ *    
+ * THIS CODE IS PROVIDED AS EDUCATIONAL MATERIAL AND NOT INTENDED TO ADDRESS
+ * ALL REAL WORLD PROBLEMS AND ISSUES IN DETAIL.
+ *******************************************************************************/
+package at.fhooe.mtd.sgl.audio;
+
+/**
+ * Defines which sound to stop if the maximum number of simultaneously playing
+ * sounds has been reached and another sound should be played.
+ */
+public enum VoiceStealing {
+
+	/** Stops the sound that has been started first. */
+	OLDEST,
+
+	/** Stops the sound with the lowest volume. */
+	QUIETEST,
+
+	/** Stops the sound with the lowest priority, the oldest one on ties. */
+	LOWEST_PRIORITY
+
+}
@@ -0,0 +1,169 @@
+/*******************************************************************************
+ * Copyright (c) 2016 - 2018 Roman Divotkey,
+ * Univ. of Applied Sciences Upper Austria. 
+ * All rights reserved.
+ *   
+ * This file is subject to the terms and conditions defined in file
+ * 'LICENSE', which is part of this source code package.
+ *    
+ * THIS CODE IS PROVIDED AS EDUCATIONAL MATERIAL AND NOT INTENDED TO ADDRESS
+ * ALL REAL WORLD PROBLEMS AND ISSUES IN DETAIL.
+ *******************************************************************************/
+package at.fhooe.mtd.sgl.audio;
+
+/**
+ * Maps identifiers of mix objects to volumes.
+ * <p>
+ * This is a hash table using open addressing with linear probing, primitive
+ * integer keys and primitive float values, see {@link MixTable}. The identifier
+ * {@link Audio#INVALID_HANDLE} is used to mark empty slots and cannot be used
+ * as key. This class is not thread-safe.
+ * </p>
+ */
+final class VolumeTable {
+
+	/** The initial capacity, must be a power of two. */
+	private static final int INITIAL_CAPACITY = 128;
+
+	private int[] keys;
+	private float[] values;
+	private int mask;
+	private int size;
+
+	/**
+	 * Creates a new instance.
+	 */
+	public VolumeTable() {
+		allocate(INITIAL_CAPACITY);
+	}
+
+	/**
+	 * Returns the volume stored for the specified identifier.
+	 *
+	 * @param id
+	 *            the identifier of the mix object
+	 * @return the volume or zero if no volume is stored for the identifier
+	 */
+	public float get(int id) {
+		for (int i = hash(id) & mask; keys[i] != Audio.INVALID_HANDLE; i = (i + 1) & mask) {
+			if (keys[i] == id) {
+				return values[i];
+			}
+		}
+		return 0.0f;
+	}
+
+	/**
+	 * Stores the volume for the specified identifier.
+	 *
+	 * @param id
+	 *            the identifier of the mix object
+	 * @param v
+	 *            the volume
+	 */
+	public void put(int id, float v) {
+		assert id != Audio.INVALID_HANDLE;
+		if (2 * (size + 1) > keys.length) {
+			grow();
+		}
+
+		int i = hash(id) & mask;
+		while (keys[i] != Audio.INVALID_HANDLE && keys[i] != id) {
+			i = (i + 1) & mask;
+		}
+		if (keys[i] == Audio.INVALID_HANDLE) {
+			++size;
+		}
+		keys[i] = id;
+		values[i] = v;
+	}
+
+	/**
+	 * Replaces the volume for the specified identifier, if a volume is stored
+	 * for this identifier.
+	 *
+	 * @param id
+	 *            the identifier of the mix object
+	 * @param v
+	 *            the new volume
+	 */
+	public void replace(int id, float v) {
+		for (int i = hash(id) & mask; keys[i] != Audio.INVALID_HANDLE; i = (i + 1) & mask) {
+			if (keys[i] == id) {
+				values[i] = v;
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Removes the volume stored for the specified identifier.
+	 *
+	 * @param id
+	 *            the identifier of the mix object
+	 */
+	public void remove(int id) {
+		int i = hash(id) & mask;
+		while (keys[i] != id) {
+			if (keys[i] == Audio.INVALID_HANDLE) {
+				return;
+			}
+			i = (i + 1) & mask;
+		}
+		--size;
+
+		// shift subsequent entries back to close the gap
+		for (int j = (i + 1) & mask; keys[j] != Audio.INVALID_HANDLE; j = (j + 1) & mask) {
+			int home = hash(keys[j]) & mask;
+			if (((j - home) & mask) >= ((j - i) & mask)) {
+				keys[i] = keys[j];
+				values[i] = values[j];
+				i = j;
+			}
+		}
+		keys[i] = Audio.INVALID_HANDLE;
+	}
+
+	/**
+	 * Removes all volumes.
+	 */
+	public void clear() {
+		for (int i = 0; i < keys.length; ++i) {
+			keys[i] = Audio.INVALID_HANDLE;
+		}
+		size = 0;
+	}
+
+	/**
+	 * Returns the number of stored volumes.
+	 *
+	 * @return the number of entries
+	 */
+	public int size() {
+		return size;
+	}
+
+	private void allocate(int capacity) {
+		keys = new int[capacity];
+		values = new float[capacity];
+		mask = capacity - 1;
+		size = 0;
+	}
+
+	private void grow() {
+		int[] oldKeys = keys;
+		float[] oldValues = values;
+		allocate(keys.length * 2);
+		for (int i = 0; i < oldKeys.length; ++i) {
+			if (oldKeys[i] != Audio.INVALID_HANDLE) {
+				put(oldKeys[i], oldValues[i]);
+			}
+		}
+	}
+
+	private static int hash(int id) {
+		int h = id * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+}
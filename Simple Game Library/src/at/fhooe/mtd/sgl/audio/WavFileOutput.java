@@ -0,0 +1,178 @@
+/*******************************************************************************
+ * Copyright (c) 2016 - 2018 Roman Divotkey,
+ * Univ. of Applied Sciences Upper Austria. 
+ * All rights reserved.
+ *   
+ * This file is subject to the terms and conditions defined in file
+ * 'LICENSE', which is part of this source code package.
+ *    
+ * THIS CODE IS PROVIDED AS EDUCATIONAL MATERIAL AND NOT INTENDED TO ADDRESS
+ * ALL REAL WORLD PROBLEMS AND ISSUES IN DETAIL.
+ *******************************************************************************/
+package at.fhooe.mtd.sgl.audio;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import javax.sound.sampled.AudioFormat;
+
+/**
+ * An audio output which writes audio data to a WAV file. Audio data is
+ * accepted as fast as it can be written to the file, hence rendering is not
+ * bound to real time. The file is complete after this output has been closed.
+ */
+public class WavFileOutput implements AudioOutput, Closeable {
+
+	/** The size of the RIFF and format headers in bytes. */
+	private static final int HEADER_SIZE = 46;
+
+	/** WAV format tag of integer samples. */
+	private static final short WAVE_FORMAT_PCM = 1;
+
+	/** WAV format tag of floating point samples. */
+	private static final short WAVE_FORMAT_IEEE_FLOAT = 3;
+
+	/** The path of the WAV file. */
+	private final Path path;
+
+	/** The format of the accepted audio data. */
+	private final AudioFormat format;
+
+	/** The buffer size in bytes. */
+	private final int bufferSize;
+
+	/** The stream to write the audio data to. */
+	private OutputStream os;
+
+	/** The number of bytes of audio data written. */
+	private long dataSize;
+
+	/**
+	 * Creates a new instance. An existing file is replaced.
+	 * 
+	 * @param path
+	 *            the path of the WAV file to write
+	 * @param format
+	 *            the format of the audio data, must be little endian
+	 * @param bufferFrames
+	 *            the buffer size in frames
+	 * @throws IOException
+	 *             in case the file could not be created
+	 * @throws IllegalArgumentException
+	 *             if the format cannot be stored in WAV files or the buffer size
+	 *             is less than one
+	 */
+	public WavFileOutput(Path path, AudioFormat format, int bufferFrames)
+			throws IOException, IllegalArgumentException {
+		if (format.isBigEndian() && format.getSampleSizeInBits() > 8) {
+			throw new IllegalArgumentException("wav files require little endian samples, got " + format);
+		}
+		if (bufferFrames < 1) {
+			throw new IllegalArgumentException("invalid buffer size " + bufferFrames);
+		}
+		this.path = path;
+		this.format = format;
+		this.bufferSize = bufferFrames * format.getFrameSize();
+
+		os = new BufferedOutputStream(Files.newOutputStream(path), 1 << 16);
+		os.write(createHeader(0));
+	}
+
+	/**
+	 * Returns the number of bytes of audio data written so far.
+	 * 
+	 * @return the number of bytes written
+	 */
+	public long getDataSize() {
+		return dataSize;
+	}
+
+	@Override
+	public AudioFormat getFormat() {
+		return format;
+	}
+
+	@Override
+	public int getBufferSize() {
+		return bufferSize;
+	}
+
+	@Override
+	public int available() {
+		return bufferSize;
+	}
+
+	@Override
+	public int write(byte[] b, int off, int len) {
+		if (os == null) {
+			throw new IllegalStateException("wav file already closed");
+		}
+		try {
+			os.write(b, off, len);
+		} catch (IOException e) {
+			throw new UncheckedIOException("unable to write wav file " + path, e);
+		}
+		dataSize += len;
+		return len;
+	}
+
+	@Override
+	public boolean isRealTime() {
+		return false;
+	}
+
+	/**
+	 * Completes and closes the WAV file. Closing an already closed output has
+	 * no effect.
+	 * 
+	 * @throws IOException
+	 *             in case the file could not be written
+	 */
+	@Override
+	public void close() throws IOException {
+		if (os == null) {
+			return;
+		}
+		os.close();
+		os = null;
+
+		// now the sizes are known
+		try (FileChannel fc = FileChannel.open(path, StandardOpenOption.WRITE)) {
+			fc.write(ByteBuffer.wrap(createHeader(dataSize)), 0);
+		}
+	}
+
+	private byte[] createHeader(long dataSize) {
+		boolean isFloat = format.getEncoding() == AudioFormat.Encoding.PCM_FLOAT;
+		int rate = (int) format.getSampleRate();
+		int frameSize = format.getFrameSize();
+		int riffSize = (int) Math.min(0xffffffffL, HEADER_SIZE - 8 + dataSize);
+
+		ByteBuffer buf = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		buf.put(new byte[] { 'R', 'I', 'F', 'F' });
+		buf.putInt(riffSize);
+		buf.put(new byte[] { 'W', 'A', 'V', 'E' });
+		buf.put(new byte[] { 'f', 'm', 't', ' ' });
+		buf.putInt(18);
+		buf.putShort(isFloat ? WAVE_FORMAT_IEEE_FLOAT : WAVE_FORMAT_PCM);
+		buf.putShort((short) format.getChannels());
+		buf.putInt(rate);
+		buf.putInt(rate * frameSize);
+		buf.putShort((short) frameSize);
+		buf.putShort((short) format.getSampleSizeInBits());
+		buf.putShort((short) 0);
+		buf.put(new byte[] { 'd', 'a', 't', 'a' });
+		buf.putInt((int) Math.min(0xffffffffL, dataSize));
+		return buf.array();
+	}
+
+}
@@ -15,6 +15,8 @@ import java.awt.DisplayMode;
 import java.awt.Font;
 import java.awt.FontMetrics;
 import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsEnvironment;
 import java.awt.Point;
 import java.awt.event.KeyListener;
 import java.awt.event.MouseListener;
@@ -167,5 +169,12 @@ class ClosedScreen extends ScreenState {
 	public void setTitle(String title) {
 		// ignore
 	}
+
+	@Override
+	public GraphicsConfiguration getGraphicsConfiguration() {
+		return GraphicsEnvironment.getLocalGraphicsEnvironment()
+				.getDefaultScreenDevice()
+				.getDefaultConfiguration();
+	}
     
 }
\ No newline at end of file
@@ -0,0 +1,125 @@
+/*******************************************************************************
+ * Copyright (c) 2016 - 2018 Roman Divotkey,
+ * Univ. of Applied Sciences Upper Austria. 
+ * All rights reserved.
+ *   
+ * This file is subject to the terms and conditions defined in file
+ * 'LICENSE', which is part of this source code package.
+ *    
+ * THIS CODE IS PROVIDED AS EDUCATIONAL MATERIAL AND NOT INTENDED TO ADDRESS
+ * ALL REAL WORLD PROBLEMS AND ISSUES IN DETAIL.
+ *******************************************************************************/
+package at.fhooe.mtd.sgl.graphics.screen;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Decouples rendering of frames from presenting them on the screen.
+ * <p>
+ * Frames are rendered by the application thread into off-screen images. A
+ * finished frame is handed over to a dedicated render thread, which copies it
+ * into the back buffer of the screen and presents it. The hand-over uses a
+ * triple buffer, hence neither thread ever waits for the other one: the
+ * application thread always has an image to render into and the render thread
+ * always presents the most recently finished frame.
+ * </p>
+ */
+class FramePipeline implements Runnable {
+
+    /** Number of images used by the triple buffer. */
+    private static final int NUM_IMAGES = 3;
+    
+    /** Flag marking the ready image as not yet presented. */
+    private static final int NEW_FRAME = 4;
+    
+    /** Mask used to extract the index of the ready image. */
+    private static final int INDEX_MASK = 3;
+    
+    private final Screen screen;
+    private final BufferedImage[] images = new BufferedImage[NUM_IMAGES];
+    
+    /** The graphics configurations the images are compatible with. */
+    private final GraphicsConfiguration[] configs = new GraphicsConfiguration[NUM_IMAGES];
+    
+    /** Index of the image finished most recently, plus new frame flag. */
+    private final AtomicInteger ready = new AtomicInteger(1);
+    
+    /** Index of the image the application thread renders into. */
+    private int back = 0;
+    
+    /** Index of the image the render thread presents. */
+    private int front = 2;
+    
+    private Graphics2D g2d;
+    private volatile boolean running;
+    private Thread thread;
+    
+    public FramePipeline(Screen screen) {
+        this.screen = screen;
+    }
+    
+    public void start() {
+        assert thread == null : "pipeline already started";
+        running = true;
+        thread = new Thread(this, "SGL Render Thread");
+        thread.setDaemon(true);
+        thread.start();
+    }
+    
+    public void stop() {
+        if (thread == null) return;
+        running = false;
+        LockSupport.unpark(thread);
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        thread = null;
+    }
+    
+    public Graphics2D beginFrame(int width, int height, Color clearColor) {
+        assert g2d == null : "call beginFrame() out of sequence";
+        BufferedImage img = images[back];
+        GraphicsConfiguration gc = screen.getGraphicsConfiguration();
+        if (img == null || img.getWidth() != width || img.getHeight() != height || configs[back] != gc) {
+            img = images[back] = gc.createCompatibleImage(width, height);
+            configs[back] = gc;
+        }
+        
+        g2d = img.createGraphics();
+        g2d.setBackground(clearColor);
+        g2d.clearRect(0, 0, width, height);
+        return g2d;
+    }
+    
+    public void endFrame() {
+        assert g2d != null : "call to endFrame() out of sequence";
+        g2d.dispose();
+        g2d = null;
+        
+        back = ready.getAndSet(back | NEW_FRAME) & INDEX_MASK;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            if ((ready.get() & NEW_FRAME) == 0) {
+                LockSupport.park(this);
+                continue;
+            }
+            
+            front = ready.getAndSet(front) & INDEX_MASK;
+            screen.present(images[front]);
+        }
+    }
+    
+}
@@ -17,6 +17,7 @@ import java.awt.DisplayMode;
 import java.awt.Font;
 import java.awt.FontMetrics;
 import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
 import java.awt.GraphicsDevice;
 import java.awt.GraphicsEnvironment;
 import java.awt.MouseInfo;
@@ -367,4 +368,9 @@ class FullState extends ScreenState implements HierarchyListener {
 	public void setTitle(String title) {
 		frame.setTitle(title);
 	}
+
+	@Override
+	public GraphicsConfiguration getGraphicsConfiguration() {
+		return frame.getGraphicsConfiguration();
+	}
 }
\ No newline at end of file
@@ -34,6 +34,7 @@ import java.awt.DisplayMode;
 import java.awt.Font;
 import java.awt.FontMetrics;
 import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
 import java.awt.Image;
 import java.awt.Point;
 import java.awt.event.KeyListener;
@@ -77,6 +78,12 @@ public class Screen implements Graphics {
     /** List icon images used as the application icons. */
     private List<? extends Image> appIcons = new ArrayList<>();
     
+    /** Presents frames on a separate thread, {@code null} if not pipelined. */
+    private FramePipeline pipeline;
+    
+    /** Guards the screen state while frames are presented. */
+    private final Object presentLock = new Object();
+    
     
     public Screen() {
         this("[UNTITLED]");
@@ -107,6 +114,38 @@ public class Screen implements Graphics {
     	return idxScreenDevice;
     }
     
+	/**
+	 * Enables or disables pipelined rendering. If enabled, frames are rendered
+	 * into an off-screen image and presented by a dedicated render thread. This
+	 * allows the application to continue with the next update while the
+	 * previous frame is presented, at the cost of one frame of additional
+	 * latency.
+	 * 
+	 * @param value
+	 *            {@code true} to enable pipelined rendering
+	 */
+    public void setPipelined(boolean value) {
+    	if (value == isPipelined()) return;
+    	if (value) {
+    		pipeline = new FramePipeline(this);
+    		if (!(state instanceof ClosedScreen)) {
+    			pipeline.start();
+    		}
+    	} else {
+    		pipeline.stop();
+    		pipeline = null;
+    	}
+    }
+    
+	/**
+	 * Returns whether pipelined rendering is enabled.
+	 * 
+	 * @return {@code true} if frames are presented by a dedicated render thread
+	 */
+    public boolean isPipelined() {
+    	return pipeline != null;
+    }
+    
     public Point getLocationOnScreen() {
     	return state.getLocationOnScreen();
     }
@@ -156,21 +195,47 @@ public class Screen implements Graphics {
     }    
     
     void switchState(ScreenState newState) {
-        if (state != null) {
-            state.exit();
+        synchronized (presentLock) {
+            if (state != null) {
+                state.exit();
+            }
+            
+            state = newState;
+            if (state != null) {
+                state.enter();
+            }
         }
-        
-        state = newState;
-        if (state != null) {
-            state.enter();
+    }
+    
+    /**
+     * Returns the graphics configuration of the screen device currently used
+     * to present frames.
+     * 
+     * @return the graphics configuration
+     */
+    GraphicsConfiguration getGraphicsConfiguration() {
+        return state.getGraphicsConfiguration();
+    }
+    
+    void present(Image img) {
+        synchronized (presentLock) {
+            Graphics2D g = state.beginUpdate();
+            g.drawImage(img, 0, 0, null);
+            state.endUpdate();
         }
     }
     
     public void open(DisplayMode mode) throws IllegalStateException {
         state.open(mode);
+        if (pipeline != null) {
+            pipeline.start();
+        }
     }
         
     public void close() throws IllegalStateException {
+        if (pipeline != null) {
+            pipeline.stop();
+        }
         state.close();
     }
         
@@ -178,7 +243,9 @@ public class Screen implements Graphics {
     public void setVsyncEnabled(boolean value) {
         if (value == vsync) return;
         vsync = value;
-        state.updateVsyncState();
+        synchronized (presentLock) {
+            state.updateVsyncState();
+        }
     }
     
     @Override
@@ -285,7 +352,11 @@ public class Screen implements Graphics {
     
     @Override
     public Graphics2D beginUpdate() {
-        context = state.beginUpdate();
+        if (pipeline != null) {
+            context = pipeline.beginFrame(getWidth(), getHeight(), clearColor);
+        } else {
+            context = state.beginUpdate();
+        }
         setQuality(context);
         return context;
     }
@@ -318,7 +389,11 @@ public class Screen implements Graphics {
 
     @Override
     public void endUpdate() {
-        state.endUpdate();
+        if (pipeline != null) {
+            pipeline.endFrame();
+        } else {
+            state.endUpdate();
+        }
         context = null;
         
         // execute pending commands
@@ -16,6 +16,7 @@ import java.awt.DisplayMode;
 import java.awt.Font;
 import java.awt.FontMetrics;
 import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
 import java.awt.Point;
 import java.awt.Toolkit;
 import java.awt.event.KeyListener;
@@ -94,4 +95,6 @@ abstract class ScreenState {
 
 	public abstract void setTitle(String title);
 
+	public abstract GraphicsConfiguration getGraphicsConfiguration();
+
 }
\ No newline at end of file
@@ -20,6 +20,7 @@ import java.awt.DisplayMode;
 import java.awt.Font;
 import java.awt.FontMetrics;
 import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
 import java.awt.MouseInfo;
 import java.awt.Point;
 import java.awt.Toolkit;
@@ -334,4 +335,10 @@ class WindowedState extends ScreenState {
 		frame.setTitle(title);
 	}
 
+	@Override
+	public GraphicsConfiguration getGraphicsConfiguration() {
+		// changes if the window is moved to another screen device
+		return canvas.getGraphicsConfiguration();
+	}
+
 }
\ No newline at end of file
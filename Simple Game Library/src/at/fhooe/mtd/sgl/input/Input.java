@@ -125,4 +125,40 @@ public interface Input {
 	 * @return {@code true} if the mouse is trapped
 	 */
 	public boolean isMouseTrapped();
+	
+	/**
+	 * Returns the number of input events that have been dropped because the
+	 * application did not process them in time.
+	 * 
+	 * @return the number of dropped events
+	 */
+	public long getNumDroppedEvents();
+	
+	/**
+	 * Returns the state of keyboard and mouse for the current frame. The
+	 * snapshot includes the keys and buttons that have been pressed or
+	 * released since the previous frame and does not change during the
+	 * frame.
+	 * 
+	 * @return the input snapshot of the current frame
+	 */
+	public InputSnapshot getInputSnapshot();
+	
+	/**
+	 * Sets the recorder that receives all input events processed by keyboard
+	 * and mouse.
+	 * 
+	 * @param r
+	 *            the recorder or {@code null} to stop recording
+	 */
+	public void setInputRecorder(InputRecorder r);
+	
+	/**
+	 * Sets the replayer providing the input events of keyboard and mouse
+	 * instead of live input.
+	 * 
+	 * @param r
+	 *            the replayer or {@code null} to return to live input
+	 */
+	public void setInputReplayer(InputReplayer r);
 }
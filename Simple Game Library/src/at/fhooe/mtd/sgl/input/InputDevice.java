@@ -11,82 +11,235 @@
  *******************************************************************************/
 package at.fhooe.mtd.sgl.input;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.Arrays;
 
 class InputDevice {
 
-    protected List<InputListener> listeners = new ArrayList<>();
-    private Map<InputListener, Integer> priorities = new HashMap<>();
-
-	private Comparator<InputListener> comp = new Comparator<InputListener>() {
+	/** Identifier of the keyboard used in input logs. */
+	static final int KEYBOARD = 0;
+	
+	/** Identifier of the mouse used in input logs. */
+	static final int MOUSE = 1;
 
-		@Override
-		public int compare(InputListener o1, InputListener o2) {
-			return Integer.compare(priorities.get(o1), priorities.get(o2));
+	/** An empty array of listeners. */
+	private static final InputListener[] NO_LISTENERS = new InputListener[0];
+	
+	/**
+	 * The listeners ordered by priority. The array is never modified but
+	 * replaced, so dispatching needs neither locks nor iterators and is not
+	 * affected by listeners being added or removed during dispatch.
+	 */
+    private volatile InputListener[] listeners = NO_LISTENERS;
+    
+	/** The priorities of the listeners, in the same order. */
+    private int[] priorities = new int[0];
+	
+	/** The queue passing events from the AWT thread to the game thread. */
+	protected final InputEventQueue events;
+	
+	/** Discards events, used to skip live input during a replay. */
+	private final InputEventQueue.Handler discard = (t, type, c, x, y, dx, dy, a, ch) -> { };
+	
+	/** Passes events to the recorder before dispatching them. */
+	private final InputEventQueue.Handler recording = this::record;
+	
+	private final int id;
+	private InputEventQueue.Handler dispatcher;
+	private InputRecorder recorder;
+	private InputReplayer replayer;
+	
+	/**
+	 * Creates a new instance.
+	 * 
+	 * @param id
+	 *            the identifier of this device used in input logs
+	 * @param queueCapacity
+	 *            the maximum number of events pending between two updates,
+	 *            must be a power of two
+	 */
+	InputDevice(int id, int queueCapacity) {
+		this.id = id;
+		events = new InputEventQueue(queueCapacity);
+	}
+	
+	/**
+	 * Sets the recorder that receives all events processed by this device.
+	 * 
+	 * @param r
+	 *            the recorder or {@code null} to stop recording
+	 */
+	public void setRecorder(InputRecorder r) {
+		recorder = r;
+	}
+	
+	/**
+	 * Returns the recorder that receives the events processed by this device.
+	 * 
+	 * @return the recorder or {@code null} if no events are recorded
+	 */
+	public InputRecorder getRecorder() {
+		return recorder;
+	}
+	
+	/**
+	 * Sets the replayer providing the events of this device instead of live
+	 * input.
+	 * 
+	 * @param r
+	 *            the replayer or {@code null} to return to live input
+	 */
+	public void setReplayer(InputReplayer r) {
+		replayer = r;
+	}
+	
+	/**
+	 * Returns the replayer providing the events of this device.
+	 * 
+	 * @return the replayer or {@code null} if live input is processed
+	 */
+	public InputReplayer getReplayer() {
+		return replayer;
+	}
+	
+	/**
+	 * Processes the events of the current update, which are either taken from
+	 * the event queue or from the replayer, and records them if a recorder
+	 * has been set.
+	 * 
+	 * @param h
+	 *            the handler used to process the events
+	 */
+	protected void processEvents(InputEventQueue.Handler h) {
+		dispatcher = h;
+		InputEventQueue.Handler target = recorder != null ? recording : h;
+		
+		if (replayer != null) {
+			events.drain(discard);
+			if (!replayer.replay(id, target)) {
+				replayer = null;
+			}
+		} else {
+			events.drain(target);
+		}
+		
+		if (recorder != null) {
+			recorder.endFrame(id);
 		}
-	};
+	}
+	
+	private void record(long time, int type, int code, int x, int y, int dx, int dy, double amount, char ch) {
+		recorder.record(time, type, code, x, y, dx, dy, amount, ch);
+		dispatcher.handle(time, type, code, x, y, dx, dy, amount, ch);
+	}
+	
+	/**
+	 * Returns the number of input events that have been dropped because they
+	 * have not been processed in time.
+	 * 
+	 * @return the number of dropped events
+	 */
+	public long getNumDroppedEvents() {
+		return events.getNumDropped();
+	}
 	
 	public boolean hasInputListener(InputListener l) {
-		return listeners.contains(l);
+		return indexOf(listeners, l) >= 0;
 	}
 		
-	public void addInputListener(InputListener l, int priority) {
-		if (listeners.contains(l)) {
+	public synchronized void addInputListener(InputListener l, int priority) {
+		InputListener[] ls = listeners;
+		if (indexOf(ls, l) >= 0) {
 			throw new IllegalArgumentException("input listener already added");
 		}
-        listeners.add(l);
-        priorities.put(l, priority);
-        Collections.sort(listeners, comp);
+		
+		// insert behind all listeners of the same or a lower priority number
+		int idx = 0;
+		while (idx < ls.length && priorities[idx] <= priority) {
+			++idx;
+		}
+		
+		InputListener[] newListeners = new InputListener[ls.length + 1];
+		int[] newPriorities = new int[ls.length + 1];
+		System.arraycopy(ls, 0, newListeners, 0, idx);
+		System.arraycopy(priorities, 0, newPriorities, 0, idx);
+		newListeners[idx] = l;
+		newPriorities[idx] = priority;
+		System.arraycopy(ls, idx, newListeners, idx + 1, ls.length - idx);
+		System.arraycopy(priorities, idx, newPriorities, idx + 1, ls.length - idx);
+		
+		priorities = newPriorities;
+		listeners = newListeners;
 	}
     
-    public void removeInputListener(InputListener l) {
-    	priorities.remove(l);
-        listeners.remove(l);
+    public synchronized void removeInputListener(InputListener l) {
+    	InputListener[] ls = listeners;
+    	int idx = indexOf(ls, l);
+    	if (idx < 0) {
+    		return;
+    	}
+    	
+		InputListener[] newListeners = Arrays.copyOf(ls, ls.length - 1);
+		int[] newPriorities = Arrays.copyOf(priorities, ls.length - 1);
+		System.arraycopy(ls, idx + 1, newListeners, idx, ls.length - idx - 1);
+		System.arraycopy(priorities, idx + 1, newPriorities, idx, ls.length - idx - 1);
+		
+		priorities = newPriorities;
+		listeners = newListeners.length > 0 ? newListeners : NO_LISTENERS;
+    }
+    
+    private static int indexOf(InputListener[] ls, InputListener l) {
+    	for (int i = 0; i < ls.length; ++i) {
+    		if (ls[i].equals(l)) {
+    			return i;
+    		}
+    	}
+    	return -1;
     }
     
-    protected void fireKeyDown(int keycode, char ch) {
-        for (InputListener l : listeners) {
-            if (l.keyDown(keycode, ch) )
+    protected void fireKeyDown(long time, int keycode, char ch) {
+        InputListener[] ls = listeners;
+        for (int i = 0; i < ls.length; ++i) {
+            if (ls[i].keyDown(time, keycode, ch) )
                 break;
         }
     }
     
-    protected void fireKeyUp(int keycode) {
-        for (InputListener l : listeners) {
-            if (l.keyUp(keycode) )
+    protected void fireKeyUp(long time, int keycode) {
+        InputListener[] ls = listeners;
+        for (int i = 0; i < ls.length; ++i) {
+            if (ls[i].keyUp(time, keycode) )
                 break;
         }
     }
     
-    protected void fireMouseMove(int x, int y) {
-        for (InputListener l : listeners) {
-            if (l.mouseMove(x, y) )
+    protected void fireMouseMove(long time, int x, int y) {
+        InputListener[] ls = listeners;
+        for (int i = 0; i < ls.length; ++i) {
+            if (ls[i].mouseMove(time, x, y) )
                 break;
         }
     }    
     
-    protected void fireMouseDown(int x, int y, int button) {
-        for (InputListener l : listeners) {
-            if (l.mouseDown(x, y, button) )
+    protected void fireMouseDown(long time, int x, int y, int button) {
+        InputListener[] ls = listeners;
+        for (int i = 0; i < ls.length; ++i) {
+            if (ls[i].mouseDown(time, x, y, button) )
                 break;
         }
     }
 
-    protected void fireMouseUp(int x, int y, int button) {
-        for (InputListener l : listeners) {
-            if (l.mouseUp(x, y, button) )
+    protected void fireMouseUp(long time, int x, int y, int button) {
+        InputListener[] ls = listeners;
+        for (int i = 0; i < ls.length; ++i) {
+            if (ls[i].mouseUp(time, x, y, button) )
                 break;
         }
     }
     
-    protected void fireMouseWheel(double amount, int ticks, int button) {
-        for (InputListener l : listeners) {
-            if (l.scrolled(amount, ticks, button))
+    protected void fireMouseWheel(long time, double amount, int ticks, int button) {
+        InputListener[] ls = listeners;
+        for (int i = 0; i < ls.length; ++i) {
+            if (ls[i].scrolled(time, amount, ticks, button))
                 break;
         }
     }
@@ -0,0 +1,208 @@
+/*******************************************************************************
+ * Copyright (c) 2016 - 2018 Roman Divotkey,
+ * Univ. of Applied Sciences Upper Austria. 
+ * All rights reserved.
+ *   
+ * This file is subject to the terms and conditions defined in file
+ * 'LICENSE', which is part of this source code package.
+ *    
+ * THIS CODE IS PROVIDED AS EDUCATIONAL MATERIAL AND NOT INTENDED TO ADDRESS
+ * ALL REAL WORLD PROBLEMS AND ISSUES IN DETAIL.
+ *******************************************************************************/
+package at.fhooe.mtd.sgl.input;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded, wait-free queue used to pass input events from the AWT event
+ * dispatch thread to the game thread.
+ * <p>
+ * The events are stored as records of primitive values in preallocated
+ * arrays, hence neither posting nor processing events allocates memory. Only
+ * one thread may post events and only one thread may process them. Events
+ * posted while the queue is full are dropped and counted.
+ * </p>
+ */
+final class InputEventQueue {
+
+	/** A key has been pressed, the code holds the key code. */
+	public static final int KEY_DOWN = 0;
+
+	/** A key has been released, the code holds the key code. */
+	public static final int KEY_UP = 1;
+
+	/** A mouse button has been pressed, the code holds the button. */
+	public static final int MOUSE_DOWN = 2;
+
+	/** A mouse button has been released, the code holds the button. */
+	public static final int MOUSE_UP = 3;
+
+	/** The mouse has been moved to the given position. */
+	public static final int MOUSE_MOVE = 4;
+
+	/** The trapped mouse has been moved by the given delta. */
+	public static final int MOUSE_DELTA = 5;
+
+	/**
+	 * The mouse wheel has been moved, the code holds the button, x the number
+	 * of ticks and the amount the precise rotation.
+	 */
+	public static final int MOUSE_WHEEL = 6;
+
+	/**
+	 * Processes events taken from the queue.
+	 */
+	public interface Handler {
+
+		/**
+		 * Processes a single event.
+		 *
+		 * @param time
+		 *            the time the event has been received in nanoseconds
+		 * @param type
+		 *            the event type
+		 * @param code
+		 *            the key code or mouse button
+		 * @param x
+		 *            the x-coordinate of the mouse
+		 * @param y
+		 *            the y-coordinate of the mouse
+		 * @param dx
+		 *            the movement of the mouse on the x-axis
+		 * @param dy
+		 *            the movement of the mouse on the y-axis
+		 * @param amount
+		 *            the precise rotation of the mouse wheel
+		 * @param ch
+		 *            the character associated with the pressed key
+		 */
+		public void handle(long time, int type, int code, int x, int y, int dx, int dy, double amount, char ch);
+	}
+
+	private final int mask;
+	private final long[] times;
+	private final int[] types;
+	private final int[] codes;
+	private final int[] xs;
+	private final int[] ys;
+	private final int[] dxs;
+	private final int[] dys;
+	private final double[] amounts;
+	private final char[] chars;
+
+	/** Position of the next event to be read, written by the consumer. */
+	private final AtomicLong head = new AtomicLong();
+
+	/** Position of the next event to be written, written by the producer. */
+	private final AtomicLong tail = new AtomicLong();
+
+	/** The number of events dropped because the queue was full. */
+	private final AtomicLong dropped = new AtomicLong();
+
+	/** Last known head position, only accessed by the producer. */
+	private long cachedHead;
+
+	/**
+	 * Creates a new instance.
+	 *
+	 * @param capacity
+	 *            the maximum number of pending events, must be a power of two
+	 * @throws IllegalArgumentException
+	 *             if the capacity is not a power of two
+	 */
+	public InputEventQueue(int capacity) throws IllegalArgumentException {
+		if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+			throw new IllegalArgumentException("capacity must be a power of two, got " + capacity);
+		}
+		mask = capacity - 1;
+		times = new long[capacity];
+		types = new int[capacity];
+		codes = new int[capacity];
+		xs = new int[capacity];
+		ys = new int[capacity];
+		dxs = new int[capacity];
+		dys = new int[capacity];
+		amounts = new double[capacity];
+		chars = new char[capacity];
+	}
+
+	/**
+	 * Appends an event to this queue. This method must only be called by the
+	 * producer thread.
+	 *
+	 * @param time
+	 *            the time the event has been received in nanoseconds
+	 * @param type
+	 *            the event type
+	 * @param code
+	 *            the key code or mouse button
+	 * @param x
+	 *            the x-coordinate of the mouse
+	 * @param y
+	 *            the y-coordinate of the mouse
+	 * @param dx
+	 *            the movement of the mouse on the x-axis
+	 * @param dy
+	 *            the movement of the mouse on the y-axis
+	 * @param amount
+	 *            the precise rotation of the mouse wheel
+	 * @param ch
+	 *            the character associated with the pressed key
+	 * @return {@code true} if the event has been added, {@code false} if the
+	 *         queue is full and the event has been dropped
+	 */
+	public boolean offer(long time, int type, int code, int x, int y, int dx, int dy, double amount, char ch) {
+		long t = tail.get();
+		if (t - cachedHead > mask) {
+			cachedHead = head.get();
+			if (t - cachedHead > mask) {
+				dropped.lazySet(dropped.get() + 1);
+				return false;
+			}
+		}
+
+		int idx = (int) t & mask;
+		times[idx] = time;
+		types[idx] = type;
+		codes[idx] = code;
+		xs[idx] = x;
+		ys[idx] = y;
+		dxs[idx] = dx;
+		dys[idx] = dy;
+		amounts[idx] = amount;
+		chars[idx] = ch;
+		tail.lazySet(t + 1);
+		return true;
+	}
+
+	/**
+	 * Processes and removes all pending events. This method must only be
+	 * called by the consumer thread.
+	 *
+	 * @param h
+	 *            the handler used to process the events
+	 * @return the number of processed events
+	 */
+	public int drain(Handler h) {
+		long hd = head.get();
+		long t = tail.get();
+		int n = (int) (t - hd);
+		for (; hd < t; ++hd) {
+			int idx = (int) hd & mask;
+			h.handle(times[idx], types[idx], codes[idx], xs[idx], ys[idx], dxs[idx], dys[idx], amounts[idx], chars[idx]);
+		}
+		head.lazySet(hd);
+		return n;
+	}
+
+	/**
+	 * Returns the number of events that have been dropped because this queue
+	 * was full.
+	 *
+	 * @return the number of dropped events
+	 */
+	public long getNumDropped() {
+		return dropped.get();
+	}
+
+}
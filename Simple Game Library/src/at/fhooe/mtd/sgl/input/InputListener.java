@@ -99,5 +99,114 @@ public interface InputListener {
 	 * @return {@code true} if the event has been processed
 	 */
 	public boolean scrolled(double amount, int ticks, int button);
+	
+	/**
+	 * Called on a key-down event together with the time the event has been
+	 * received. The default implementation calls {@link #keyDown(int, char)}.
+	 * 
+	 * @param time
+	 *            the time of the event in nanoseconds, see
+	 *            {@link System#nanoTime()}
+	 * @param keycode
+	 *            the key code of the pressed key
+	 * @param ch
+	 *            the character associated with that key
+	 * @return {@code true} if the event has been processed
+	 */
+	public default boolean keyDown(long time, int keycode, char ch) {
+		return keyDown(keycode, ch);
+	}
+	
+	/**
+	 * Called on a key-up event together with the time the event has been
+	 * received. The default implementation calls {@link #keyUp(int)}.
+	 * 
+	 * @param time
+	 *            the time of the event in nanoseconds, see
+	 *            {@link System#nanoTime()}
+	 * @param keycode
+	 *            the key code of the released key
+	 * @return {@code true} if the event has been processed
+	 */
+	public default boolean keyUp(long time, int keycode) {
+		return keyUp(keycode);
+	}
+	
+	/**
+	 * Called when a mouse button is pressed together with the time the event
+	 * has been received. The default implementation calls
+	 * {@link #mouseDown(int, int, int)}.
+	 * 
+	 * @param time
+	 *            the time of the event in nanoseconds, see
+	 *            {@link System#nanoTime()}
+	 * @param x
+	 *            the x-coordinate of mouse cursor screen space
+	 * @param y
+	 *            the y-coordinate of mouse cursor screen space
+	 * @param button
+	 *            the numerical identifier of the mouse button
+	 * @return {@code true} if the event has been processed
+	 */
+	public default boolean mouseDown(long time, int x, int y, int button) {
+		return mouseDown(x, y, button);
+	}
+	
+	/**
+	 * Called when a mouse button is released together with the time the event
+	 * has been received. The default implementation calls
+	 * {@link #mouseUp(int, int, int)}.
+	 * 
+	 * @param time
+	 *            the time of the event in nanoseconds, see
+	 *            {@link System#nanoTime()}
+	 * @param x
+	 *            the x-coordinate of mouse cursor screen space
+	 * @param y
+	 *            the y-coordinate of mouse cursor screen space
+	 * @param button
+	 *            the numerical identifier of the mouse button
+	 * @return {@code true} if the event has been processed
+	 */
+	public default boolean mouseUp(long time, int x, int y, int button) {
+		return mouseUp(x, y, button);
+	}
+	
+	/**
+	 * Called when the mouse is moved together with the time the event has been
+	 * received. The default implementation calls {@link #mouseMove(int, int)}.
+	 * 
+	 * @param time
+	 *            the time of the event in nanoseconds, see
+	 *            {@link System#nanoTime()}
+	 * @param x
+	 *            the x-coordinate of mouse cursor screen space
+	 * @param y
+	 *            the y-coordinate of mouse cursor screen space
+	 * @return {@code true} if the event has been processed
+	 */
+	public default boolean mouseMove(long time, int x, int y) {
+		return mouseMove(x, y);
+	}
+	
+	/**
+	 * Called when the mouse wheel is moved together with the time the event
+	 * has been received. The default implementation calls
+	 * {@link #scrolled(double, int, int)}.
+	 * 
+	 * @param time
+	 *            the time of the event in nanoseconds, see
+	 *            {@link System#nanoTime()}
+	 * @param amount
+	 *            the high resolution movement of the mouse wheel
+	 * @param ticks
+	 *            the low precision movement of the mouse wheel
+	 * @param button
+	 *            the numerical identifier of the mouse button (wheel)
+	 * @return {@code true} if the event has been processed
+	 */
+	public default boolean scrolled(long time, double amount, int ticks, int button) {
+		return scrolled(amount, ticks, button);
+	}
     
 }
@@ -0,0 +1,175 @@
+/*******************************************************************************
+ * Copyright (c) 2016 - 2018 Roman Divotkey,
+ * Univ. of Applied Sciences Upper Austria. 
+ * All rights reserved.
+ *   
+ * This file is subject to the terms and conditions defined in file
+ * 'LICENSE', which is part of this source code package.
+ *    
+ * THIS CODE IS PROVIDED AS EDUCATIONAL MATERIAL AND NOT INTENDED TO ADDRESS
+ * ALL REAL WORLD PROBLEMS AND ISSUES IN DETAIL.
+ *******************************************************************************/
+package at.fhooe.mtd.sgl.input;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Records the input events processed by input devices to a compact binary
+ * log, which can be played back by an {@link InputReplayer}.
+ * <p>
+ * The log starts with a header consisting of the magic number {@code SGLI}
+ * and a version number. Each following record starts with a type byte. Event
+ * records continue with the time elapsed since the previous event followed by
+ * the parameters of the event; integers are stored as variable length zigzag
+ * encoded values, hence most events occupy only a few bytes. Whenever an input
+ * device has been updated, a frame record holding the identifier of the
+ * device is written, which allows to replay the events frame by frame.
+ * </p>
+ * <p>
+ * The recorder is used by the thread updating the input devices. Errors
+ * occurring while writing the log are reported once and stop the recording.
+ * </p>
+ */
+public final class InputRecorder implements Closeable {
+
+	/** Magic number at the start of the log. */
+	static final int MAGIC = 0x53474C49;
+	
+	/** The version of the log format. */
+	static final int VERSION = 1;
+	
+	/** Record type marking the end of an update of an input device. */
+	static final int FRAME = 0x7F;
+	
+	private final DataOutputStream out;
+	private long lastTime;
+	private boolean failed;
+	
+	/**
+	 * Creates a new instance.
+	 * 
+	 * @param out
+	 *            the stream to write the log to
+	 * @throws IOException
+	 *             in case the header could not be written
+	 */
+	public InputRecorder(OutputStream out) throws IOException {
+		this.out = new DataOutputStream(new BufferedOutputStream(out));
+		this.out.writeInt(MAGIC);
+		this.out.writeShort(VERSION);
+	}
+	
+	/**
+	 * Records a single event.
+	 */
+	void record(long time, int type, int code, int x, int y, int dx, int dy, double amount, char ch) {
+		if (failed) {
+			return;
+		}
+		
+		try {
+			out.writeByte(type);
+			writeVarLong(time - lastTime);
+			lastTime = time;
+			
+			switch (type) {
+			case InputEventQueue.KEY_DOWN:
+				writeVarInt(code);
+				writeVarInt(ch);
+				break;
+			case InputEventQueue.KEY_UP:
+				writeVarInt(code);
+				break;
+			case InputEventQueue.MOUSE_DOWN:
+			case InputEventQueue.MOUSE_UP:
+				writeVarInt(code);
+				writeVarInt(x);
+				writeVarInt(y);
+				break;
+			case InputEventQueue.MOUSE_MOVE:
+			case InputEventQueue.MOUSE_DELTA:
+				writeVarInt(x);
+				writeVarInt(y);
+				writeVarInt(dx);
+				writeVarInt(dy);
+				break;
+			case InputEventQueue.MOUSE_WHEEL:
+				writeVarInt(code);
+				writeVarInt(x);
+				writeVarInt(y);
+				out.writeDouble(amount);
+				break;
+			default:
+				throw new IllegalArgumentException("unknown event type " + type);
+			}
+		} catch (IOException e) {
+			fail(e);
+		}
+	}
+	
+	/**
+	 * Marks the end of an update of the specified input device.
+	 * 
+	 * @param device
+	 *            the identifier of the input device
+	 */
+	void endFrame(int device) {
+		if (failed) {
+			return;
+		}
+		
+		try {
+			out.writeByte(FRAME);
+			out.writeByte(device);
+		} catch (IOException e) {
+			fail(e);
+		}
+	}
+	
+	/**
+	 * Returns if this recorder stopped recording due to an error.
+	 * 
+	 * @return {@code true} if writing the log failed
+	 */
+	public boolean hasFailed() {
+		return failed;
+	}
+	
+	/**
+	 * Flushes the recorded events to the underlying stream.
+	 * 
+	 * @throws IOException
+	 *             in case the events could not be written
+	 */
+	public void flush() throws IOException {
+		out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		out.close();
+	}
+	
+	private void fail(IOException e) {
+		failed = true;
+		System.err.println("unable to record input events: " + e.getMessage());
+	}
+	
+	private void writeVarInt(int v) throws IOException {
+		writeVarLong(v);
+	}
+	
+	private void writeVarLong(long v) throws IOException {
+		long u = (v << 1) ^ (v >> 63);
+		while ((u & ~0x7FL) != 0) {
+			out.writeByte((int) (u & 0x7F) | 0x80);
+			u >>>= 7;
+		}
+		out.writeByte((int) u);
+	}
+	
+}
@@ -0,0 +1,233 @@
+/*******************************************************************************
+ * Copyright (c) 2016 - 2018 Roman Divotkey,
+ * Univ. of Applied Sciences Upper Austria. 
+ * All rights reserved.
+ *   
+ * This file is subject to the terms and conditions defined in file
+ * 'LICENSE', which is part of this source code package.
+ *    
+ * THIS CODE IS PROVIDED AS EDUCATIONAL MATERIAL AND NOT INTENDED TO ADDRESS
+ * ALL REAL WORLD PROBLEMS AND ISSUES IN DETAIL.
+ *******************************************************************************/
+package at.fhooe.mtd.sgl.input;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Plays back input events recorded by an {@link InputRecorder}.
+ * <p>
+ * The complete log is read when the replayer is created, so playing back the
+ * events neither performs I/O nor allocates memory. While a replayer is
+ * attached to an input device, each update of the device dispatches the events
+ * recorded for the corresponding update, including their original time
+ * stamps, and ignores live input. This makes the replay deterministic with
+ * respect to the number of updates, independent of the speed of the game
+ * loop. Once all recorded updates of a device have been played back, the
+ * device returns to live input.
+ * </p>
+ */
+public final class InputReplayer {
+
+	/** The maximum number of distinct input devices in a log. */
+	private static final int MAX_DEVICES = 2;
+	
+	/** The initial capacity of the event and frame arrays. */
+	private static final int INITIAL_CAPACITY = 256;
+	
+	private long[] times = new long[INITIAL_CAPACITY];
+	private int[] types = new int[INITIAL_CAPACITY];
+	private int[] codes = new int[INITIAL_CAPACITY];
+	private int[] xs = new int[INITIAL_CAPACITY];
+	private int[] ys = new int[INITIAL_CAPACITY];
+	private int[] dxs = new int[INITIAL_CAPACITY];
+	private int[] dys = new int[INITIAL_CAPACITY];
+	private double[] amounts = new double[INITIAL_CAPACITY];
+	private char[] chars = new char[INITIAL_CAPACITY];
+	private int numEvents;
+	
+	/** Index of the first event of each frame, per device. */
+	private final int[][] frameStarts = new int[MAX_DEVICES][INITIAL_CAPACITY];
+	
+	/** Index of the first event following each frame, per device. */
+	private final int[][] frameEnds = new int[MAX_DEVICES][INITIAL_CAPACITY];
+	
+	private final int[] numFrames = new int[MAX_DEVICES];
+	private final int[] nextFrame = new int[MAX_DEVICES];
+	
+	/**
+	 * Creates a new instance reading the complete log from the specified
+	 * stream. The stream is not closed.
+	 * 
+	 * @param in
+	 *            the stream to read the log from
+	 * @throws IOException
+	 *             in case the log could not be read or is corrupt
+	 */
+	public InputReplayer(InputStream in) throws IOException {
+		DataInputStream din = new DataInputStream(new BufferedInputStream(in));
+		if (din.readInt() != InputRecorder.MAGIC) {
+			throw new IOException("not an input log");
+		}
+		int version = din.readUnsignedShort();
+		if (version != InputRecorder.VERSION) {
+			throw new IOException("unsupported input log version " + version);
+		}
+		
+		long time = 0;
+		int frameStart = 0;
+		int type;
+		while ((type = din.read()) != -1) {
+			if (type == InputRecorder.FRAME) {
+				int device = din.readUnsignedByte();
+				if (device >= MAX_DEVICES) {
+					throw new IOException("invalid input device " + device);
+				}
+				addFrame(device, frameStart, numEvents);
+				frameStart = numEvents;
+				continue;
+			}
+			
+			ensureCapacity(numEvents + 1);
+			int i = numEvents;
+			time += readVarLong(din);
+			times[i] = time;
+			types[i] = type;
+			switch (type) {
+			case InputEventQueue.KEY_DOWN:
+				codes[i] = readVarInt(din);
+				chars[i] = (char) readVarInt(din);
+				break;
+			case InputEventQueue.KEY_UP:
+				codes[i] = readVarInt(din);
+				break;
+			case InputEventQueue.MOUSE_DOWN:
+			case InputEventQueue.MOUSE_UP:
+				codes[i] = readVarInt(din);
+				xs[i] = readVarInt(din);
+				ys[i] = readVarInt(din);
+				break;
+			case InputEventQueue.MOUSE_MOVE:
+			case InputEventQueue.MOUSE_DELTA:
+				xs[i] = readVarInt(din);
+				ys[i] = readVarInt(din);
+				dxs[i] = readVarInt(din);
+				dys[i] = readVarInt(din);
+				break;
+			case InputEventQueue.MOUSE_WHEEL:
+				codes[i] = readVarInt(din);
+				xs[i] = readVarInt(din);
+				ys[i] = readVarInt(din);
+				amounts[i] = din.readDouble();
+				break;
+			default:
+				throw new IOException("invalid event type " + type);
+			}
+			++numEvents;
+		}
+	}
+	
+	/**
+	 * Returns the total number of recorded events.
+	 * 
+	 * @return the number of events
+	 */
+	public int getNumEvents() {
+		return numEvents;
+	}
+	
+	/**
+	 * Returns if all recorded updates have been played back.
+	 * 
+	 * @return {@code true} if the replay is finished
+	 */
+	public boolean isFinished() {
+		for (int i = 0; i < MAX_DEVICES; ++i) {
+			if (nextFrame[i] < numFrames[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * Restarts the replay at the first recorded update.
+	 */
+	public void rewind() {
+		Arrays.fill(nextFrame, 0);
+	}
+	
+	/**
+	 * Dispatches the events of the next recorded update of the specified
+	 * device.
+	 * 
+	 * @param device
+	 *            the identifier of the input device
+	 * @param h
+	 *            the handler used to process the events
+	 * @return {@code false} if all updates of the device have been played back
+	 */
+	boolean replay(int device, InputEventQueue.Handler h) {
+		int frame = nextFrame[device];
+		if (frame >= numFrames[device]) {
+			return false;
+		}
+		nextFrame[device] = frame + 1;
+		
+		for (int i = frameStarts[device][frame], n = frameEnds[device][frame]; i < n; ++i) {
+			h.handle(times[i], types[i], codes[i], xs[i], ys[i], dxs[i], dys[i], amounts[i], chars[i]);
+		}
+		return true;
+	}
+	
+	private void addFrame(int device, int start, int end) {
+		int n = numFrames[device];
+		if (n == frameEnds[device].length) {
+			frameStarts[device] = Arrays.copyOf(frameStarts[device], n * 2);
+			frameEnds[device] = Arrays.copyOf(frameEnds[device], n * 2);
+		}
+		frameStarts[device][n] = start;
+		frameEnds[device][n] = end;
+		numFrames[device] = n + 1;
+	}
+	
+	private void ensureCapacity(int n) {
+		if (n <= types.length) {
+			return;
+		}
+		int capacity = types.length * 2;
+		times = Arrays.copyOf(times, capacity);
+		types = Arrays.copyOf(types, capacity);
+		codes = Arrays.copyOf(codes, capacity);
+		xs = Arrays.copyOf(xs, capacity);
+		ys = Arrays.copyOf(ys, capacity);
+		dxs = Arrays.copyOf(dxs, capacity);
+		dys = Arrays.copyOf(dys, capacity);
+		amounts = Arrays.copyOf(amounts, capacity);
+		chars = Arrays.copyOf(chars, capacity);
+	}
+	
+	private static int readVarInt(DataInputStream in) throws IOException {
+		return (int) readVarLong(in);
+	}
+	
+	private static long readVarLong(DataInputStream in) throws IOException {
+		long u = 0;
+		for (int shift = 0; shift < 64; shift += 7) {
+			int b = in.read();
+			if (b == -1) {
+				throw new EOFException("truncated input log");
+			}
+			u |= (long) (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return (u >>> 1) ^ -(u & 1);
+			}
+		}
+		throw new IOException("malformed variable length value");
+	}
+	
+}
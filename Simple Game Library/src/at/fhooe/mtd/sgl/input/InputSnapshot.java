@@ -0,0 +1,268 @@
+/*******************************************************************************
+ * Copyright (c) 2016 - 2018 Roman Divotkey,
+ * Univ. of Applied Sciences Upper Austria. 
+ * All rights reserved.
+ *   
+ * This file is subject to the terms and conditions defined in file
+ * 'LICENSE', which is part of this source code package.
+ *    
+ * THIS CODE IS PROVIDED AS EDUCATIONAL MATERIAL AND NOT INTENDED TO ADDRESS
+ * ALL REAL WORLD PROBLEMS AND ISSUES IN DETAIL.
+ *******************************************************************************/
+package at.fhooe.mtd.sgl.input;
+
+/**
+ * The state of keyboard and mouse as seen by the application during one
+ * frame.
+ * <p>
+ * A snapshot is published by the application after all input events of the
+ * frame have been dispatched and does not change while the frame is updated,
+ * hence it can be polled any number of times without synchronization. Key and
+ * button states are stored as bitsets, including edges: a key that has been
+ * pressed and released within the same frame is reported as just pressed and
+ * just released while not being down.
+ * </p>
+ * <p>
+ * Snapshots are reused to avoid memory allocation. An instance remains
+ * unchanged during the frame it has been published for and the following
+ * frame, so the snapshot of the previous frame can be kept for comparison.
+ * </p>
+ */
+public final class InputSnapshot {
+
+	/** The number of bits per bitset word. */
+	private static final int WORD_BITS = 64;
+	
+	private final long[] keys;
+	private final long[] keysPressed;
+	private final long[] keysReleased;
+	private int buttons;
+	private int buttonsPressed;
+	private int buttonsReleased;
+	private int mouseX;
+	private int mouseY;
+	private int deltaX;
+	private int deltaY;
+	private double wheelAmount;
+	private int wheelTicks;
+	
+	/**
+	 * Creates a new instance with all keys and buttons released.
+	 */
+	public InputSnapshot() {
+		keys = createKeyBits();
+		keysPressed = createKeyBits();
+		keysReleased = createKeyBits();
+	}
+	
+	/**
+	 * Returns if the specified key is down.
+	 * 
+	 * @param keycode
+	 *            the key code of the key
+	 * @return {@code true} if the key is down
+	 */
+	public boolean isKeyDown(int keycode) {
+		return isSet(keys, keycode);
+	}
+	
+	/**
+	 * Returns if the specified key has been pressed during the last update.
+	 * 
+	 * @param keycode
+	 *            the key code of the key
+	 * @return {@code true} if the key has just been pressed
+	 */
+	public boolean isKeyJustPressed(int keycode) {
+		return isSet(keysPressed, keycode);
+	}
+	
+	/**
+	 * Returns if the specified key has been released during the last update.
+	 * 
+	 * @param keycode
+	 *            the key code of the key
+	 * @return {@code true} if the key has just been released
+	 */
+	public boolean isKeyJustReleased(int keycode) {
+		return isSet(keysReleased, keycode);
+	}
+	
+	/**
+	 * Returns if the specified mouse button is down.
+	 * 
+	 * @param button
+	 *            the number of the button
+	 * @return {@code true} if the button is down
+	 */
+	public boolean isButtonDown(int button) {
+		return isSet(buttons, button);
+	}
+	
+	/**
+	 * Returns if the specified mouse button has been pressed during the last
+	 * update.
+	 * 
+	 * @param button
+	 *            the number of the button
+	 * @return {@code true} if the button has just been pressed
+	 */
+	public boolean isButtonJustPressed(int button) {
+		return isSet(buttonsPressed, button);
+	}
+	
+	/**
+	 * Returns if the specified mouse button has been released during the last
+	 * update.
+	 * 
+	 * @param button
+	 *            the number of the button
+	 * @return {@code true} if the button has just been released
+	 */
+	public boolean isButtonJustReleased(int button) {
+		return isSet(buttonsReleased, button);
+	}
+	
+	/**
+	 * Returns the x-coordinate of the mouse position.
+	 * 
+	 * @return the x-coordinate in pixels
+	 */
+	public int getMouseX() {
+		return mouseX;
+	}
+	
+	/**
+	 * Returns the y-coordinate of the mouse position.
+	 * 
+	 * @return the y-coordinate in pixels
+	 */
+	public int getMouseY() {
+		return mouseY;
+	}
+	
+	/**
+	 * Returns the movement of the mouse on the x-axis since the previous
+	 * update.
+	 * 
+	 * @return the delta movement on the x-axis
+	 */
+	public int getMouseDeltaX() {
+		return deltaX;
+	}
+	
+	/**
+	 * Returns the movement of the mouse on the y-axis since the previous
+	 * update.
+	 * 
+	 * @return the delta movement on the y-axis
+	 */
+	public int getMouseDeltaY() {
+		return deltaY;
+	}
+	
+	/**
+	 * Returns the precise rotation of the mouse wheel since the previous
+	 * update.
+	 * 
+	 * @return the wheel rotation, negative values mean away from the user
+	 */
+	public double getWheelAmount() {
+		return wheelAmount;
+	}
+	
+	/**
+	 * Returns the number of wheel ticks since the previous update.
+	 * 
+	 * @return the number of ticks, negative values mean away from the user
+	 */
+	public int getWheelTicks() {
+		return wheelTicks;
+	}
+	
+	/**
+	 * Stores the key states of the keyboard.
+	 * 
+	 * @param down
+	 *            the keys that are down
+	 * @param pressed
+	 *            the keys pressed during the last update
+	 * @param released
+	 *            the keys released during the last update
+	 */
+	void setKeys(long[] down, long[] pressed, long[] released) {
+		System.arraycopy(down, 0, keys, 0, keys.length);
+		System.arraycopy(pressed, 0, keysPressed, 0, keysPressed.length);
+		System.arraycopy(released, 0, keysReleased, 0, keysReleased.length);
+	}
+	
+	/**
+	 * Stores the button states of the mouse.
+	 * 
+	 * @param down
+	 *            the buttons that are down
+	 * @param pressed
+	 *            the buttons pressed during the last update
+	 * @param released
+	 *            the buttons released during the last update
+	 */
+	void setButtons(int down, int pressed, int released) {
+		buttons = down;
+		buttonsPressed = pressed;
+		buttonsReleased = released;
+	}
+	
+	/**
+	 * Stores the position, movement and wheel rotation of the mouse.
+	 * 
+	 * @param x
+	 *            the x-coordinate of the mouse
+	 * @param y
+	 *            the y-coordinate of the mouse
+	 * @param dx
+	 *            the movement on the x-axis
+	 * @param dy
+	 *            the movement on the y-axis
+	 * @param amount
+	 *            the precise wheel rotation
+	 * @param ticks
+	 *            the number of wheel ticks
+	 */
+	void setMouse(int x, int y, int dx, int dy, double amount, int ticks) {
+		mouseX = x;
+		mouseY = y;
+		deltaX = dx;
+		deltaY = dy;
+		wheelAmount = amount;
+		wheelTicks = ticks;
+	}
+	
+	/**
+	 * Creates a bitset able to hold the state of all key codes.
+	 * 
+	 * @return the newly created bitset
+	 */
+	static long[] createKeyBits() {
+		return new long[(Keyboard.MAX_KEYCODE + WORD_BITS - 1) / WORD_BITS];
+	}
+	
+	static boolean isSet(long[] bits, int idx) {
+		return idx >= 0 && idx < bits.length * WORD_BITS && (bits[idx >>> 6] & (1L << idx)) != 0;
+	}
+	
+	static void set(long[] bits, int idx, boolean b) {
+		if (idx < 0 || idx >= bits.length * WORD_BITS) {
+			return;
+		}
+		if (b) {
+			bits[idx >>> 6] |= 1L << idx;
+		} else {
+			bits[idx >>> 6] &= ~(1L << idx);
+		}
+	}
+	
+	static boolean isSet(int bits, int idx) {
+		return idx >= 0 && idx < Integer.SIZE && (bits & (1 << idx)) != 0;
+	}
+	
+}
@@ -14,45 +14,73 @@ package at.fhooe.mtd.sgl.input;
 
 import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
 
 public class Keyboard extends InputDevice implements KeyListener {
 
 	public static int MAX_KEYCODE = 1024;
+	
+	/** The maximum number of key events pending between two updates. */
+	public static final int QUEUE_CAPACITY = 256;
     
-    private boolean keys[] = new boolean[MAX_KEYCODE];
-    private List<InputEvent> events = new ArrayList<>();
-
+	/** The keys that are down as seen by the game thread. */
+    private long[] keys = InputSnapshot.createKeyBits();
+    
+	/** The keys pressed during the current update. */
+    private long[] pressed = InputSnapshot.createKeyBits();
+    
+	/** The keys released during the current update. */
+    private long[] released = InputSnapshot.createKeyBits();
+    
+	/** The key states seen by the AWT thread, used to suppress auto-repeat. */
+    private boolean down[] = new boolean[MAX_KEYCODE];
+    
+    private final InputEventQueue.Handler dispatcher = this::dispatch;
         
     public Keyboard() {
-        // intentionally left empty
+        super(KEYBOARD, QUEUE_CAPACITY);
     }
     
         
-    public synchronized boolean isPressed(int keycode)
+    public boolean isPressed(int keycode)
             throws IndexOutOfBoundsException {
         if (keycode >= MAX_KEYCODE) {
             return false;
         }
-        return keys[keycode];
+        return InputSnapshot.isSet(keys, keycode);
     }    
         
-    public synchronized void update() {
-        for (InputEvent event : events) {
-            switch (event.type) {
-            case KEY_DOWN:
-                fireKeyDown(event.keycode, event.character);
-                break;
-            case KEY_UP:
-                fireKeyUp(event.keycode);
-                break;
-            default:
-                // ignore
-            }
-            event.free();
+    public void update() {
+        Arrays.fill(pressed, 0);
+        Arrays.fill(released, 0);
+        processEvents(dispatcher);
+    }
+    
+	/**
+	 * Stores the key states of the last update in the specified snapshot.
+	 * 
+	 * @param s
+	 *            the snapshot to receive the key states
+	 */
+    public void publish(InputSnapshot s) {
+        s.setKeys(keys, pressed, released);
+    }
+    
+    private void dispatch(long time, int type, int code, int x, int y, int dx, int dy, double amount, char ch) {
+        switch (type) {
+        case InputEventQueue.KEY_DOWN:
+            InputSnapshot.set(keys, code, true);
+            InputSnapshot.set(pressed, code, true);
+            fireKeyDown(time, code, ch);
+            break;
+        case InputEventQueue.KEY_UP:
+            InputSnapshot.set(keys, code, false);
+            InputSnapshot.set(released, code, true);
+            fireKeyUp(time, code);
+            break;
+        default:
+            // ignore
         }
-        events.clear();
     }
 
     @Override
@@ -61,34 +89,33 @@ public class Keyboard extends InputDevice implements KeyListener {
     }
 
     @Override
-    public synchronized void keyPressed(KeyEvent e) {
-        if (e.getKeyCode() < MAX_KEYCODE) {
-            if (keys[e.getKeyCode()])
+    public void keyPressed(KeyEvent e) {
+        int code = e.getKeyCode();
+        if (code < MAX_KEYCODE) {
+            if (down[code])
                 return;
-            keys[e.getKeyCode()] = true;
+            down[code] = true;
         }
         
-        InputEvent event = InputEvent.obtainEvent();
-        event.type = InputEvent.Type.KEY_DOWN;
-        event.keycode = e.getKeyCode();
-        event.character = e.getKeyChar();
-        events.add(event);
-        
+        boolean queued = events.offer(System.nanoTime(), InputEventQueue.KEY_DOWN, code, 0, 0, 0, 0, 0.0,
+                e.getKeyChar());
+        if (!queued && code < MAX_KEYCODE) {
+            // let the next auto-repeat event try again
+            down[code] = false;
+        }
         
         e.consume();
     }
 
     @Override
-    public synchronized void keyReleased(KeyEvent e) {
-        if (e.getKeyCode() < MAX_KEYCODE) {
-            keys[e.getKeyCode()] = false;
+    public void keyReleased(KeyEvent e) {
+        int code = e.getKeyCode();
+        if (code < MAX_KEYCODE) {
+            down[code] = false;
         }
 
-        InputEvent event = InputEvent.obtainEvent();
-        event.type = InputEvent.Type.KEY_UP;
-        event.keycode = e.getKeyCode();
-        events.add(event);
-        
+        events.offer(System.nanoTime(), InputEventQueue.KEY_UP, code, 0, 0, 0, 0, 0.0,
+                KeyEvent.CHAR_UNDEFINED);
         e.consume();
     }
 }
\ No newline at end of file
@@ -15,14 +15,12 @@ package at.fhooe.mtd.sgl.input;
 import java.awt.AWTException;
 import java.awt.Point;
 import java.awt.Robot;
+import java.awt.event.KeyEvent;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
 import java.awt.event.MouseMotionListener;
 import java.awt.event.MouseWheelEvent;
 import java.awt.event.MouseWheelListener;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
 
 import at.fhooe.mtd.sgl.Sgl;
 import at.fhooe.mtd.sgl.graphics.screen.Screen;
@@ -32,25 +30,46 @@ public class Mouse extends InputDevice implements MouseListener,
 
     public static final int MAX_BUTTON = 10;
     
-    private boolean[] buttons = new boolean[MAX_BUTTON];
-    private List<InputEvent> events = new ArrayList<>();
+	/** The maximum number of mouse events pending between two updates. */
+    public static final int QUEUE_CAPACITY = 1024;
     
+    private final InputEventQueue.Handler dispatcher = this::dispatch;
+    
+    // buttons as bitsets, seen by the game thread
+    private int buttons;
+    private int pressed;
+    private int released;
+    
+    // state seen by the game thread
     private int posX = 0;
     private int posY = 0;
     private int lastX;
     private int lastY;
     private int deltaY = 0;
     private int deltaX = 0;
-    private boolean trapped = false;
+    private int trappedX;
+    private int trappedY;
+    private double wheelAmount;
+    private int wheelTicks;
+    
+    // move event held back while coalescing
+    private boolean coalescing;
+    private boolean pendingMove;
+    private long pendingTime;
+    
+    // position last reported by the AWT thread
+    private int moveX;
+    private int moveY;
+    
+    private volatile boolean trapped = false;
     private Robot robot;
     
     // Used to get screen coordinates (required for mouse trap)
     private Screen screen;
-    private Point pt = new Point();
     
     public Mouse(Screen screen) {
+    	super(MOUSE, QUEUE_CAPACITY);
     	this.screen = screen;
-        Arrays.fill(buttons, false);
         posX = posY = lastX = lastY = deltaX = deltaY = 0;
         try {
 			robot = new Robot();
@@ -69,11 +88,38 @@ public class Mouse extends InputDevice implements MouseListener,
 		if (trapped == b) return;				
 		trapped = b;
 		if (trapped) {
-			lastX = lastY = deltaX = deltaY = 0;
+			trappedX = trappedY = deltaX = deltaY = 0;
 			centerMouse();
+		} else {
+			lastX = posX;
+			lastY = posY;
 		}
 	}
 	
+	/**
+	 * Defines if consecutive mouse move events should be merged. If enabled,
+	 * listeners receive only the last position of a sequence of move events
+	 * processed during one update, which reduces the dispatch overhead of mice
+	 * with high polling rates. Other events are not merged and keep their
+	 * order relative to the move events; the delta movement of the mouse is
+	 * not affected.
+	 * 
+	 * @param b
+	 *            {@code true} if mouse move events should be coalesced
+	 */
+	public void setCoalescing(boolean b) {
+		coalescing = b;
+	}
+	
+	/**
+	 * Returns if consecutive mouse move events are merged.
+	 * 
+	 * @return {@code true} if mouse move events are coalesced
+	 */
+	public boolean isCoalescing() {
+		return coalescing;
+	}
+	
 	/**
 	 * Returns if the mouse is trapped inside the window.
 	 * 
@@ -88,7 +134,7 @@ public class Mouse extends InputDevice implements MouseListener,
      * 
      * @return the delta movement in x-direction
      */
-    public synchronized int getDeltaX() {
+    public int getDeltaX() {
         return deltaX;
     }
     
@@ -97,64 +143,114 @@ public class Mouse extends InputDevice implements MouseListener,
      * 
      * @return the delta movement in y-direction
      */
-    public synchronized int getDeltaY() {
+    public int getDeltaY() {
         return deltaY;
     }
     
-    public synchronized int getPosX() {
+    public int getPosX() {
         return posX;
     }
 
-    public synchronized int getPosY() {
+    public int getPosY() {
         return posY;
     }
     
-	public synchronized void setPos(int x, int y) {
+	public void setPos(int x, int y) {
 		posX = x; posY = y;
 		deltaX = 0; deltaY = 0;
 		setMouse(x, y);
 	}
     
-    public synchronized boolean isPressed(int button)
+    public boolean isPressed(int button)
             throws IndexOutOfBoundsException {
-        return buttons[button];
+        return InputSnapshot.isSet(buttons, button);
     }
     
-    public synchronized void update() {
+    public void update() {
+    	pressed = released = 0;
+    	wheelAmount = 0.0;
+    	wheelTicks = 0;
+    	processEvents(dispatcher);
+    	flushMove();
+    	
     	if (!trapped) {
             deltaX = posX - lastX;
             deltaY = posY - lastY;
             lastX = posX;
             lastY = posY;
     	} else {
-    		deltaX = lastX;
-    		deltaY = lastY;
-    		lastX = lastY = 0;
+    		deltaX = trappedX;
+    		deltaY = trappedY;
+    		trappedX = trappedY = 0;
     	}
-    	
-        for (InputEvent event : events) {
-            switch (event.type) {
-            case MOUSE_DOWN:
-                fireMouseDown(event.x, event.y, event.button);
-                break;
-            case MOUSE_UP:
-                fireMouseUp(event.x, event.y, event.button);
-                break;
-            case MOUSE_MOVE:
-        		fireMouseMove(event.x, event.y);
-                break;
-            case MOUSE_WHEEL:
-            	fireMouseWheel(event.rotation, (int) event.x, event.button);
-                break;
-                
-            default:
-                // ignore
+    }
+    
+	/**
+	 * Stores the button states, position, movement and wheel rotation of the
+	 * last update in the specified snapshot.
+	 * 
+	 * @param s
+	 *            the snapshot to receive the mouse state
+	 */
+    public void publish(InputSnapshot s) {
+    	s.setButtons(buttons, pressed, released);
+    	s.setMouse(posX, posY, deltaX, deltaY, wheelAmount, wheelTicks);
+    }
+    
+    private void dispatch(long time, int type, int code, int x, int y, int dx, int dy, double amount, char ch) {
+        if (pendingMove && type != InputEventQueue.MOUSE_MOVE) {
+            flushMove();
+        }
+        
+        switch (type) {
+        case InputEventQueue.MOUSE_DOWN:
+            if (code < MAX_BUTTON) {
+                buttons |= 1 << code;
+                pressed |= 1 << code;
+            }
+            fireMouseDown(time, x, y, code);
+            break;
+        case InputEventQueue.MOUSE_UP:
+            if (code < MAX_BUTTON) {
+                buttons &= ~(1 << code);
+                released |= 1 << code;
             }
-            event.free();
+            fireMouseUp(time, x, y, code);
+            break;
+        case InputEventQueue.MOUSE_MOVE:
+            posX = x;
+            posY = y;
+            if (coalescing) {
+                pendingMove = true;
+                pendingTime = time;
+            } else {
+                fireMouseMove(time, x, y);
+            }
+            break;
+        case InputEventQueue.MOUSE_DELTA:
+            posX = x;
+            posY = y;
+            trappedX += dx;
+            trappedY += dy;
+            break;
+        case InputEventQueue.MOUSE_WHEEL:
+            wheelAmount += amount;
+            wheelTicks += x;
+            fireMouseWheel(time, amount, x, code);
+            break;
+            
+        default:
+            // ignore
         }
-        events.clear();
     }    
     
+    private void flushMove() {
+        if (pendingMove) {
+            pendingMove = false;
+            fireMouseMove(pendingTime, posX, posY);
+        }
+    }
+    
     /////////////////////////////////////////////////
     /////// Interface MouseListener
     /////////////////////////////////////////////////
@@ -165,32 +261,16 @@ public class Mouse extends InputDevice implements MouseListener,
     }
 
     @Override
-    public synchronized void mousePressed(MouseEvent e) {
-        if (e.getButton() < MAX_BUTTON) {
-            buttons[e.getButton()] = true;
-        }
-        
-        InputEvent event = InputEvent.obtainEvent();
-        event.type = InputEvent.Type.MOUSE_DOWN;
-        event.button = e.getButton(); 
-        event.x = e.getX();
-        event.y = e.getY();
-        events.add(event);        
-        
+    public void mousePressed(MouseEvent e) {
+        events.offer(System.nanoTime(), InputEventQueue.MOUSE_DOWN, e.getButton(), e.getX(), e.getY(), 0, 0, 0.0,
+                KeyEvent.CHAR_UNDEFINED);
         e.consume();
     }
 
     @Override
-    public synchronized void mouseReleased(MouseEvent e) {
-        if (e.getButton() < MAX_BUTTON) {
-            buttons[e.getButton()] = false;
-        }
-        InputEvent event = InputEvent.obtainEvent();
-        event.type = InputEvent.Type.MOUSE_UP;
-        event.button = e.getButton(); 
-        event.x = e.getX();
-        event.y = e.getY();
-        events.add(event);
+    public void mouseReleased(MouseEvent e) {
+        events.offer(System.nanoTime(), InputEventQueue.MOUSE_UP, e.getButton(), e.getX(), e.getY(), 0, 0, 0.0,
+                KeyEvent.CHAR_UNDEFINED);
         e.consume();
     }
 
@@ -209,24 +289,8 @@ public class Mouse extends InputDevice implements MouseListener,
     /////////////////////////////////////////////////
     
     @Override
-    public synchronized void mouseDragged(MouseEvent e) {
-    	if (trapped) {
-    		posX = Sgl.graphics.getWidth() / 2;
-    		posY = Sgl.graphics.getHeight() / 2;
-    		lastX += e.getX() - posX;
-    		lastY += e.getY() - posY;
-    		setMouse(posX, posY);
-    	} else {
-	        posX = e.getX();
-	        posY = e.getY();
-	
-	        InputEvent event = InputEvent.obtainEvent();
-	        event.type = InputEvent.Type.MOUSE_MOVE;
-	        event.x = e.getX();
-	        event.y = e.getY();
-	        events.add(event);
-    	}
-        
+    public void mouseDragged(MouseEvent e) {
+    	moved(e);
         e.consume();
     }
 
@@ -237,42 +301,39 @@ public class Mouse extends InputDevice implements MouseListener,
     }
     
     private void setMouse(int x, int y) {
-    	pt = screen.getLocationOnScreen();
+    	// called by both threads, hence no shared point instance
+    	Point pt = screen.getLocationOnScreen();
 		robot.mouseMove(pt.x + x, pt.y + y);
     }
     
     @Override
-    public synchronized void mouseMoved(MouseEvent e) {
+    public void mouseMoved(MouseEvent e) {
+    	moved(e);
+        e.consume();
+    }
+    
+    private void moved(MouseEvent e) {
     	if (trapped) {
-    		posX = Sgl.graphics.getWidth() / 2;
-    		posY = Sgl.graphics.getHeight() / 2;
-    		lastX += e.getX() - posX;
-    		lastY += e.getY() - posY;
-    		setMouse(posX, posY);
+    		int cx = Sgl.graphics.getWidth() / 2;
+    		int cy = Sgl.graphics.getHeight() / 2;
+    		events.offer(System.nanoTime(), InputEventQueue.MOUSE_DELTA, 0, cx, cy, e.getX() - cx, e.getY() - cy,
+    				0.0, KeyEvent.CHAR_UNDEFINED);
+    		setMouse(cx, cy);
+    		moveX = cx;
+    		moveY = cy;
     	} else {
-	        posX = e.getX();
-	        posY = e.getY();
-	
-	        InputEvent event = InputEvent.obtainEvent();
-	        event.type = InputEvent.Type.MOUSE_MOVE;
-	        event.x = e.getX();
-	        event.y = e.getY();
-	        events.add(event);
-    	}        
-        e.consume();
+    		events.offer(System.nanoTime(), InputEventQueue.MOUSE_MOVE, 0, e.getX(), e.getY(), e.getX() - moveX,
+    				e.getY() - moveY, 0.0, KeyEvent.CHAR_UNDEFINED);
+    		moveX = e.getX();
+    		moveY = e.getY();
+    	}
     }
 
 	@Override
-	public synchronized void mouseWheelMoved(MouseWheelEvent e) {
-        InputEvent event = InputEvent.obtainEvent();
-        event.type = InputEvent.Type.MOUSE_WHEEL;
-        event.button = e.getButton();
-        event.x = e.getWheelRotation();
-        event.y = e.getClickCount();
-        event.rotation = e.getPreciseWheelRotation();
-        events.add(event);
-        
-        e.consume();
+	public void mouseWheelMoved(MouseWheelEvent e) {
+		events.offer(System.nanoTime(), InputEventQueue.MOUSE_WHEEL, e.getButton(), e.getWheelRotation(),
+				e.getClickCount(), 0, 0, e.getPreciseWheelRotation(), KeyEvent.CHAR_UNDEFINED);
+		e.consume();
 	}
 
 }
\ No newline at end of file
@@ -0,0 +1,150 @@
+/*******************************************************************************
+ * Copyright (c) 2016 - 2018 Roman Divotkey,
+ * Univ. of Applied Sciences Upper Austria. 
+ * All rights reserved.
+ *   
+ * This file is subject to the terms and conditions defined in file
+ * 'LICENSE', which is part of this source code package.
+ *    
+ * THIS CODE IS PROVIDED AS EDUCATIONAL MATERIAL AND NOT INTENDED TO ADDRESS
+ * ALL REAL WORLD PROBLEMS AND ISSUES IN DETAIL.
+ *******************************************************************************/
+package at.fhooe.mtd.sgl.math;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram for non-negative long values with logarithmic bucket sizes.
+ * <p>
+ * Values are assigned to buckets whose width grows with the magnitude of the
+ * value, so the relative error of the reported values stays below one percent
+ * for the whole value range while the number of buckets remains small. This is
+ * the same approach as used by HDR histograms.
+ * </p>
+ * <p>
+ * Recording values does not allocate memory and does not acquire any locks. It
+ * is safe to query the histogram from a different thread while values are
+ * being recorded, however, the results of such queries are only approximate.
+ * </p>
+ */
+public class Histogram {
+
+    /** Number of bits used to divide each power of two into sub-buckets. */
+    private static final int SUB_BUCKET_BITS = 8;
+
+    /** Half the number of sub-buckets per power of two. */
+    private static final int SUB_BUCKET_HALF = 1 << (SUB_BUCKET_BITS - 1);
+
+    private final AtomicLongArray counts =
+            new AtomicLongArray(indexOf(Long.MAX_VALUE) + 1);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records the specified value. Negative values are recorded as zero.
+     *
+     * @param value
+     *            the value to record
+     */
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        counts.incrementAndGet(indexOf(value));
+        count.incrementAndGet();
+        sum.addAndGet(value);
+
+        long m;
+        while (value > (m = max.get()) && !max.compareAndSet(m, value));
+    }
+
+    /**
+     * Removes all recorded values.
+     */
+    public void reset() {
+        for (int i = 0; i < counts.length(); ++i) {
+            counts.set(i, 0);
+        }
+        count.set(0);
+        sum.set(0);
+        max.set(0);
+    }
+
+    /**
+     * Returns the number of recorded values.
+     *
+     * @return the number of values
+     */
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * Returns the largest recorded value.
+     *
+     * @return the maximum value or zero if no values have been recorded
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Returns the arithmetic mean of all recorded values.
+     *
+     * @return the mean value or zero if no values have been recorded
+     */
+    public double getMean() {
+        long n = count.get();
+        return n == 0 ? 0.0 : (double) sum.get() / n;
+    }
+
+    /**
+     * Returns the value below which the specified percentage of recorded
+     * values falls. The result is the upper bound of the bucket containing
+     * this value, limited to the largest recorded value.
+     *
+     * @param percentile
+     *            the percentile within the range [0, 100]
+     * @return the value at the given percentile or zero if no values have been
+     *         recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+        long n = count.get();
+        if (n == 0) {
+            return 0;
+        }
+
+        long rank = (long) Math.ceil(MathUtils.clamp(percentile, 0, 100) / 100.0 * n);
+        rank = Math.max(rank, 1);
+        long acc = 0;
+        for (int i = 0; i < counts.length(); ++i) {
+            acc += counts.get(i);
+            if (acc >= rank) {
+                return Math.min(lowestValueOf(i + 1) - 1, max.get());
+            }
+        }
+        return max.get();
+    }
+
+    private static int indexOf(long value) {
+        if (value < 2 * SUB_BUCKET_HALF) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS + 1;
+        return shift * SUB_BUCKET_HALF + (int) (value >>> shift);
+    }
+
+    private static long lowestValueOf(int idx) {
+        if (idx < 2 * SUB_BUCKET_HALF) {
+            return idx;
+        }
+        int shift = idx / SUB_BUCKET_HALF - 1;
+        long value = (long) (idx - shift * SUB_BUCKET_HALF) << shift;
+
+        // avoid overflow for the topmost bucket
+        return value < 0 ? Long.MAX_VALUE : value;
+    }
+
+}
@@ -0,0 +1,262 @@
+/*******************************************************************************
+ * Copyright (c) 2016 - 2018 Roman Divotkey,
+ * Univ. of Applied Sciences Upper Austria. 
+ * All rights reserved.
+ *   
+ * This file is subject to the terms and conditions defined in file
+ * 'LICENSE', which is part of this source code package.
+ *    
+ * THIS CODE IS PROVIDED AS EDUCATIONAL MATERIAL AND NOT INTENDED TO ADDRESS
+ * ALL REAL WORLD PROBLEMS AND ISSUES IN DETAIL.
+ *******************************************************************************/
+
+package at.fhooe.mtd.sgl.util;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.imageio.ImageIO;
+
+import at.fhooe.mtd.sgl.audio.Audio;
+import at.fhooe.mtd.sgl.audio.Sound;
+
+/**
+ * Loads sounds and images in the background using a pool of worker threads.
+ * <p>
+ * Assets are located using {@link ResourceLoader} and decoded in parallel on a
+ * work-stealing thread pool. Each request immediately returns a future, which
+ * completes as soon as the asset has been loaded. Requesting an asset which is
+ * already loaded or currently being loaded returns the same future, hence each
+ * asset is loaded only once.
+ * </p>
+ * <p>
+ * A typical load screen requests all assets at once and polls
+ * {@link #getProgress()} each frame until {@link #isDone()} returns
+ * {@code true}.
+ * </p>
+ */
+public class AssetManager {
+
+    /** Prefix used for the keys of sound assets. */
+    private static final String SOUND_KEY = "sound:";
+
+    /** Prefix used for the keys of image assets. */
+    private static final String IMAGE_KEY = "image:";
+
+    /** The audio system used to create sounds. */
+    private final Audio audio;
+
+    /** The thread pool used to load assets. */
+    private final ForkJoinPool pool;
+
+    /** The assets requested so far, keyed by type and resource name. */
+    private final ConcurrentHashMap<String, CompletableFuture<?>> assets = new ConcurrentHashMap<>();
+
+    /** The number of assets requested. */
+    private final AtomicInteger numRequested = new AtomicInteger();
+
+    /** The number of assets which have been loaded, successfully or not. */
+    private final AtomicInteger numCompleted = new AtomicInteger();
+
+    /** The number of assets which could not be loaded. */
+    private final AtomicInteger numFailed = new AtomicInteger();
+
+    /**
+     * Creates a new instance using one worker thread per available processor.
+     * 
+     * @param audio
+     *            the audio system used to create sounds
+     */
+    public AssetManager(Audio audio) {
+        this(audio, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a new instance.
+     * 
+     * @param audio
+     *            the audio system used to create sounds
+     * @param numThreads
+     *            the number of worker threads
+     * @throws IllegalArgumentException
+     *             in case the number of threads is less than one
+     */
+    public AssetManager(Audio audio, int numThreads) throws IllegalArgumentException {
+        if (numThreads < 1) {
+            throw new IllegalArgumentException("invalid number of threads " + numThreads);
+        }
+        this.audio = audio;
+        pool = new ForkJoinPool(numThreads, p -> {
+            ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+            t.setName("SGL Asset Loader " + t.getPoolIndex());
+            t.setDaemon(true);
+            return t;
+        }, null, false);
+    }
+
+    /**
+     * Requests the specified sound to be loaded.
+     * 
+     * @param name
+     *            the resource name of the audio file
+     * @return the future of the sound; completes exceptionally in case the
+     *         sound could not be loaded
+     * @throws IllegalStateException
+     *             if this asset manager has been disposed
+     */
+    @SuppressWarnings("unchecked")
+    public CompletableFuture<Sound> loadSound(String name) throws IllegalStateException {
+        return (CompletableFuture<Sound>) request(SOUND_KEY + name, () -> {
+            return audio.createSound(ResourceLoader.getUrl(name));
+        });
+    }
+
+    /**
+     * Requests the specified image to be loaded.
+     * 
+     * @param name
+     *            the resource name of the image file
+     * @return the future of the image; completes exceptionally in case the
+     *         image could not be loaded
+     * @throws IllegalStateException
+     *             if this asset manager has been disposed
+     */
+    @SuppressWarnings("unchecked")
+    public CompletableFuture<BufferedImage> loadImage(String name) throws IllegalStateException {
+        return (CompletableFuture<BufferedImage>) request(IMAGE_KEY + name, () -> {
+            try (InputStream is = ResourceLoader.getStream(name)) {
+                BufferedImage img = ImageIO.read(is);
+                if (img == null) {
+                    throw new IOException("unsupported image format " + name);
+                }
+                return img;
+            }
+        });
+    }
+
+    /**
+     * Returns the number of assets requested so far.
+     * 
+     * @return the number of requested assets
+     */
+    public int getNumRequested() {
+        return numRequested.get();
+    }
+
+    /**
+     * Returns the number of requested assets which have been processed,
+     * including those which could not be loaded.
+     * 
+     * @return the number of processed assets
+     */
+    public int getNumCompleted() {
+        return numCompleted.get();
+    }
+
+    /**
+     * Returns the number of requested assets which could not be loaded.
+     * 
+     * @return the number of failed assets
+     */
+    public int getNumFailed() {
+        return numFailed.get();
+    }
+
+    /**
+     * Returns the loading progress.
+     * 
+     * @return the ratio of processed to requested assets in the range [0, 1];
+     *         one if no assets have been requested
+     */
+    public double getProgress() {
+        int requested = numRequested.get();
+        return requested == 0 ? 1.0 : Math.min(1.0, (double) numCompleted.get() / requested);
+    }
+
+    /**
+     * Determines whether all requested assets have been processed.
+     * 
+     * @return {@code true} if no request is pending
+     */
+    public boolean isDone() {
+        return numCompleted.get() >= numRequested.get();
+    }
+
+    /**
+     * Blocks the calling thread until all assets requested so far have been
+     * processed.
+     * 
+     * @return {@code true} if all assets have been loaded successfully
+     */
+    public boolean finishLoading() {
+        CompletableFuture<?>[] pending = assets.values().toArray(new CompletableFuture<?>[0]);
+        try {
+            CompletableFuture.allOf(pending).join();
+        } catch (RuntimeException e) {
+            // failures are reported by the individual futures
+        }
+        return numFailed.get() == 0;
+    }
+
+    /**
+     * Shuts down the worker threads. Pending requests are still processed,
+     * requests for assets not requested before are rejected with an
+     * {@link IllegalStateException}.
+     */
+    public void dispose() {
+        pool.shutdown();
+    }
+
+    private CompletableFuture<?> request(String key, AssetTask<?> task) throws IllegalStateException {
+        CompletableFuture<?> existing = assets.get(key);
+        if (existing != null) {
+            return existing;
+        }
+        if (pool.isShutdown()) {
+            throw new IllegalStateException("asset manager already disposed");
+        }
+        
+        try {
+            return assets.computeIfAbsent(key, k -> {
+                CompletableFuture<?> f = CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return task.load();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }, pool).whenComplete((asset, e) -> {
+                    if (e != null) {
+                        numFailed.incrementAndGet();
+                    }
+                    numCompleted.incrementAndGet();
+                });
+                
+                // count only requests which have actually been submitted
+                numRequested.incrementAndGet();
+                return f;
+            });
+        } catch (RejectedExecutionException e) {
+            // disposed concurrently
+            throw new IllegalStateException("asset manager already disposed", e);
+        }
+    }
+
+    /**
+     * Loads a single asset.
+     */
+    @FunctionalInterface
+    private interface AssetTask<T> {
+
+        public T load() throws IOException;
+
+    }
+
+}
@@ -0,0 +1,251 @@
+/*******************************************************************************
+ * Copyright (c) 2016 - 2018 Roman Divotkey,
+ * Univ. of Applied Sciences Upper Austria. 
+ * All rights reserved.
+ *   
+ * This file is subject to the terms and conditions defined in file
+ * 'LICENSE', which is part of this source code package.
+ *    
+ * THIS CODE IS PROVIDED AS EDUCATIONAL MATERIAL AND NOT INTENDED TO ADDRESS
+ * ALL REAL WORLD PROBLEMS AND ISSUES IN DETAIL.
+ *******************************************************************************/
+package at.fhooe.mtd.sgl.audio;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import javax.sound.sampled.AudioFormat;
+
+/**
+ * Regression check of the offline rendering. A scripted scene is rendered with
+ * a single thread and with several threads, the resulting audio data must be
+ * byte-identical. The scene starts with more voices than the command queue
+ * holds, all of them must be played. Sounds played from memory mapped cache
+ * files must produce the same output as sounds played from arrays.
+ * <p>
+ * This class is run as an application, it terminates with an
+ * {@link AssertionError} if a check fails.
+ * </p>
+ */
+public class OfflineRendererCheck {
+
+	/** The sample rate of the rendered scene. */
+	private static final float SAMPLE_RATE = 44100;
+	
+	/** The number of voices started at the beginning of the scene. */
+	private static final int NUM_VOICES = 1500;
+	
+	/** The numbers of threads used to render the scene. */
+	private static final int[] THREADS = {2, 3, 4};
+	
+	public static void main(String[] args) throws IOException {
+		PcmCache[] sounds = createSounds();
+		Result serial = renderScene(1, sounds, false);
+		check(serial.voiceHighWaterMark == NUM_VOICES,
+				"expected " + NUM_VOICES + " voices, got " + serial.voiceHighWaterMark);
+		check(serial.stolenVoices == 0, "no voices must be stolen, got " + serial.stolenVoices);
+		
+		for (int n : THREADS) {
+			Result parallel = renderScene(n, sounds, false);
+			check(Arrays.equals(serial.data, parallel.data),
+					"output rendered with " + n + " threads differs from serial output");
+			check(parallel.voiceHighWaterMark == NUM_VOICES,
+					"expected " + NUM_VOICES + " voices with " + n + " threads, got " + parallel.voiceHighWaterMark);
+		}
+		
+		for (PcmCache.Encoding enc : PcmCache.Encoding.values()) {
+			PcmCache[] cached = writeCache(sounds, enc);
+			Result arrays = renderScene(1, cached, false);
+			Result mapped = renderScene(THREADS[THREADS.length - 1], cached, true);
+			check(Arrays.equals(arrays.data, mapped.data),
+					"output of mapped " + enc + " cache files differs from array output");
+			if (enc == PcmCache.Encoding.FLOAT32) {
+				check(Arrays.equals(serial.data, mapped.data),
+						"output of mapped " + enc + " cache files differs from serial output");
+			}
+		}
+		System.out.println("offline rendering ok, " + serial.data.length + " bytes compared");
+	}
+	
+	/**
+	 * Creates the sounds of the test scene, sounds with odd index have two
+	 * channels.
+	 * 
+	 * @return the audio data of the sounds
+	 */
+	private static PcmCache[] createSounds() {
+		Random rnd = new Random(42);
+		PcmCache[] sounds = new PcmCache[8];
+		for (int i = 0; i < sounds.length; ++i) {
+			float[] samples = new float[(int) (SAMPLE_RATE * (0.2 + 0.1 * i)) & ~1];
+			for (int j = 0; j < samples.length; ++j) {
+				samples[j] = rnd.nextFloat() * 2.0f - 1.0f;
+			}
+			sounds[i] = new PcmCache(SAMPLE_RATE, 1 + i % 2, samples);
+		}
+		return sounds;
+	}
+	
+	/**
+	 * Writes the specified sounds to temporary cache files and reads them
+	 * back.
+	 * 
+	 * @param sounds
+	 *            the sounds to be cached
+	 * @param enc
+	 *            the encoding of the cache files
+	 * @return the sounds backed by mapped cache files
+	 * @throws IOException
+	 *             in case a cache file could not be written or read
+	 */
+	private static PcmCache[] writeCache(PcmCache[] sounds, PcmCache.Encoding enc) throws IOException {
+		PcmCache[] result = new PcmCache[sounds.length];
+		for (int i = 0; i < sounds.length; ++i) {
+			Path file = Files.createTempFile("sgl", ".pcm");
+			file.toFile().deleteOnExit();
+			sounds[i].write(file, enc);
+			result[i] = PcmCache.read(file);
+			check(result[i].getMappedSamples() != null, "cache file " + file + " is not mapped");
+		}
+		return result;
+	}
+	
+	/**
+	 * Renders the test scene.
+	 * 
+	 * @param numThreads
+	 *            the number of threads used to render mix objects
+	 * @param sounds
+	 *            the sounds played by the voices of the scene
+	 * @param mapped
+	 *            {@code true} to play the samples of mapped cache files,
+	 *            {@code false} to play copies of the samples
+	 * @return the rendered audio data and the voice statistics
+	 */
+	private static Result renderScene(int numThreads, PcmCache[] sounds, boolean mapped) {
+		CaptureOutput out = new CaptureOutput(new AudioFormat(SAMPLE_RATE, 16, 2, true, false), 512);
+		MixProcessor2f mixer = new MixProcessor2f(out);
+		mixer.setNumThreads(numThreads);
+		mixer.setMaxVoices(2 * NUM_VOICES);
+		
+		VoicePool<MonoMix2f> monoPool = MonoMix2f.createPool(NUM_VOICES);
+		VoicePool<StereoMix2f> stereoPool = StereoMix2f.createPool(NUM_VOICES);
+		float[][] samples = new float[sounds.length][];
+		for (int i = 0; i < sounds.length; ++i) {
+			samples[i] = sounds[i].getSamples();
+		}
+		
+		OfflineRenderer r = new OfflineRenderer(mixer);
+		r.at(0.0, m -> {
+			// more commands than fit into the command queue
+			for (int i = 1; i <= NUM_VOICES; ++i) {
+				int k = i % sounds.length;
+				Mix2f mix;
+				if (sounds[k].getNumChannels() == 1) {
+					mix = mapped 
+							? MonoMix2f.obtain(monoPool, i, sounds[k].getMappedSamples())
+							: MonoMix2f.obtain(monoPool, i, samples[k]);
+				} else {
+					mix = mapped 
+							? StereoMix2f.obtain(stereoPool, i, sounds[k].getMappedSamples())
+							: StereoMix2f.obtain(stereoPool, i, samples[k]);
+				}
+				mix.setVolume(0.5f / NUM_VOICES + 0.001f * (i % 7));
+				mix.setPitch(0.5f + 0.1f * (i % 11));
+				mix.setPanning(-1.0f + 2.0f * (i % 5) / 4);
+				mix.setLooping(i % 13 == 0);
+				m.addMix(mix);
+			}
+		});
+		r.at(0.05, m -> {
+			for (int i = 1; i <= NUM_VOICES; i += 3) {
+				m.setVolume(i, 0.0005f);
+				m.setPitch(i, 1.5f);
+			}
+		});
+		r.at(0.1, m -> {
+			for (int i = 2; i <= NUM_VOICES; i += 5) {
+				m.fadeOutMix(i, 2000);
+			}
+		});
+		r.at(0.15, m -> {
+			for (int i = 4; i <= NUM_VOICES; i += 7) {
+				m.stopMix(i);
+			}
+		});
+		r.at(0.3, m -> m.seekMix(13, 0.1f));
+		r.at(0.6, m -> m.stopAll());
+		r.render(0.8);
+		
+		return new Result(out.toByteArray(), mixer.getVoiceHighWaterMark(), mixer.getNumStolenVoices());
+	}
+	
+	private static void check(boolean condition, String message) {
+		if (!condition) {
+			throw new AssertionError(message);
+		}
+	}
+	
+	/**
+	 * The outcome of rendering the test scene.
+	 */
+	private static final class Result {
+		final byte[] data;
+		final int voiceHighWaterMark;
+		final long stolenVoices;
+		
+		Result(byte[] data, int voiceHighWaterMark, long stolenVoices) {
+			this.data = data;
+			this.voiceHighWaterMark = voiceHighWaterMark;
+			this.stolenVoices = stolenVoices;
+		}
+	}
+	
+	/**
+	 * An audio output keeping all written audio data in memory.
+	 */
+	private static final class CaptureOutput implements AudioOutput {
+		private final ByteArrayOutputStream data = new ByteArrayOutputStream();
+		private final AudioFormat format;
+		private final int bufferSize;
+		
+		CaptureOutput(AudioFormat format, int bufferFrames) {
+			this.format = format;
+			bufferSize = bufferFrames * format.getFrameSize();
+		}
+		
+		byte[] toByteArray() {
+			return data.toByteArray();
+		}
+		
+		@Override
+		public AudioFormat getFormat() {
+			return format;
+		}
+
+		@Override
+		public int getBufferSize() {
+			return bufferSize;
+		}
+
+		@Override
+		public int available() {
+			return bufferSize;
+		}
+
+		@Override
+		public int write(byte[] b, int off, int len) {
+			data.write(b, off, len);
+			return len;
+		}
+
+		@Override
+		public boolean isRealTime() {
+			return false;
+		}
+	}
+}